@@ -0,0 +1,148 @@
+package com.example.ticketreservation.benchmark;
+
+import com.example.ticketreservation.model.SeatBitmap;
+import com.example.ticketreservation.model.SeatMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Benchmarks the booking, cancellation and availability hot paths of BookingService.
+ *
+ * Thread count is set from the command line (-PjmhThreads=N). Running with lockStripes=1
+ * gives the single global lock baseline to compare the striped locking against.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookingBenchmark {
+
+    @Param({"10x10", "26x10"})
+    public String showSize;
+
+    @Param({"1", "1000"})
+    public int numberOfShows;
+
+    @Param({"0", "50"})
+    public int bookingsPerShow;
+
+    @Param({"1", "256"})
+    public int lockStripes;
+
+    private BookingFixture fixture;
+    // Seats that are never pre-booked, as ready-made single-seat selections.
+    private List<String>[] freeSeats;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        fixture = new BookingFixture(showSize, numberOfShows, bookingsPerShow, lockStripes);
+        SeatMap seatMap = fixture.showService.getShowDetails(fixture.showNumbers[0]).getSeats();
+        freeSeats = new List[seatMap.capacity() - bookingsPerShow];
+        for (int i = 0; i < freeSeats.length; i++) {
+            freeSeats[i] = Collections.singletonList(seatMap.labelOf(i));
+        }
+    }
+
+    @Benchmark
+    public List<String> checkAvailableSeats() {
+        return fixture.bookingService.checkAvailableSeats(randomShow());
+    }
+
+    @Benchmark
+    public byte[] checkAvailableSeatBitmap() {
+        return SeatBitmap.encode(fixture.bookingService.checkSeatAvailability(randomShow()));
+    }
+
+    @Benchmark
+    public String bookSeats(Buyer buyer) {
+        buyer.showNumber = randomShow();
+        buyer.phoneNumber = buyer.nextPhoneNumber();
+        try {
+            buyer.ticketNumber = fixture.bookingService.bookSeats(buyer.showNumber, buyer.phoneNumber, randomFreeSeat());
+        } catch (IllegalArgumentException e) {
+            // The seat was taken by another thread; rejections are part of the hot path.
+            buyer.ticketNumber = null;
+        }
+        return buyer.ticketNumber;
+    }
+
+    @Benchmark
+    public void cancelBooking(BookedBuyer booked) {
+        if (booked.buyer.ticketNumber != null) {
+            fixture.bookingService.cancelBooking(booked.buyer.ticketNumber, booked.buyer.phoneNumber);
+            booked.buyer.ticketNumber = null;
+        }
+    }
+
+    String randomShow() {
+        return fixture.showNumbers[ThreadLocalRandom.current().nextInt(fixture.showNumbers.length)];
+    }
+
+    List<String> randomFreeSeat() {
+        return freeSeats[ThreadLocalRandom.current().nextInt(freeSeats.length)];
+    }
+
+    /**
+     * Per-thread buyer identity. Bookings made by the bookSeats benchmark are cancelled
+     * after each invocation so the shows never sell out.
+     */
+    @State(Scope.Thread)
+    public static class Buyer {
+
+        private static final AtomicInteger IDS = new AtomicInteger();
+
+        private final String phonePrefix = "+9" + IDS.incrementAndGet() + "-";
+        private long sequence;
+        String showNumber;
+        String phoneNumber;
+        String ticketNumber;
+
+        String nextPhoneNumber() {
+            return phonePrefix + sequence++;
+        }
+
+        @TearDown(Level.Invocation)
+        public void cancel(BookingBenchmark benchmark) {
+            if (ticketNumber != null) {
+                benchmark.fixture.bookingService.cancelBooking(ticketNumber, phoneNumber);
+                ticketNumber = null;
+            }
+        }
+    }
+
+    /**
+     * A buyer that holds a fresh booking before each invocation of the cancelBooking benchmark.
+     */
+    @State(Scope.Thread)
+    public static class BookedBuyer {
+
+        final Buyer buyer = new Buyer();
+
+        @Setup(Level.Invocation)
+        public void book(BookingBenchmark benchmark) {
+            while (buyer.ticketNumber == null) {
+                benchmark.bookSeats(buyer);
+            }
+        }
+    }
+}
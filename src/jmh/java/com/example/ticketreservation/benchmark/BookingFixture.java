@@ -0,0 +1,61 @@
+package com.example.ticketreservation.benchmark;
+
+import com.example.ticketreservation.model.SeatMap;
+import com.example.ticketreservation.repository.BookingRepository;
+import com.example.ticketreservation.repository.ShowRepository;
+import com.example.ticketreservation.service.BookingService;
+import com.example.ticketreservation.service.ServiceFixture;
+import com.example.ticketreservation.service.ShowService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.Collections;
+
+/**
+ * Wires the services with ServiceFixture and fills them with shows and bookings.
+ */
+final class BookingFixture {
+
+    final ShowRepository showRepository;
+    final BookingRepository bookingRepository;
+    final ShowService showService;
+    final BookingService bookingService;
+    final String[] showNumbers;
+
+    /**
+     * @param showSize Seat layout as "rows x seatsPerRow", e.g. "26x10".
+     * @param numberOfShows The number of shows to configure.
+     * @param bookingsPerShow The number of single-seat bookings to pre-load on each show.
+     * @param lockStripes The number of show lock stripes; 1 means a single global lock.
+     */
+    BookingFixture(String showSize, int numberOfShows, int bookingsPerShow, int lockStripes) {
+        String[] dimensions = showSize.split("x");
+        int numberOfRows = Integer.parseInt(dimensions[0]);
+        int seatsPerRow = Integer.parseInt(dimensions[1]);
+        if (bookingsPerShow > numberOfRows * seatsPerRow) {
+            throw new IllegalArgumentException("bookingsPerShow exceeds the show size " + showSize);
+        }
+
+        ServiceFixture services = ServiceFixture.builder()
+                .lockStripes(lockStripes)
+                // Recorded like in the application, so the benchmarks include the cost of instrumentation.
+                .meterRegistry(new SimpleMeterRegistry())
+                // Started, so cancelled bookings leave the wheel as they would in the application.
+                .startTimingWheel(100, 512)
+                .build();
+        showRepository = services.showRepository;
+        bookingRepository = services.bookingRepository;
+        showService = services.showService;
+        bookingService = services.bookingService;
+        showNumbers = new String[numberOfShows];
+        for (int i = 0; i < numberOfShows; i++) {
+            showNumbers[i] = String.format("SH%06d", i);
+            showService.configureShow(showNumbers[i], numberOfRows, seatsPerRow, 60);
+            SeatMap seatMap = showService.getShowDetails(showNumbers[i]).getSeats();
+            // Fill from the back so the front rows stay free for the benchmarks.
+            for (int b = 0; b < bookingsPerShow; b++) {
+                String seat = seatMap.labelOf(seatMap.capacity() - 1 - b);
+                bookingService.bookSeats(showNumbers[i], "+0" + b, Collections.singletonList(seat));
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.ticketreservation.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks ShowService.displayShowDetails, whose cost grows with the bookings on a show.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShowDetailsBenchmark {
+
+    @Param({"26x10"})
+    public String showSize;
+
+    @Param({"1", "1000"})
+    public int numberOfShows;
+
+    @Param({"10", "250"})
+    public int bookingsPerShow;
+
+    private BookingFixture fixture;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new BookingFixture(showSize, numberOfShows, bookingsPerShow, 256);
+    }
+
+    @Benchmark
+    public List<String> displayShowDetails() {
+        String showNumber = fixture.showNumbers[ThreadLocalRandom.current().nextInt(fixture.showNumbers.length)];
+        return fixture.showService.displayShowDetails(showNumber);
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.ticketreservation.benchmark;
+
+import com.example.ticketreservation.model.TicketNumber;
+import com.example.ticketreservation.service.TicketNumberGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks ticket number generation and parsing. The contended variants run one thread
+ * per available processor against a single generator.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TicketNumberBenchmark {
+
+    private final TicketNumberGenerator generator = new TicketNumberGenerator(1);
+    private final String ticketNumber = generator.next();
+
+    @Benchmark
+    @Threads(1)
+    public String generateTicketNumber() {
+        return generator.next();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String generateTicketNumberContended() {
+        return generator.next();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public long generateTicketIdContended() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String generateHoldId() {
+        return generator.nextHoldId();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long parseTicketNumber() {
+        return TicketNumber.parse(ticketNumber);
+    }
+}
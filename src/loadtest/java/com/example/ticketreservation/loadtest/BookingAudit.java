@@ -0,0 +1,156 @@
+package com.example.ticketreservation.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Checks after a load test run that no seat was sold twice.
+ *
+ * The audit compares three views of every show: the bookings the clients were told succeeded
+ * and did not cancel, the bookings the service lists for the show, and the seats it reports
+ * as available. It fails if two bookings share a seat in either list of bookings, if a
+ * confirmed booking is missing from the service, or if a booked seat is reported as available.
+ * Bookings the service has but no client knows about are only counted: their responses were
+ * lost to timeouts or I/O errors.
+ */
+final class BookingAudit {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final int PAGE_SIZE = 10_000;
+
+    /**
+     * A booking as a client saw it.
+     */
+    record Ticket(String showNumber, String ticketNumber, String phoneNumber, List<String> seats) {
+    }
+
+    private final String baseUrl;
+    private final HttpClient httpClient;
+    private final int capacity;
+    private final Map<String, List<Ticket>> confirmed = new HashMap<>();
+    private final Set<String> unconfirmed = new HashSet<>();
+
+    BookingAudit(String baseUrl, HttpClient httpClient, int capacity) {
+        this.baseUrl = baseUrl;
+        this.httpClient = httpClient;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Records a booking a client was told succeeded, and did not cancel.
+     */
+    synchronized void booked(Ticket ticket) {
+        confirmed.computeIfAbsent(ticket.showNumber(), show -> new ArrayList<>()).add(ticket);
+    }
+
+    /**
+     * Records a booking whose cancellation got no response, so it may or may not still exist.
+     */
+    synchronized void unconfirmed(Ticket ticket) {
+        unconfirmed.add(ticket.ticketNumber());
+    }
+
+    /**
+     * Audits the given shows and prints the findings.
+     *
+     * @return true if no seat was sold twice and the service agrees with the clients.
+     */
+    synchronized boolean verify(List<String> shows) throws IOException, InterruptedException {
+        List<String> failures = new ArrayList<>();
+        long serverBookings = 0;
+        long unknownBookings = 0;
+        long soldSeats = 0;
+        for (String show : shows) {
+            Map<String, String> ticketBySeat = new HashMap<>();
+            Map<String, List<String>> seatsByTicket = new HashMap<>();
+            String after = null;
+            do {
+                JsonNode page = get("/api/view/" + show + "/bookings?limit=" + PAGE_SIZE
+                        + (after == null ? "" : "&after=" + URLEncoder.encode(after, StandardCharsets.UTF_8)));
+                for (JsonNode booking : page.get("bookings")) {
+                    String ticketNumber = booking.get("ticketNumber").asText();
+                    List<String> seats = new ArrayList<>();
+                    for (JsonNode seat : booking.get("seats")) {
+                        seats.add(seat.asText());
+                        String other = ticketBySeat.put(seat.asText(), ticketNumber);
+                        if (other != null) {
+                            failures.add(show + " " + seat.asText() + " is booked by both " + other + " and " + ticketNumber + ".");
+                        }
+                    }
+                    seatsByTicket.put(ticketNumber, seats);
+                }
+                after = page.get("next").isNull() ? null : page.get("next").asText();
+            } while (after != null);
+            serverBookings += seatsByTicket.size();
+            soldSeats += ticketBySeat.size();
+
+            Set<String> clientSeats = new HashSet<>();
+            Set<String> clientTickets = new HashSet<>();
+            for (Ticket ticket : confirmed.getOrDefault(show, List.of())) {
+                clientTickets.add(ticket.ticketNumber());
+                for (String seat : ticket.seats()) {
+                    if (!clientSeats.add(seat)) {
+                        failures.add(show + " " + seat + " was confirmed to two clients.");
+                    }
+                }
+                List<String> seats = seatsByTicket.get(ticket.ticketNumber());
+                if (seats == null && !unconfirmed.contains(ticket.ticketNumber())) {
+                    failures.add(show + " booking " + ticket.ticketNumber() + " was confirmed but is missing.");
+                } else if (seats != null && !new HashSet<>(seats).equals(new HashSet<>(ticket.seats()))) {
+                    failures.add(show + " booking " + ticket.ticketNumber() + " has seats " + seats
+                            + " but was confirmed with " + ticket.seats() + ".");
+                }
+            }
+            for (String ticketNumber : seatsByTicket.keySet()) {
+                if (!clientTickets.contains(ticketNumber) && !unconfirmed.contains(ticketNumber)) {
+                    unknownBookings++;
+                }
+            }
+
+            JsonNode available = get("/api/availability/" + show);
+            for (JsonNode seat : available) {
+                if (ticketBySeat.containsKey(seat.asText())) {
+                    failures.add(show + " " + seat.asText() + " is booked but reported available.");
+                }
+            }
+            if (available.size() + ticketBySeat.size() != capacity) {
+                failures.add(show + " has " + ticketBySeat.size() + " booked and " + available.size()
+                        + " available seats out of " + capacity + ".");
+            }
+        }
+
+        System.out.printf("%nAudit: %d bookings of %d seats on %d shows, %d without a response at the client.%n",
+                serverBookings, soldSeats, shows.size(), unknownBookings + unconfirmed.size());
+        if (failures.isEmpty()) {
+            System.out.println("  no double bookings");
+            return true;
+        }
+        failures.forEach(failure -> System.out.println("  FAILED: " + failure));
+        return false;
+    }
+
+    private JsonNode get(String path) throws IOException, InterruptedException {
+        HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Accept", "application/json")
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("GET " + path + " failed with " + response.statusCode() + ": " + response.body());
+        }
+        return OBJECT_MAPPER.readTree(response.body());
+    }
+}
@@ -0,0 +1,318 @@
+package com.example.ticketreservation.loadtest;
+
+import com.example.ticketreservation.TicketReservationApplication;
+import com.example.ticketreservation.loadtest.LoadTestOptions.Operation;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Simulates the first minutes of an on-sale against the REST API and reports how the
+ * service held up.
+ *
+ * Unless --url points at a running instance, the application is started in this JVM on a
+ * free port, with the console disabled. The shows are configured through POST /api/setup,
+ * then every client, each on its own virtual thread, sends one request after another for
+ * the configured duration, picking availability checks, bookings of specific seats,
+ * best-available bookings and cancellations of its own earlier bookings by the configured
+ * mix. With a positive skew, most traffic goes to the first shows and the front-center seats,
+ * so clients compete for the same seats as they do in a real flash sale.
+ *
+ * The report lists throughput, p50/p99/p999 latency and rejections per operation, and ends
+ * with a double-booking audit (see BookingAudit). The exit status is 1 if the audit fails.
+ *
+ * Run with: ./gradlew loadTest -PloadTestArgs="--clients=2000 --duration=60s --skew=3"
+ */
+public final class FlashSaleLoadTest {
+
+    private static final String SHOW_PREFIX = "LT";
+    private static final String BOOKED_PREFIX = "Booking successful. Ticket Number: ";
+
+    private final LoadTestOptions options;
+    private final String baseUrl;
+    private final HttpClient httpClient;
+    private final Map<Operation, LatencyRecorder> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> successes = new EnumMap<>(Operation.class);
+    // Rejections by operation, status and response body. The service rejects with a fixed set of messages.
+    private final Map<String, LongAdder> rejections = new ConcurrentHashMap<>();
+    private final BookingAudit audit;
+
+    FlashSaleLoadTest(LoadTestOptions options, String baseUrl) {
+        this.options = options;
+        this.baseUrl = baseUrl;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(options.timeout)
+                .build();
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new LatencyRecorder());
+            successes.put(operation, new LongAdder());
+        }
+        this.audit = new BookingAudit(baseUrl, httpClient, options.rows * options.seatsPerRow);
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        ConfigurableApplicationContext application = null;
+        String baseUrl = options.url;
+        if (baseUrl == null) {
+            List<String> applicationArgs = new ArrayList<>(Arrays.asList("--server.port=0", "--ticketreservation.cli.enabled=false"));
+            applicationArgs.addAll(options.applicationArgs);
+            application = SpringApplication.run(TicketReservationApplication.class, applicationArgs.toArray(new String[0]));
+            baseUrl = "http://localhost:" + application.getEnvironment().getProperty("local.server.port");
+        }
+        boolean passed;
+        try {
+            passed = new FlashSaleLoadTest(options, baseUrl).run();
+        } finally {
+            if (application != null) {
+                application.close();
+            }
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * @return true if the audit found no double bookings.
+     */
+    boolean run() throws Exception {
+        configureShows();
+        System.out.printf("Running %d clients against %s for %ds...%n", options.clients, baseUrl, options.duration.toSeconds());
+
+        long start = System.nanoTime();
+        long deadline = start + options.duration.toNanos();
+        List<Future<List<BookingAudit.Ticket>>> clients = new ArrayList<>(options.clients);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int client = 0; client < options.clients; client++) {
+                int id = client;
+                clients.add(executor.submit(() -> runClient(id, deadline)));
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        for (Future<List<BookingAudit.Ticket>> client : clients) {
+            client.get().forEach(audit::booked);
+        }
+
+        report(elapsed);
+        List<String> shows = new ArrayList<>();
+        for (int show = 0; show < options.shows; show++) {
+            shows.add(showNumber(show));
+        }
+        return audit.verify(shows);
+    }
+
+    private void configureShows() throws IOException, InterruptedException {
+        for (int show = 0; show < options.shows; show++) {
+            String body = String.format("{\"showNumber\":\"%s\",\"numberOfRows\":%d,\"seatsPerRow\":%d,\"cancelWindowInMinutes\":%d}",
+                    showNumber(show), options.rows, options.seatsPerRow, options.cancelWindowInMinutes);
+            HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/setup"))
+                            .timeout(options.timeout)
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(body))
+                            .build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 201) {
+                throw new IllegalStateException("Could not configure show " + showNumber(show) + ": " + response.body());
+            }
+        }
+    }
+
+    /**
+     * Sends requests until the deadline.
+     *
+     * @return The client's bookings that it has not cancelled.
+     */
+    private List<BookingAudit.Ticket> runClient(int client, long deadline) {
+        SplittableRandom random = new SplittableRandom(client);
+        List<BookingAudit.Ticket> tickets = new ArrayList<>();
+        int totalWeight = options.mix.values().stream().mapToInt(Integer::intValue).sum();
+        long phoneNumbers = 0;
+        while (System.nanoTime() < deadline) {
+            Operation operation = pick(random.nextInt(totalWeight));
+            if (operation == Operation.CANCEL && tickets.isEmpty()) {
+                operation = Operation.AVAILABILITY;
+            }
+            String show = showNumber(skewed(random, options.shows));
+            // Every booking comes from a new buyer, so the per-phone limit does not reject it.
+            String phoneNumber = "+" + (1_000_000_000L + client * 1_000_000L + phoneNumbers++);
+            HttpRequest.Builder request;
+            List<String> seats = null;
+            BookingAudit.Ticket cancelled = null;
+            switch (operation) {
+                case AVAILABILITY:
+                    request = request("/api/availability/" + show).GET();
+                    break;
+                case BOOK:
+                    seats = hotSeats(random);
+                    request = request("/api/book/" + show + "?phoneNumber=" + encode(phoneNumber)
+                            + "&selectedSeats=" + String.join(",", seats)).POST(HttpRequest.BodyPublishers.noBody());
+                    break;
+                case BEST:
+                    request = request("/api/book/" + show + "/best?phoneNumber=" + encode(phoneNumber)
+                            + "&numberOfSeats=" + options.seatsPerBooking).POST(HttpRequest.BodyPublishers.noBody());
+                    break;
+                default:
+                    cancelled = tickets.remove(random.nextInt(tickets.size()));
+                    request = request("/api/cancel?ticketNumber=" + cancelled.ticketNumber()
+                            + "&phoneNumber=" + encode(cancelled.phoneNumber())).DELETE();
+                    break;
+            }
+
+            long start = System.nanoTime();
+            HttpResponse<String> response;
+            try {
+                response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+            } catch (IOException e) {
+                latencies.get(operation).record(System.nanoTime() - start);
+                rejected(operation, "I/O error", e.getClass().getSimpleName());
+                if (cancelled != null) {
+                    // Unknown whether it was cancelled; the audit treats it as unconfirmed.
+                    audit.unconfirmed(cancelled);
+                }
+                continue;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            latencies.get(operation).record(System.nanoTime() - start);
+
+            int status = response.statusCode();
+            if (status / 100 != 2) {
+                rejected(operation, Integer.toString(status), response.body());
+                if (cancelled != null) {
+                    tickets.add(cancelled);
+                }
+                continue;
+            }
+            successes.get(operation).increment();
+            if (operation == Operation.BOOK || operation == Operation.BEST) {
+                tickets.add(parseBooking(show, phoneNumber, response.body(), seats));
+            }
+        }
+        return tickets;
+    }
+
+    private Operation pick(int weight) {
+        for (Map.Entry<Operation, Integer> entry : options.mix.entrySet()) {
+            weight -= entry.getValue();
+            if (weight < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Weight out of range.");
+    }
+
+    /**
+     * @return A value in [0, bound), biased towards 0 by the skew.
+     */
+    private int skewed(SplittableRandom random, int bound) {
+        return Math.min(bound - 1, (int) (bound * Math.pow(random.nextDouble(), 1 + options.skew)));
+    }
+
+    /**
+     * @return Adjacent seats, biased towards the front rows and the middle of the row.
+     */
+    private List<String> hotSeats(SplittableRandom random) {
+        int row = skewed(random, options.rows);
+        int positions = options.seatsPerRow - options.seatsPerBooking + 1;
+        int middle = positions / 2;
+        int offset = skewed(random, middle + 1);
+        int first = Math.min(positions - 1, random.nextBoolean() ? middle + offset : Math.max(0, middle - offset));
+        List<String> seats = new ArrayList<>(options.seatsPerBooking);
+        for (int seat = first; seat < first + options.seatsPerBooking; seat++) {
+            seats.add(rowLabel(row) + (seat + 1));
+        }
+        return seats;
+    }
+
+    /**
+     * @param seats The seats requested, or null for a best-available booking, whose response lists them.
+     */
+    private BookingAudit.Ticket parseBooking(String show, String phoneNumber, String body, List<String> seats) {
+        if (!body.startsWith(BOOKED_PREFIX)) {
+            throw new IllegalStateException("Unexpected booking response: " + body);
+        }
+        String rest = body.substring(BOOKED_PREFIX.length());
+        int seatsStart = rest.indexOf(", Seats: ");
+        if (seatsStart >= 0) {
+            return new BookingAudit.Ticket(show, rest.substring(0, seatsStart), phoneNumber,
+                    Arrays.asList(rest.substring(seatsStart + ", Seats: ".length()).split(", ")));
+        }
+        return new BookingAudit.Ticket(show, rest, phoneNumber, seats);
+    }
+
+    private void rejected(Operation operation, String status, String reason) {
+        rejections.computeIfAbsent(operation + " " + status + " " + reason, key -> new LongAdder()).increment();
+    }
+
+    private void report(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        long total = 0;
+        System.out.printf("%n%-13s %10s %10s %10s %10s %10s %10s %10s%n",
+                "operation", "requests", "ok", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (Operation operation : Operation.values()) {
+            LatencyRecorder latency = latencies.get(operation);
+            long count = latency.count();
+            total += count;
+            if (count == 0) {
+                continue;
+            }
+            System.out.printf("%-13s %10d %10d %10.0f %10.2f %10.2f %10.2f %10.2f%n", operation.name().toLowerCase(),
+                    count, successes.get(operation).sum(), count / seconds, latency.quantileMicros(0.5) / 1000.0,
+                    latency.quantileMicros(0.99) / 1000.0, latency.quantileMicros(0.999) / 1000.0, latency.maxMicros() / 1000.0);
+        }
+        System.out.printf("%-13s %10d %10s %10.0f%n", "total", total, "", total / seconds);
+
+        System.out.println("\nRejections:");
+        if (rejections.isEmpty()) {
+            System.out.println("  none");
+        }
+        Map<String, Long> sorted = new TreeMap<>();
+        rejections.forEach((reason, count) -> sorted.put(reason, count.sum()));
+        sorted.forEach((reason, count) -> System.out.printf("  %10d  %s%n", count, reason));
+    }
+
+    private HttpRequest.Builder request(String path) {
+        // Availability is also served as a bitmap; ask for the JSON list of seats.
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(options.timeout).header("Accept", "application/json");
+    }
+
+    private static String showNumber(int show) {
+        return String.format("%s%04d", SHOW_PREFIX, show);
+    }
+
+    /**
+     * @return The letters of a zero-based row: A..Z, then AA, AB and so on.
+     */
+    private static String rowLabel(int row) {
+        StringBuilder label = new StringBuilder();
+        for (int r = row + 1; r > 0; r = (r - 1) / 26) {
+            label.insert(0, (char) ('A' + (r - 1) % 26));
+        }
+        return label.toString();
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
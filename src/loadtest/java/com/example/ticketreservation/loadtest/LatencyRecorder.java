@@ -0,0 +1,69 @@
+package com.example.ticketreservation.loadtest;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with log-linear buckets: every power of two of microseconds is
+ * split into 128 buckets, so a percentile is reported to within 1% of the recorded latency.
+ */
+final class LatencyRecorder {
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray((Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS);
+
+    void record(long nanos) {
+        counts.incrementAndGet(bucketOf(Math.max(0, nanos / 1000)));
+    }
+
+    long count() {
+        long count = 0;
+        for (int bucket = 0; bucket < counts.length(); bucket++) {
+            count += counts.get(bucket);
+        }
+        return count;
+    }
+
+    /**
+     * @param quantile The quantile, e.g. 0.99.
+     * @return The latency at the quantile in microseconds, rounded up to its bucket, or 0 if nothing was recorded.
+     */
+    long quantileMicros(double quantile) {
+        long target = (long) Math.ceil(quantile * count());
+        long seen = 0;
+        for (int bucket = 0; bucket < counts.length(); bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= Math.max(1, target)) {
+                return highestValueIn(bucket);
+            }
+        }
+        return 0;
+    }
+
+    long maxMicros() {
+        for (int bucket = counts.length() - 1; bucket >= 0; bucket--) {
+            if (counts.get(bucket) > 0) {
+                return highestValueIn(bucket);
+            }
+        }
+        return 0;
+    }
+
+    static int bucketOf(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int shift = Long.SIZE - Long.numberOfLeadingZeros(micros) - 1 - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((micros >>> shift) - SUB_BUCKETS);
+    }
+
+    static long highestValueIn(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long subBucket = bucket % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
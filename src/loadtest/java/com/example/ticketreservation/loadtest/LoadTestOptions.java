@@ -0,0 +1,139 @@
+package com.example.ticketreservation.loadtest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Options of a load test run, parsed from --name=value arguments.
+ *
+ * Arguments for the application itself, such as --ticketreservation.event-loop.enabled=true
+ * or --spring.threads.virtual.enabled=true, are passed on to the embedded instance.
+ */
+final class LoadTestOptions {
+
+    private static final List<String> APPLICATION_PREFIXES = List.of("--ticketreservation.", "--spring.", "--server.");
+
+    // Base URL of a running instance, or null to start one in this JVM.
+    String url;
+    int clients = 1000;
+    Duration duration = Duration.ofSeconds(60);
+    Duration timeout = Duration.ofSeconds(10);
+    int shows = 10;
+    int rows = 26;
+    int seatsPerRow = 20;
+    int cancelWindowInMinutes = 60;
+    int seatsPerBooking = 2;
+    // 0 spreads traffic evenly; higher values concentrate it on the first show and the front-center seats.
+    double skew = 2.0;
+    // Relative weights of the operations each client picks from.
+    Map<Operation, Integer> mix = new EnumMap<>(Map.of(
+            Operation.AVAILABILITY, 70, Operation.BOOK, 20, Operation.BEST, 5, Operation.CANCEL, 5));
+    List<String> applicationArgs = new ArrayList<>();
+
+    enum Operation {
+        AVAILABILITY, BOOK, BEST, CANCEL
+    }
+
+    static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (String arg : args) {
+            if (arg.isBlank()) {
+                continue;
+            }
+            if (APPLICATION_PREFIXES.stream().anyMatch(arg::startsWith)) {
+                options.applicationArgs.add(arg);
+                continue;
+            }
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg + ".");
+            }
+            String value = arg.substring(equals + 1);
+            switch (arg.substring(2, equals)) {
+                case "url":
+                    options.url = value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
+                    break;
+                case "clients":
+                    options.clients = positive(arg, Integer.parseInt(value));
+                    break;
+                case "duration":
+                    options.duration = duration(value);
+                    break;
+                case "timeout":
+                    options.timeout = duration(value);
+                    break;
+                case "shows":
+                    options.shows = positive(arg, Integer.parseInt(value));
+                    break;
+                case "rows":
+                    options.rows = positive(arg, Integer.parseInt(value));
+                    break;
+                case "seats-per-row":
+                    options.seatsPerRow = positive(arg, Integer.parseInt(value));
+                    break;
+                case "cancel-window":
+                    options.cancelWindowInMinutes = positive(arg, Integer.parseInt(value));
+                    break;
+                case "seats-per-booking":
+                    options.seatsPerBooking = positive(arg, Integer.parseInt(value));
+                    break;
+                case "skew":
+                    options.skew = Double.parseDouble(value);
+                    break;
+                case "mix":
+                    options.mix = mix(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + arg + ".");
+            }
+        }
+        if (options.skew < 0 || options.seatsPerBooking > options.seatsPerRow) {
+            throw new IllegalArgumentException("Skew must not be negative, and bookings must fit in a row.");
+        }
+        return options;
+    }
+
+    /**
+     * Parses a duration such as "60s", "2m" or "500ms".
+     */
+    private static Duration duration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        if (value.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        return Duration.ofSeconds(Long.parseLong(value));
+    }
+
+    /**
+     * Parses an operation mix such as "availability:70,book:20,best:5,cancel:5".
+     */
+    private static Map<Operation, Integer> mix(String value) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String part : value.split(",")) {
+            String[] weight = part.split(":");
+            if (weight.length != 2) {
+                throw new IllegalArgumentException("Expected operation:weight in the mix, got " + part + ".");
+            }
+            mix.put(Operation.valueOf(weight[0].trim().toUpperCase()), Integer.parseInt(weight[1].trim()));
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("The mix needs at least one operation with a positive weight.");
+        }
+        return mix;
+    }
+
+    private static int positive(String arg, int value) {
+        if (value < 1) {
+            throw new IllegalArgumentException(arg + " must be positive.");
+        }
+        return value;
+    }
+}
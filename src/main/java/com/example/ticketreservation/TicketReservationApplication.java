@@ -1,14 +1,23 @@
 package com.example.ticketreservation;
 
+import com.example.ticketreservation.model.Booking;
 import com.example.ticketreservation.model.Show;
+import com.example.ticketreservation.model.ShowImportError;
+import com.example.ticketreservation.model.ShowImportReport;
 import com.example.ticketreservation.service.BookingService;
+import com.example.ticketreservation.service.ShowImporter;
 import com.example.ticketreservation.service.ShowService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Profile;
 
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
@@ -22,11 +31,18 @@ public class TicketReservationApplication implements CommandLineRunner {
 
     private final ShowService showService;
     private final BookingService bookingService;
+    private final ShowImporter showImporter;
+    // Off for headless runs, where there is no console to read commands from.
+    private final boolean cliEnabled;
 
     @Autowired
-    public TicketReservationApplication(ShowService showService, BookingService bookingService) {
+    public TicketReservationApplication(ShowService showService, BookingService bookingService,
+                                        ShowImporter showImporter,
+                                        @Value("${ticketreservation.cli.enabled:true}") boolean cliEnabled) {
         this.showService = showService;
         this.bookingService = bookingService;
+        this.showImporter = showImporter;
+        this.cliEnabled = cliEnabled;
     }
 
     private final Scanner scanner = new Scanner(System.in);
@@ -37,6 +53,9 @@ public class TicketReservationApplication implements CommandLineRunner {
 
     @Override
     public void run(String... args) {
+        if (!cliEnabled) {
+            return;
+        }
         mainMenu();
     }
 
@@ -74,6 +93,7 @@ public class TicketReservationApplication implements CommandLineRunner {
         System.out.println("Available commands:");
         System.out.println("setup <showNumber> <numberOfRows> <seatsPerRow> <cancelWindowInMinutes>");
         System.out.println("view <showNumber>");
+        System.out.println("import <file.csv|file.ndjson>");
         System.out.println("'back' to return to main menu.");
         System.out.println("Enter command: ");
 
@@ -91,7 +111,7 @@ public class TicketReservationApplication implements CommandLineRunner {
         System.out.println("\n--- Buyer Mode ---");
         System.out.println("Available commands:");
         System.out.println("availability <showNumber>");
-        System.out.println("book <showNumber> <phoneNumber> <commaSeparatedSelectedSeats>");
+        System.out.println("book <showNumber> <phoneNumber> <commaSeparatedSelectedSeats|numberOfAdjacentSeats>");
         System.out.println("cancel <ticketNumber> <phoneNumber>");
         System.out.println("'back' to return to main menu.");
         System.out.println("Enter command: ");
@@ -128,8 +148,23 @@ public class TicketReservationApplication implements CommandLineRunner {
                         System.out.println(detail);
                     }
                     break;
+                case "import":
+                    if (parts.length != 2) {
+                        System.err.println("Invalid 'import' command format. Expected format: import <file.csv|file.ndjson>");
+                        return;
+                    }
+                    ShowImporter.Format format = ShowImporter.Format.forFileName(parts[1]);
+                    ShowImportReport report;
+                    try (Reader reader = Files.newBufferedReader(Path.of(parts[1]), StandardCharsets.UTF_8)) {
+                        report = showImporter.importShows(reader, format);
+                    }
+                    System.out.println("Imported " + report.getImported() + " shows, " + report.getFailed() + " failed.");
+                    for (ShowImportError error : report.getErrors()) {
+                        System.err.println("Line " + error.getLine() + ": " + error.getError());
+                    }
+                    break;
                 default:
-                    System.err.println("Invalid command for admin. Available commands are 'setup' and 'view'.");
+                    System.err.println("Invalid command for admin. Available commands are 'setup', 'view' and 'import'.");
                     break;
             }
         } catch (Exception e) {
@@ -151,11 +186,20 @@ public class TicketReservationApplication implements CommandLineRunner {
                     break;
                 case "book":
                     if (parts.length != 4) {
-                        System.err.println("Invalid 'book' command format. Expected format: book <showNumber> <phoneNumber> <commaSeparatedSelectedSeats>");
+                        System.err.println("Invalid 'book' command format. Expected format: book <showNumber> <phoneNumber> <commaSeparatedSelectedSeats|numberOfAdjacentSeats>");
                         return;
                     }
-                    List<String> selectedSeats = Arrays.asList(parts[3].split(","));
-                    String ticketNumber = bookingService.bookSeats(parts[1], parts[2], selectedSeats);
+                    String ticketNumber;
+                    List<String> bookedSeats;
+                    if (parts[3].chars().allMatch(Character::isDigit)) {
+                        // A plain number asks for the best block of adjacent seats.
+                        Booking booking = bookingService.bookBestAvailableSeats(parts[1], parts[2], Integer.parseInt(parts[3]));
+                        ticketNumber = booking.getTicketNumber();
+                        bookedSeats = booking.getSeats();
+                    } else {
+                        bookedSeats = Arrays.asList(parts[3].split(","));
+                        ticketNumber = bookingService.bookSeats(parts[1], parts[2], bookedSeats);
+                    }
                     Show show = showService.getShowDetails(parts[1]);
                     int cancellationWindowMinutes = show != null ? show.getCancelWindowInMinutes() : 0;
                     DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
@@ -163,6 +207,7 @@ public class TicketReservationApplication implements CommandLineRunner {
 
                     // Print booking details
                     System.out.println("Booking successful. Ticket Number: " + ticketNumber);
+                    System.out.println("Seats: " + String.join(", ", bookedSeats));
                     System.out.println("Booking Creation Time: " + formatter.format(Instant.now()));
                     System.out.println("Reminder: Cancellation is allowed " + cancellationWindowMinutes + " minutes only after booking.");
                     break;
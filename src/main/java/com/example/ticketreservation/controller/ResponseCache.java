@@ -0,0 +1,100 @@
+package com.example.ticketreservation.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serialized JSON response bodies per show, each tagged with the version it was built from.
+ *
+ * Only the latest version of each show is kept, since an older one can never be served
+ * again, so the cache holds at most one body per show and needs no eviction.
+ */
+final class ResponseCache {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * @param showNumber The show number.
+     * @param etag The current entity tag of the show's response.
+     * @return The cached body, or null if none was cached for this entity tag.
+     */
+    byte[] get(String showNumber, String etag) {
+        Entry entry = entries.get(showNumber);
+        return entry != null && entry.etag.equals(etag) ? entry.body : null;
+    }
+
+    /**
+     * Caches a serialized response body.
+     *
+     * @param showNumber The show number.
+     * @param etag The entity tag of the version the body was built from.
+     * @param body The serialized body.
+     */
+    void put(String showNumber, String etag, byte[] body) {
+        entries.put(showNumber, new Entry(etag, body));
+    }
+
+    /**
+     * Serializes a response body as JSON.
+     *
+     * @param body The response body.
+     * @return The serialized body.
+     */
+    static byte[] toJson(Object body) {
+        try {
+            return OBJECT_MAPPER.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize response.", e);
+        }
+    }
+
+    /**
+     * Formats a version as a strong entity tag.
+     *
+     * @param version The version.
+     * @return The quoted entity tag.
+     */
+    static String etag(String version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Checks an If-None-Match header against the current entity tag, using weak comparison
+     * as RFC 9110 requires for GET.
+     *
+     * @param ifNoneMatch The If-None-Match header, or null if absent.
+     * @param etag The current entity tag.
+     * @return true if the client's copy is current and a 304 can be returned.
+     */
+    static boolean notModified(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Entry {
+
+        final String etag;
+        final byte[] body;
+
+        Entry(String etag, byte[] body) {
+            this.etag = etag;
+            this.body = body;
+        }
+    }
+}
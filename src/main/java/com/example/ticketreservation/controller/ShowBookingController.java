@@ -1,13 +1,41 @@
 package com.example.ticketreservation.controller;
 
+import com.example.ticketreservation.model.AdmissionStatus;
+import com.example.ticketreservation.model.Booking;
+import com.example.ticketreservation.model.BookingRequest;
+import com.example.ticketreservation.model.BookingResult;
+import com.example.ticketreservation.model.SeatAvailability;
+import com.example.ticketreservation.model.SeatBitmap;
+import com.example.ticketreservation.model.SeatHold;
+import com.example.ticketreservation.model.Section;
 import com.example.ticketreservation.model.Show;
+import com.example.ticketreservation.model.ShowDetailsPage;
+import com.example.ticketreservation.model.ShowImportReport;
+import com.example.ticketreservation.service.AdmissionControl;
 import com.example.ticketreservation.service.BookingService;
+import com.example.ticketreservation.service.ClusterTopology;
+import com.example.ticketreservation.service.IdempotencyCache;
+import com.example.ticketreservation.service.SeatStreamService;
+import com.example.ticketreservation.service.ShowImporter;
 import com.example.ticketreservation.service.ShowService;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controller for managing show bookings.
@@ -16,93 +44,452 @@ import java.util.List;
 @RequestMapping("/api")
 public class ShowBookingController {
 
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final String PREFER = "Prefer";
+    private static final String RESPOND_ASYNC = "respond-async";
+
     private final ShowService showService;
     private final BookingService bookingService;
+    private final SeatStreamService seatStreamService;
+    private final ClusterTopology clusterTopology;
+    private final IdempotencyCache idempotencyCache;
+    private final AdmissionControl admissionControl;
+    private final ShowImporter showImporter;
+    private final ResponseCache availabilityCache = new ResponseCache();
+    private final ResponseCache detailsCache = new ResponseCache();
 
     /**
      * Constructs a ShowBookingController with necessary services.
      *
      * @param showService   The service for show operations
      * @param bookingService  The service for booking operations
+     * @param seatStreamService  The service for streaming seat availability
+     * @param clusterTopology  The owners of shows in cluster mode
+     * @param idempotencyCache  The results of bookings and cancellations by idempotency key
+     * @param admissionControl  The waiting rooms in front of bookings
+     * @param showImporter  The importer for bulk show setup
      */
     @Autowired
-    public ShowBookingController(ShowService showService, BookingService bookingService) {
+    public ShowBookingController(ShowService showService, BookingService bookingService,
+                                 SeatStreamService seatStreamService, ClusterTopology clusterTopology,
+                                 IdempotencyCache idempotencyCache, AdmissionControl admissionControl,
+                                 ShowImporter showImporter) {
         this.showService = showService;
         this.bookingService = bookingService;
+        this.seatStreamService = seatStreamService;
+        this.clusterTopology = clusterTopology;
+        this.idempotencyCache = idempotencyCache;
+        this.admissionControl = admissionControl;
+        this.showImporter = showImporter;
     }
 
     /**
-     * Checks and returns available seats for a specified show.
+     * Checks and returns available seats for a specified show, as a JSON list of seat numbers.
+     * The ETag is the version of the show's seats: a client that sends it back in
+     * If-None-Match gets a 304 until the seats change, and otherwise the JSON is only
+     * serialized once per version. The representation is chosen by the Accept header, so the
+     * ETag names it too and responses are marked Vary: Accept.
      *
      * @param showNumber The show number to check
+     * @param ifNoneMatch The entity tag of the client's copy, if any
      * @return A list of available seat numbers
      */
     @GetMapping("/availability/{showNumber}")
-    public ResponseEntity<List<String>> checkAvailableSeats(@PathVariable String showNumber) {
-        List<String> availableSeats = bookingService.checkAvailableSeats(showNumber);
+    public ResponseEntity<byte[]> checkAvailableSeats(
+            @PathVariable String showNumber,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        clusterTopology.checkOwner(showNumber);
+        SeatAvailability availability = bookingService.checkSeatAvailability(showNumber);
+        String etag = availabilityETag(availability, "json");
+        if (ResponseCache.notModified(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT).build();
+        }
+
+        byte[] body = availabilityCache.get(showNumber, etag);
+        if (body == null) {
+            body = ResponseCache.toJson(availability.availableSeats());
+            availabilityCache.put(showNumber, etag, body);
+        }
+        return ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT).contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * Returns the available seats of a show as a SeatBitmap, for clients that ask for it
+     * in the Accept header. JSON stays the default. Supports If-None-Match like the JSON form.
+     *
+     * @param showNumber The show number to check
+     * @param ifNoneMatch The entity tag of the client's copy, if any
+     * @return The encoded seat availability
+     */
+    @GetMapping(value = "/availability/{showNumber}", produces = SeatBitmap.MEDIA_TYPE)
+    public ResponseEntity<byte[]> checkAvailableSeatBitmap(
+            @PathVariable String showNumber,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        clusterTopology.checkOwner(showNumber);
+        SeatAvailability availability = bookingService.checkSeatAvailability(showNumber);
+        String etag = availabilityETag(availability, "bitmap");
+        if (ResponseCache.notModified(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT).build();
+        }
+
+        return ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT).body(SeatBitmap.encode(availability));
+    }
+
+    /**
+     * @param representation The form of the body, since the JSON and bitmap of the same
+     *                       version are different representations and need different tags.
+     */
+    private static String availabilityETag(SeatAvailability availability, String representation) {
+        return ResponseCache.etag(Long.toHexString(availability.getEpoch()) + "-" + availability.getVersion() + "-" + representation);
+    }
 
-        return ResponseEntity.ok(availableSeats);
+    /**
+     * Streams the available seats of a show: a "snapshot" event with all available seats,
+     * then "delta" events with the seats booked and released since the previous event.
+     *
+     * @param showNumber The show number to stream
+     * @return The server-sent event stream
+     */
+    @GetMapping(value = "/availability/{showNumber}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAvailableSeats(@PathVariable String showNumber) {
+        clusterTopology.checkOwner(showNumber);
+        return seatStreamService.subscribe(showNumber);
     }
 
     /**
-     * Books seats on a show for a buyer.
+     * Books seats on a show for a buyer. A retry with the same Idempotency-Key gets the
+     * original booking, or the original error, without booking again. When the show's waiting
+     * room is on and full, the buyer gets a 503 with their position and a Retry-After.
+     * A client that sends an Idempotency-Key with "Prefer: respond-async" and has to queue
+     * gets a 202 with its position and a Retry-After straight away, while the booking stays
+     * queued; retrying with the same key collects the outcome. If the key is not kept, because
+     * the idempotency cache is off or full, the request waits for the booking instead.
      *
      * @param showNumber   The show number to book
      * @param phoneNumber  The buyer's phone number
      * @param selectedSeats  A list of selected seats to book
-     * @return A booking confirmation message
+     * @param idempotencyKey  A key the client chose for this booking, if any
+     * @param prefer  The Prefer header, if any
+     * @return A booking confirmation message, or the buyer's place in the queue
      */
     @PostMapping("/book/{showNumber}")
-    public ResponseEntity<String> bookSeats(
+    public CompletableFuture<ResponseEntity<String>> bookSeats(
+            @PathVariable String showNumber,
+            @RequestParam String phoneNumber,
+            @RequestParam List<String> selectedSeats,
+            @RequestHeader(value = IdempotencyCache.HEADER, required = false) String idempotencyKey,
+            @RequestHeader(value = PREFER, required = false) String prefer) {
+        clusterTopology.checkOwner(showNumber);
+        CompletableFuture<ResponseEntity<String>> response = new CompletableFuture<>();
+        boolean respondAsync = prefer != null && prefer.contains(RESPOND_ASYNC);
+        idempotencyCache.execute(idempotencyKey, "book " + showNumber + " " + phoneNumber + " " + selectedSeats,
+                        remembered -> admissionControl.admit(showNumber,
+                                (position, estimatedWaitMillis) -> {
+                                    // A retry can only collect the outcome if the key was kept.
+                                    if (remembered && respondAsync) {
+                                        response.complete(queued(position, estimatedWaitMillis));
+                                    }
+                                },
+                                () -> bookingService.bookSeatsAsync(showNumber, phoneNumber, selectedSeats)))
+                .whenComplete((ticketNumber, failure) -> {
+                    if (failure != null) {
+                        response.completeExceptionally(failure);
+                    } else {
+                        response.complete(new ResponseEntity<>(
+                                "Booking successful. Ticket Number: " + ticketNumber, HttpStatus.CREATED));
+                    }
+                });
+        return response;
+    }
+
+    private static ResponseEntity<String> queued(int position, long estimatedWaitMillis) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, (estimatedWaitMillis + 999) / 1000)))
+                .body("Booking queued: position " + position + " in the waiting room, estimated wait "
+                        + estimatedWaitMillis + " ms. Retry with the same " + IdempotencyCache.HEADER
+                        + " for the outcome.");
+    }
+
+    /**
+     * Retrieves the state of a show's waiting room: the bookings running and queued, and the
+     * estimated wait for a buyer who joins the queue now.
+     *
+     * @param showNumber The show number to check
+     * @return The waiting room status
+     */
+    @GetMapping("/admission/{showNumber}")
+    public ResponseEntity<AdmissionStatus> getAdmissionStatus(@PathVariable String showNumber) {
+        clusterTopology.checkOwner(showNumber);
+        return ResponseEntity.ok(admissionControl.status(showNumber));
+    }
+
+    /**
+     * Books the best block of adjacent available seats on a show for a buyer.
+     *
+     * @param showNumber   The show number to book
+     * @param phoneNumber  The buyer's phone number
+     * @param numberOfSeats  The number of adjacent seats to book
+     * @return A booking confirmation message, including the allocated seats
+     */
+    @PostMapping("/book/{showNumber}/best")
+    public ResponseEntity<String> bookBestAvailableSeats(
             @PathVariable String showNumber,
             @RequestParam String phoneNumber,
-            @RequestParam List<String> selectedSeats) {
-        String ticketNumber = bookingService.bookSeats(showNumber, phoneNumber, selectedSeats);
+            @RequestParam int numberOfSeats) {
+        clusterTopology.checkOwner(showNumber);
+        Booking booking = bookingService.bookBestAvailableSeats(showNumber, phoneNumber, numberOfSeats);
+
+        return new ResponseEntity<>("Booking successful. Ticket Number: " + booking.getTicketNumber()
+                + ", Seats: " + String.join(", ", booking.getSeats()), HttpStatus.CREATED);
+    }
+
+    /**
+     * Books many reservations, possibly across several shows, in one request.
+     *
+     * @param requests The bookings to make
+     * @return One result per booking, in request order; failed bookings carry an error
+     */
+    @PostMapping("/batch/book")
+    public ResponseEntity<List<BookingResult>> bookSeatsInBatch(@RequestBody List<BookingRequest> requests) {
+        checkBatchOwner(requests);
+        List<BookingResult> results = bookingService.bookSeatsInBatch(requests);
+
+        return ResponseEntity.ok(results);
+    }
+
+    /**
+     * Holds seats on a show for a buyer while payment happens.
+     *
+     * @param showNumber   The show number to hold seats on
+     * @param phoneNumber  The buyer's phone number
+     * @param selectedSeats  A list of selected seats to hold
+     * @param holdSeconds  How long to hold the seats for
+     * @return A hold confirmation message, including the hold id and expiry time
+     */
+    @PostMapping("/hold/{showNumber}")
+    public ResponseEntity<String> holdSeats(
+            @PathVariable String showNumber,
+            @RequestParam String phoneNumber,
+            @RequestParam List<String> selectedSeats,
+            @RequestParam(defaultValue = "300") int holdSeconds) {
+        clusterTopology.checkOwner(showNumber);
+        SeatHold hold = bookingService.holdSeats(showNumber, phoneNumber, selectedSeats, holdSeconds);
+
+        return new ResponseEntity<>("Seats held. Hold ID: " + hold.getHoldId()
+                + ", Expires At: " + hold.getExpiresAt(), HttpStatus.CREATED);
+    }
+
+    /**
+     * Confirms a hold, booking the held seats.
+     *
+     * @param showNumber   The show number of the hold
+     * @param holdId  The hold id
+     * @param phoneNumber  The phone number used for the hold
+     * @return A booking confirmation message
+     */
+    @PostMapping("/hold/{showNumber}/{holdId}/confirm")
+    public ResponseEntity<String> confirmHold(
+            @PathVariable String showNumber,
+            @PathVariable String holdId,
+            @RequestParam String phoneNumber) {
+        clusterTopology.checkOwner(showNumber);
+        String ticketNumber = bookingService.confirmHold(showNumber, holdId, phoneNumber);
 
         return new ResponseEntity<>("Booking successful. Ticket Number: " + ticketNumber, HttpStatus.CREATED);
     }
 
     /**
-     * Cancels a booking.
+     * Releases a hold before it expires.
+     *
+     * @param showNumber   The show number of the hold
+     * @param holdId  The hold id
+     * @param phoneNumber  The phone number used for the hold
+     * @return A release confirmation message
+     */
+    @DeleteMapping("/hold/{showNumber}/{holdId}")
+    public ResponseEntity<String> releaseHold(
+            @PathVariable String showNumber,
+            @PathVariable String holdId,
+            @RequestParam String phoneNumber) {
+        clusterTopology.checkOwner(showNumber);
+        bookingService.releaseHold(showNumber, holdId, phoneNumber);
+
+        return ResponseEntity.ok("Hold released.");
+    }
+
+    /**
+     * Cancels a booking. A retry with the same Idempotency-Key gets the original outcome.
      *
      * @param ticketNumber  The ticket number of the booking to cancel
      * @param phoneNumber The phone number used for the booking
+     * @param idempotencyKey  A key the client chose for this cancellation, if any
      * @return A cancellation confirmation message
      */
     @DeleteMapping("/cancel")
-    public ResponseEntity<String> cancelBooking(
+    public CompletableFuture<ResponseEntity<String>> cancelBooking(
             @RequestParam String ticketNumber,
-            @RequestParam String phoneNumber) {
-        bookingService.cancelBooking(ticketNumber, phoneNumber);
-
-        return ResponseEntity.ok("Booking cancelled successfully.");
+            @RequestParam String phoneNumber,
+            @RequestHeader(value = IdempotencyCache.HEADER, required = false) String idempotencyKey) {
+        clusterTopology.checkTicketOwner(ticketNumber);
+        return idempotencyCache.execute(idempotencyKey, "cancel " + ticketNumber + " " + phoneNumber,
+                        () -> bookingService.cancelBookingAsync(ticketNumber, phoneNumber))
+                .thenApply(cancelled -> ResponseEntity.ok("Booking cancelled successfully."));
     }
 
     /**
-     * Configures a new show.
+     * Configures a new show, either of numberOfRows x seatsPerRow or, if sections are given,
+     * of those sections.
      *
      * @param show The show configuration request
      * @return A success message for show configuration
      */
     @PostMapping("/setup")
-    public ResponseEntity<String> configureShow(
+    public CompletableFuture<ResponseEntity<String>> configureShow(
             @RequestBody Show show) {
-        showService.configureShow(show.getShowNumber(), show.getNumberOfRows(),
-                show.getSeatsPerRow(), show.getCancelWindowInMinutes());
+        clusterTopology.checkOwner(show.getShowNumber());
+        return showService.configureShowAsync(show.getShowNumber(), show.layout(), show.getCancelWindowInMinutes())
+                .thenApply(configured -> new ResponseEntity<>("Show configured successfully.", HttpStatus.CREATED));
+    }
+
+    /**
+     * Configures many shows from a CSV or NDJSON body, read as it arrives. Rows that cannot
+     * be imported, including shows owned by another node, are reported with their line
+     * numbers without stopping the import.
+     *
+     * @param contentType text/csv or application/x-ndjson
+     * @param body The import file
+     * @return How many shows were configured, and the rows that were not
+     * @throws IOException If the body cannot be read
+     */
+    @PostMapping(value = "/setup/import", consumes = {ShowImporter.CSV_MEDIA_TYPE, ShowImporter.NDJSON_MEDIA_TYPE})
+    public ResponseEntity<ShowImportReport> importShows(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) throws IOException {
+        ShowImporter.Format format = ShowImporter.Format.forContentType(contentType);
+        return ResponseEntity.ok(showImporter.importShows(new InputStreamReader(body, StandardCharsets.UTF_8), format));
+    }
 
-        return new ResponseEntity<>("Show configured successfully.", HttpStatus.CREATED);
+    /**
+     * Retrieves the seat layout of a show: its sections in seat ordinal order, or a single
+     * unnamed section for a show without sections.
+     *
+     * @param showNumber The show number to retrieve the layout for
+     * @return The sections of the show
+     */
+    @GetMapping("/layout/{showNumber}")
+    public ResponseEntity<List<Section>> getShowLayout(@PathVariable String showNumber) {
+        clusterTopology.checkOwner(showNumber);
+        return ResponseEntity.ok(showService.getShowLayout(showNumber).getSections());
     }
 
     /**
-     * Retrieves details for a specific show.
+     * Retrieves details for a specific show. Supports If-None-Match like the availability endpoint.
      *
      * @param showNumber The show number to retrieve details for
+     * @param ifNoneMatch The entity tag of the client's copy, if any
      * @return Show details, including booked seats
      */
     @GetMapping("/view/{showNumber}")
-    public ResponseEntity<List<String>> getShowDetails(@PathVariable String showNumber) {
-        List<String> details = showService.displayShowDetails(showNumber);
+    public ResponseEntity<byte[]> getShowDetails(
+            @PathVariable String showNumber,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        clusterTopology.checkOwner(showNumber);
+        String etag = ResponseCache.etag(showService.showDetailsVersion(showNumber));
+        if (ResponseCache.notModified(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
 
-        return ResponseEntity.ok(details);
+        byte[] body = detailsCache.get(showNumber, etag);
+        if (body == null) {
+            body = ResponseCache.toJson(showService.displayShowDetails(showNumber));
+            // If the show changed while the details were built, the body is newer than the tag.
+            if (!etag.equals(ResponseCache.etag(showService.showDetailsVersion(showNumber)))) {
+                return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+            }
+            detailsCache.put(showNumber, etag, body);
+        }
+        return ResponseEntity.ok().eTag(etag).contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * Streams one page of a show's bookings, in ticket order, as JSON:
+     * {"showNumber": ..., "cancellableBookings": ..., "finalBookings": ..., "bookings": [...], "next": ...}.
+     * Bookings are written to the response as they are read, so the memory a request takes
+     * does not depend on the size of the show. When next is not null, it is the cursor for
+     * the following page.
+     *
+     * @param showNumber The show number to retrieve bookings for
+     * @param after The cursor returned with the previous page, if any
+     * @param limit The most bookings to return
+     * @return The page of bookings
+     */
+    @GetMapping(value = "/view/{showNumber}/bookings", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getShowBookings(
+            @PathVariable String showNumber,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "1000") int limit) {
+        clusterTopology.checkOwner(showNumber);
+        ShowDetailsPage page = showService.showDetailsPage(showNumber, after, limit);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(out -> writePage(page, out));
+    }
+
+    private static void writePage(ShowDetailsPage page, OutputStream out) throws IOException {
+        try (JsonGenerator json = JSON_FACTORY.createGenerator(out)) {
+            json.writeStartObject();
+            json.writeStringField("showNumber", page.getShowNumber());
+            json.writeNumberField("cancellableBookings", page.getCancellableBookings());
+            json.writeNumberField("finalBookings", page.getFinalBookings());
+            json.writeArrayFieldStart("bookings");
+            int written = 0;
+            String last = null;
+            for (Booking booking : page) {
+                json.writeStartObject();
+                json.writeStringField("ticketNumber", booking.getTicketNumber());
+                json.writeStringField("phoneNumber", booking.getPhoneNumber());
+                json.writeArrayFieldStart("seats");
+                for (String seat : booking.getSeats()) {
+                    json.writeString(seat);
+                }
+                json.writeEndArray();
+                json.writeBooleanField("finalized", booking.isFinalized());
+                json.writeEndObject();
+                written++;
+                last = booking.getTicketNumber();
+            }
+            json.writeEndArray();
+            // A full page may be followed by another; the client finds out by asking for it.
+            if (written == page.getLimit()) {
+                json.writeStringField("next", last);
+            } else {
+                json.writeNullField("next");
+            }
+            json.writeEndObject();
+        }
+    }
+
+    /**
+     * Checks that this node owns every show of a batch. A batch for shows of one other node
+     * is redirected to it as a whole, and one that spans nodes has to be split by the client.
+     * Requests without a show are skipped; the batch reports them in their results.
+     */
+    private void checkBatchOwner(List<BookingRequest> requests) {
+        if (!clusterTopology.isEnabled()) {
+            return;
+        }
+        int owner = -1;
+        for (BookingRequest request : requests) {
+            if (request == null || request.getShowNumber() == null) {
+                continue;
+            }
+            int requestOwner = clusterTopology.ownerOf(request.getShowNumber());
+            if (owner == -1) {
+                owner = requestOwner;
+            } else if (requestOwner != owner) {
+                throw new IllegalArgumentException("Batch bookings must be for shows owned by one node.");
+            }
+        }
+        if (owner != -1) {
+            clusterTopology.checkNode(owner);
+        }
     }
 }
@@ -0,0 +1,32 @@
+package com.example.ticketreservation.exception;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Thrown when a booking is not admitted to a show's waiting room, either because the queue
+ * is full or because the buyer waited in it too long.
+ */
+public class AdmissionRejectedException extends RejectedExecutionException {
+
+    private final int position;
+    private final long estimatedWaitMillis;
+
+    /**
+     * @param position The position the buyer would have had in the queue.
+     * @param estimatedWaitMillis The estimated wait at that position.
+     */
+    public AdmissionRejectedException(int position, long estimatedWaitMillis) {
+        super("Show is busy: position " + position + " in the waiting room, estimated wait "
+                + estimatedWaitMillis + " ms.");
+        this.position = position;
+        this.estimatedWaitMillis = estimatedWaitMillis;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    public long getEstimatedWaitMillis() {
+        return estimatedWaitMillis;
+    }
+}
@@ -1,9 +1,15 @@
 package com.example.ticketreservation.exception;
 
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import java.net.URI;
+import java.util.concurrent.RejectedExecutionException;
+
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
@@ -12,5 +18,33 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(ex.getMessage());
     }
 
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<String> handleRejectedExecutionException(RejectedExecutionException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(ex.getMessage());
+    }
+
+    /**
+     * Turns a buyer away from a busy show, telling the client when to try again.
+     */
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public ResponseEntity<String> handleAdmissionRejectedException(AdmissionRejectedException ex) {
+        long retryAfterSeconds = Math.max(1, (ex.getEstimatedWaitMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+                .body(ex.getMessage());
+    }
+
+    /**
+     * Redirects a request to the node that owns its show. 307 keeps the method and body, so
+     * bookings and cancellations are retried as they were sent.
+     */
+    @ExceptionHandler(MisdirectedRequestException.class)
+    public ResponseEntity<String> handleMisdirectedRequestException(MisdirectedRequestException ex,
+                                                                    HttpServletRequest request) {
+        String query = request.getQueryString();
+        URI location = URI.create(ex.getOwnerUrl() + request.getRequestURI() + (query == null ? "" : "?" + query));
+        return ResponseEntity.status(HttpStatus.TEMPORARY_REDIRECT).location(location).body(ex.getMessage());
+    }
+
     // Additional exception handlers as needed
 }
\ No newline at end of file
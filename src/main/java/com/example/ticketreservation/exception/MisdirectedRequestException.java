@@ -0,0 +1,28 @@
+package com.example.ticketreservation.exception;
+
+/**
+ * Thrown when a request reaches a node of the cluster that does not own its show.
+ */
+public class MisdirectedRequestException extends RuntimeException {
+
+    private final int ownerNodeId;
+    private final String ownerUrl;
+
+    /**
+     * @param ownerNodeId The id of the node that owns the show.
+     * @param ownerUrl The base URL of that node.
+     */
+    public MisdirectedRequestException(int ownerNodeId, String ownerUrl) {
+        super("Show is owned by node " + ownerNodeId + ".");
+        this.ownerNodeId = ownerNodeId;
+        this.ownerUrl = ownerUrl;
+    }
+
+    public int getOwnerNodeId() {
+        return ownerNodeId;
+    }
+
+    public String getOwnerUrl() {
+        return ownerUrl;
+    }
+}
@@ -0,0 +1,775 @@
+package com.example.ticketreservation.journal;
+
+import com.example.ticketreservation.model.Booking;
+import com.example.ticketreservation.model.SeatLayout;
+import com.example.ticketreservation.model.SeatMap;
+import com.example.ticketreservation.model.Section;
+import com.example.ticketreservation.model.Show;
+import com.example.ticketreservation.repository.BookingRepository;
+import com.example.ticketreservation.repository.ShowRepository;
+import com.example.ticketreservation.service.ShowLocks;
+import com.example.ticketreservation.service.TicketNumberGenerator;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of show and booking events, for crash recovery.
+ *
+ * Events are framed as [length][crc32][payload] and appended to the current journal segment
+ * by a single flusher thread that batches all pending events into one write and one fsync
+ * (group commit). Every snapshotEveryEvents events the full state is written to a compact
+ * snapshot and a new segment is started, so recovery is a snapshot load plus a tail replay.
+ *
+ * This is apply then fsync, not write-ahead: callers change the repositories and append the
+ * event while holding the show lock, which fixes the event order per show, and wait for
+ * durability with {@link #awaitDurable(long)} after releasing it, before answering the client.
+ * So readers can see a change that a crash then loses, but no client is told it succeeded.
+ * Once a write fails the journal takes no more events: callers check {@link #checkWritable()}
+ * before changing anything, so the node stops accepting changes instead of keeping changes in
+ * memory that it reports as failed. The journal is disabled unless
+ * ticketreservation.journal.enabled is set, in which case every method is a no-op.
+ */
+@Component
+public class BookingJournal {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BookingJournal.class);
+
+    private static final byte SHOW_CONFIGURED = 1;
+    // A booking with a 16-bit seat count. Only read, from journals written before BOOKED_V2.
+    private static final byte BOOKED = 2;
+    private static final byte CANCELLED = 3;
+    private static final byte SECTIONED_SHOW_CONFIGURED = 4;
+    // A booking with a 32-bit seat count, since a show can have more seats than a short holds.
+    private static final byte BOOKED_V2 = 5;
+
+    private static final int SNAPSHOT_MAGIC = 0x54524a53;
+    private static final int MAX_FRAME_LENGTH = 1 << 24;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+
+    private final ShowRepository showRepository;
+    private final BookingRepository bookingRepository;
+    private final ShowLocks showLocks;
+    private final TicketNumberGenerator ticketNumberGenerator;
+    private final boolean enabled;
+    private final Path directory;
+    private final long snapshotEveryEvents;
+
+    // Guards everything below. Appenders fill pending; the flusher swaps it out and writes it.
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final Condition pendingAvailable = appendLock.newCondition();
+    private final Condition durable = appendLock.newCondition();
+    private ByteBuffer pending = ByteBuffer.allocate(1 << 20);
+    private ByteBuffer writing = ByteBuffer.allocate(1 << 20);
+    private long appendedSequence;
+    private long durableSequence;
+    private long rotateAtSequence = -1;
+    private long eventsSinceSnapshot;
+    // Written under appendLock; volatile so checkWritable can read it without taking the lock.
+    private volatile IOException failure;
+    private boolean running;
+    // Futures from whenDurable, lowest sequence first.
+    private final PriorityQueue<DurableWaiter> durableWaiters = new PriorityQueue<>();
+
+    private FileChannel segment;
+    private long generation;
+    private Thread flusher;
+    private final ExecutorService snapshotter = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "booking-journal-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean snapshotInProgress = new AtomicBoolean();
+
+    @Autowired
+    public BookingJournal(ShowRepository showRepository, BookingRepository bookingRepository, ShowLocks showLocks,
+                          TicketNumberGenerator ticketNumberGenerator,
+                          @Value("${ticketreservation.journal.enabled:false}") boolean enabled,
+                          @Value("${ticketreservation.journal.directory:data/journal}") String directory,
+                          @Value("${ticketreservation.journal.snapshot-every-events:1000000}") long snapshotEveryEvents) {
+        this.showRepository = showRepository;
+        this.bookingRepository = bookingRepository;
+        this.showLocks = showLocks;
+        this.ticketNumberGenerator = ticketNumberGenerator;
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.snapshotEveryEvents = snapshotEveryEvents;
+    }
+
+    /**
+     * @return A journal that records nothing, for wiring the services without Spring.
+     */
+    public static BookingJournal disabled() {
+        return new BookingJournal(null, null, null, null, false, "", 0);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Recovers the repositories from the latest snapshot and the journal tail, then opens a
+     * new segment for appends.
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(directory);
+        recover();
+        segment = openSegment(++generation);
+        running = true;
+        flusher = new Thread(this::flushLoop, "booking-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Flushes outstanding events and closes the journal.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        if (!enabled || flusher == null) {
+            return;
+        }
+        snapshotter.shutdown();
+        snapshotter.awaitTermination(1, TimeUnit.MINUTES);
+        appendLock.lock();
+        try {
+            running = false;
+            pendingAvailable.signal();
+        } finally {
+            appendLock.unlock();
+        }
+        flusher.join();
+        segment.close();
+    }
+
+    /**
+     * Appends a show configuration event. Must be called while holding the show's lock.
+     *
+     * @param show The configured show.
+     * @return The event's sequence number, to pass to {@link #awaitDurable(long)}.
+     */
+    public long appendShowConfigured(Show show) {
+        return enabled ? append(encodeShow(show)) : 0;
+    }
+
+    /**
+     * Appends a booking event. Must be called while holding the show's lock.
+     *
+     * @param booking The new booking.
+     * @return The event's sequence number, to pass to {@link #awaitDurable(long)}.
+     */
+    public long appendBooked(Booking booking) {
+        return enabled ? append(encodeBooking(booking)) : 0;
+    }
+
+    /**
+     * Appends a cancellation event. Must be called while holding the show's lock.
+     *
+     * @param ticketNumber The ticket number of the cancelled booking.
+     * @return The event's sequence number, to pass to {@link #awaitDurable(long)}.
+     */
+    public long appendCancelled(String ticketNumber) {
+        return enabled ? append(encodeCancelled(ticketNumber)) : 0;
+    }
+
+    /**
+     * Checks that the journal can still be written. Call under the show lock before changing
+     * state that will be journaled.
+     *
+     * @throws IllegalStateException If an earlier journal write failed.
+     */
+    public void checkWritable() {
+        IOException error = failure;
+        if (error != null) {
+            throw new IllegalStateException("Booking journal write failed.", error);
+        }
+    }
+
+    /**
+     * Waits until an appended event has been written and fsynced.
+     *
+     * @param sequence The sequence number returned by an append.
+     * @throws IllegalStateException If the journal could not be written.
+     */
+    public void awaitDurable(long sequence) {
+        if (!enabled) {
+            return;
+        }
+        appendLock.lock();
+        try {
+            while (durableSequence < sequence && failure == null) {
+                durable.awaitUninterruptibly();
+            }
+            if (failure != null) {
+                throw new IllegalStateException("Booking journal write failed.", failure);
+            }
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Like {@link #awaitDurable(long)}, but without blocking: returns a future that the flusher
+     * completes once the event is fsynced, so a single-threaded caller can keep working.
+     *
+     * @param sequence The sequence number returned by an append.
+     * @return A future that completes when the event is durable, or fails with an
+     *         IllegalStateException if the journal could not be written.
+     */
+    public CompletableFuture<Void> whenDurable(long sequence) {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(null);
+        }
+        appendLock.lock();
+        try {
+            if (failure != null) {
+                return CompletableFuture.failedFuture(new IllegalStateException("Booking journal write failed.", failure));
+            }
+            if (durableSequence >= sequence) {
+                return CompletableFuture.completedFuture(null);
+            }
+            DurableWaiter waiter = new DurableWaiter(sequence);
+            durableWaiters.add(waiter);
+            return waiter.future;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Writes a snapshot of all shows and bookings and starts a new journal segment. Older
+     * segments and snapshots are deleted once the snapshot is durable.
+     */
+    public void snapshot() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Collection<Show> shows;
+        Collection<Booking> bookings;
+        long snapshotGeneration;
+        // With every show lock held no event can be appended, so the state matches the segment boundary.
+        showLocks.lockAll();
+        try {
+            snapshotGeneration = rotate();
+            shows = showRepository.findAll();
+            bookings = bookingRepository.findAll();
+        } finally {
+            showLocks.unlockAll();
+        }
+
+        Path tmp = directory.resolve(SNAPSHOT_PREFIX + snapshotGeneration + SNAPSHOT_SUFFIX + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(channelOutput(channel), 1 << 16));
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(shows.size() + (long) bookings.size());
+            for (Show show : shows) {
+                writeFrame(out, encodeShow(show));
+            }
+            for (Booking booking : bookings) {
+                writeFrame(out, encodeBooking(booking));
+            }
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(tmp, directory.resolve(SNAPSHOT_PREFIX + snapshotGeneration + SNAPSHOT_SUFFIX),
+                StandardCopyOption.ATOMIC_MOVE);
+        deleteOlderThan(snapshotGeneration);
+    }
+
+    // ---- append path -------------------------------------------------------------------
+
+    private long append(ByteBuffer payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        int length = payload.remaining();
+        appendLock.lock();
+        try {
+            // Nothing appended now would be written, so do not let pending grow.
+            checkWritable();
+            if (pending.remaining() < length + 8) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + length + 8));
+                pending.flip();
+                grown.put(pending);
+                pending = grown;
+            }
+            pending.putInt(length).putInt((int) crc.getValue()).put(payload);
+            long sequence = ++appendedSequence;
+            pendingAvailable.signal();
+            if (++eventsSinceSnapshot >= snapshotEveryEvents && snapshotInProgress.compareAndSet(false, true)) {
+                eventsSinceSnapshot = 0;
+                snapshotter.execute(this::snapshotInBackground);
+            }
+            return sequence;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private static ByteBuffer encodeShow(Show show) {
+        SeatLayout layout = show.getSeats().getLayout();
+        if (layout.isSectioned()) {
+            return encodeSectionedShow(show, layout.getSections());
+        }
+        byte[] showNumber = utf8(show.getShowNumber());
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 2 + showNumber.length + 12);
+        buffer.put(SHOW_CONFIGURED);
+        putString(buffer, showNumber);
+        buffer.putInt(show.getNumberOfRows());
+        buffer.putInt(show.getSeatsPerRow());
+        buffer.putInt(show.getCancelWindowInMinutes());
+        return buffer.flip();
+    }
+
+    private static ByteBuffer encodeSectionedShow(Show show, List<Section> sections) {
+        byte[] showNumber = utf8(show.getShowNumber());
+        List<byte[]> names = new ArrayList<>(sections.size());
+        int size = 1 + 2 + showNumber.length + 4 + 4;
+        for (Section section : sections) {
+            byte[] name = utf8(section.getName());
+            names.add(name);
+            size += 2 + name.length + 8;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(SECTIONED_SHOW_CONFIGURED);
+        putString(buffer, showNumber);
+        buffer.putInt(show.getCancelWindowInMinutes());
+        buffer.putInt(sections.size());
+        for (int i = 0; i < sections.size(); i++) {
+            putString(buffer, names.get(i));
+            buffer.putInt(sections.get(i).getNumberOfRows());
+            buffer.putInt(sections.get(i).getSeatsPerRow());
+        }
+        return buffer.flip();
+    }
+
+    private static ByteBuffer encodeBooking(Booking booking) {
+        byte[] ticketNumber = utf8(booking.getTicketNumber());
+        byte[] phoneNumber = utf8(booking.getPhoneNumber());
+        byte[] showNumber = utf8(booking.getShowNumber());
+        List<byte[]> seats = new ArrayList<>(booking.getSeats().size());
+        int size = 1 + 6 + ticketNumber.length + phoneNumber.length + showNumber.length + 12 + 4;
+        for (String seat : booking.getSeats()) {
+            byte[] bytes = utf8(seat);
+            seats.add(bytes);
+            size += 2 + bytes.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(BOOKED_V2);
+        putString(buffer, ticketNumber);
+        putString(buffer, phoneNumber);
+        putString(buffer, showNumber);
+        buffer.putLong(booking.getBookingCreationTime().getEpochSecond());
+        buffer.putInt(booking.getBookingCreationTime().getNano());
+        buffer.putInt(seats.size());
+        for (byte[] seat : seats) {
+            putString(buffer, seat);
+        }
+        return buffer.flip();
+    }
+
+    private static ByteBuffer encodeCancelled(String ticketNumber) {
+        byte[] bytes = utf8(ticketNumber);
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 2 + bytes.length);
+        buffer.put(CANCELLED);
+        putString(buffer, bytes);
+        return buffer.flip();
+    }
+
+    private void snapshotInBackground() {
+        try {
+            snapshot();
+        } catch (IOException e) {
+            LOG.error("Booking journal snapshot failed", e);
+        } finally {
+            snapshotInProgress.set(false);
+        }
+    }
+
+    /**
+     * Asks the flusher to finish the current segment and open the next one, and waits for it.
+     *
+     * @return The generation of the new segment.
+     */
+    private long rotate() {
+        appendLock.lock();
+        try {
+            rotateAtSequence = appendedSequence;
+            pendingAvailable.signal();
+            while (rotateAtSequence >= 0 && failure == null) {
+                durable.awaitUninterruptibly();
+            }
+            if (failure != null) {
+                throw new UncheckedIOException(failure);
+            }
+            return generation;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    // ---- flusher -----------------------------------------------------------------------
+
+    private void flushLoop() {
+        while (true) {
+            long upTo;
+            boolean rotateAfter;
+            appendLock.lock();
+            try {
+                while (running && pending.position() == 0 && rotateAtSequence < 0) {
+                    pendingAvailable.awaitUninterruptibly();
+                }
+                if (!running && pending.position() == 0) {
+                    return;
+                }
+                // Everything appended so far goes out in this one write + fsync.
+                ByteBuffer batch = pending;
+                pending = writing;
+                writing = batch;
+                upTo = appendedSequence;
+                rotateAfter = rotateAtSequence >= 0;
+            } finally {
+                appendLock.unlock();
+            }
+
+            IOException error = null;
+            try {
+                writing.flip();
+                while (writing.hasRemaining()) {
+                    segment.write(writing);
+                }
+                segment.force(false);
+                if (rotateAfter) {
+                    segment.close();
+                    segment = openSegment(generation + 1);
+                }
+            } catch (IOException e) {
+                error = e;
+            } finally {
+                writing.clear();
+            }
+
+            List<DurableWaiter> done = new ArrayList<>();
+            appendLock.lock();
+            try {
+                if (error != null) {
+                    LOG.error("Booking journal write failed; no more changes will be accepted", error);
+                    failure = error;
+                } else {
+                    durableSequence = Math.max(durableSequence, upTo);
+                    if (rotateAfter) {
+                        generation++;
+                        rotateAtSequence = -1;
+                    }
+                }
+                durable.signalAll();
+                while (!durableWaiters.isEmpty()
+                        && (error != null || durableWaiters.peek().sequence <= durableSequence)) {
+                    done.add(durableWaiters.poll());
+                }
+            } finally {
+                appendLock.unlock();
+            }
+            // Outside the lock, since completing runs the waiters' continuations.
+            for (DurableWaiter waiter : done) {
+                if (error != null) {
+                    waiter.future.completeExceptionally(new IllegalStateException("Booking journal write failed.", error));
+                } else {
+                    waiter.future.complete(null);
+                }
+            }
+            if (error != null) {
+                return;
+            }
+        }
+    }
+
+    private static final class DurableWaiter implements Comparable<DurableWaiter> {
+
+        final long sequence;
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        DurableWaiter(long sequence) {
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(DurableWaiter other) {
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+
+    // ---- recovery ----------------------------------------------------------------------
+
+    private void recover() throws IOException {
+        long snapshotGeneration = latestGeneration(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        if (snapshotGeneration > 0) {
+            try (InputStream in = Files.newInputStream(directory.resolve(SNAPSHOT_PREFIX + snapshotGeneration + SNAPSHOT_SUFFIX))) {
+                DataInputStream data = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+                if (data.readInt() != SNAPSHOT_MAGIC) {
+                    throw new IOException("Corrupt journal snapshot " + snapshotGeneration);
+                }
+                long count = data.readLong();
+                for (long i = 0; i < count; i++) {
+                    ByteBuffer payload = readFrame(data);
+                    if (payload == null) {
+                        throw new IOException("Corrupt journal snapshot " + snapshotGeneration);
+                    }
+                    apply(payload);
+                }
+                if (data.readInt() != SNAPSHOT_MAGIC) {
+                    throw new IOException("Truncated journal snapshot " + snapshotGeneration);
+                }
+            }
+        }
+        List<Long> segments = generations(SEGMENT_PREFIX, SEGMENT_SUFFIX);
+        for (long segmentGeneration : segments) {
+            if (segmentGeneration >= snapshotGeneration) {
+                replaySegment(directory.resolve(SEGMENT_PREFIX + segmentGeneration + SEGMENT_SUFFIX));
+            }
+        }
+        generation = Math.max(snapshotGeneration, segments.isEmpty() ? 0 : segments.get(segments.size() - 1));
+        rebuildSeatMaps();
+    }
+
+    private void replaySegment(Path path) throws IOException {
+        long validLength = 0;
+        try (InputStream in = Files.newInputStream(path)) {
+            DataInputStream data = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+            while (true) {
+                ByteBuffer payload;
+                try {
+                    payload = readFrame(data);
+                } catch (EOFException e) {
+                    break;
+                }
+                if (payload == null) {
+                    break;
+                }
+                apply(payload);
+                validLength += 8 + payload.limit();
+            }
+        }
+        // Drop a torn tail left by a crash mid-write so the segment stays well-formed.
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            if (channel.size() > validLength) {
+                channel.truncate(validLength);
+                channel.force(true);
+            }
+        }
+    }
+
+    /**
+     * Reads one frame.
+     *
+     * @return The payload, or null if the frame is torn or fails its checksum.
+     */
+    private ByteBuffer readFrame(DataInputStream data) throws IOException {
+        int length = data.readInt();
+        int checksum = data.readInt();
+        if (length < 1 || length > MAX_FRAME_LENGTH) {
+            return null;
+        }
+        byte[] payload = new byte[length];
+        try {
+            data.readFully(payload);
+        } catch (EOFException e) {
+            return null;
+        }
+        CRC32 frameCrc = new CRC32();
+        frameCrc.update(payload);
+        return (int) frameCrc.getValue() == checksum ? ByteBuffer.wrap(payload) : null;
+    }
+
+    private void apply(ByteBuffer payload) {
+        byte type = payload.get();
+        switch (type) {
+            case SHOW_CONFIGURED -> {
+                String showNumber = getString(payload);
+                // Journals written before booked shows were refused a new configuration may still drop bookings.
+                bookingRepository.deleteByShowNumber(showNumber);
+                showRepository.save(new Show(showNumber, payload.getInt(), payload.getInt(), payload.getInt()));
+            }
+            case SECTIONED_SHOW_CONFIGURED -> {
+                String showNumber = getString(payload);
+                int cancelWindowInMinutes = payload.getInt();
+                int sectionCount = payload.getInt();
+                List<Section> sections = new ArrayList<>(sectionCount);
+                for (int i = 0; i < sectionCount; i++) {
+                    sections.add(new Section(getString(payload), payload.getInt(), payload.getInt()));
+                }
+                bookingRepository.deleteByShowNumber(showNumber);
+                showRepository.save(new Show(showNumber, SeatLayout.of(sections), cancelWindowInMinutes));
+            }
+            case BOOKED, BOOKED_V2 -> {
+                String ticketNumber = getString(payload);
+                String phoneNumber = getString(payload);
+                String showNumber = getString(payload);
+                Instant creationTime = Instant.ofEpochSecond(payload.getLong(), payload.getInt());
+                int seatCount = type == BOOKED ? payload.getShort() & 0xffff : payload.getInt();
+                List<String> seats = new ArrayList<>(seatCount);
+                for (int i = 0; i < seatCount; i++) {
+                    seats.add(getString(payload));
+                }
+                Booking booking = new Booking(ticketNumber, phoneNumber, showNumber, seats);
+                booking.setBookingCreationTime(creationTime);
+                Show show = showRepository.findByShowNumber(showNumber);
+                if (show != null) {
+                    booking.setCancellationDeadline(show.cancellationDeadline(creationTime));
+                }
+                bookingRepository.save(booking);
+                ticketNumberGenerator.advancePast(ticketNumber);
+            }
+            case CANCELLED -> bookingRepository.delete(getString(payload));
+            default -> throw new IllegalStateException("Unknown journal event type " + type);
+        }
+    }
+
+    /**
+     * Applies the recovered bookings to the seat maps in one bulk update per show.
+     */
+    private void rebuildSeatMaps() {
+        Map<String, List<String>> bookedSeats = new HashMap<>();
+        for (Booking booking : bookingRepository.findAll()) {
+            bookedSeats.computeIfAbsent(booking.getShowNumber(), k -> new ArrayList<>()).addAll(booking.getSeats());
+        }
+        bookedSeats.forEach((showNumber, seats) -> {
+            Show show = showRepository.findByShowNumber(showNumber);
+            if (show != null) {
+                SeatMap seatMap = show.getSeats();
+                seatMap.book(seatMap.ordinalsOf(seats));
+            }
+        });
+    }
+
+    // ---- files -------------------------------------------------------------------------
+
+    private FileChannel openSegment(long segmentGeneration) throws IOException {
+        Path path = directory.resolve(SEGMENT_PREFIX + segmentGeneration + SEGMENT_SUFFIX);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        // Make the new file's directory entry durable too.
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException ignored) {
+            // Not supported on every platform.
+        }
+        return channel;
+    }
+
+    private void deleteOlderThan(long keepGeneration) throws IOException {
+        for (long g : generations(SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+            if (g < keepGeneration) {
+                Files.deleteIfExists(directory.resolve(SEGMENT_PREFIX + g + SEGMENT_SUFFIX));
+            }
+        }
+        for (long g : generations(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+            if (g < keepGeneration) {
+                Files.deleteIfExists(directory.resolve(SNAPSHOT_PREFIX + g + SNAPSHOT_SUFFIX));
+            }
+        }
+    }
+
+    private long latestGeneration(String prefix, String suffix) throws IOException {
+        List<Long> all = generations(prefix, suffix);
+        return all.isEmpty() ? 0 : all.get(all.size() - 1);
+    }
+
+    private List<Long> generations(String prefix, String suffix) throws IOException {
+        List<Long> result = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.endsWith(suffix))
+                    .forEach(name -> result.add(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length()))));
+        }
+        result.sort(null);
+        return result;
+    }
+
+    private static void writeFrame(DataOutputStream out, ByteBuffer payload) throws IOException {
+        CRC32 frameCrc = new CRC32();
+        frameCrc.update(payload.duplicate());
+        out.writeInt(payload.remaining());
+        out.writeInt((int) frameCrc.getValue());
+        out.write(payload.array(), payload.arrayOffset() + payload.position(), payload.remaining());
+    }
+
+    private static OutputStream channelOutput(FileChannel channel) {
+        return new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        };
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        buffer.putShort((short) value.length);
+        buffer.put(value);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getShort() & 0xffff;
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.ticketreservation.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The state of a show's waiting room, as seen by a buyer about to book.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AdmissionStatus {
+
+    private String showNumber;
+    // Bookings admitted and still running.
+    private int inFlight;
+    // Buyers waiting to be admitted.
+    private int queued;
+    // How long a buyer joining the queue now would wait.
+    private long estimatedWaitMillis;
+}
@@ -18,6 +18,9 @@ public class Booking {
     private String showNumber;
     private List<String> seats;
     private Instant bookingCreationTime;
+    private Instant cancellationDeadline;
+    // Set once the cancellation deadline has passed; a final booking can no longer be cancelled.
+    private volatile boolean finalized;
 
     /**
      * Creates a new booking with given details.
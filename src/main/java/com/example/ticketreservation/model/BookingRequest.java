@@ -0,0 +1,20 @@
+package com.example.ticketreservation.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One booking in a batch booking request.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingRequest {
+
+    private String showNumber;
+    private String phoneNumber;
+    private List<String> selectedSeats;
+}
@@ -0,0 +1,53 @@
+package com.example.ticketreservation.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of one booking in a batch: the ticket number and seats on success, or the
+ * reason it was rejected.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingResult {
+
+    private String showNumber;
+    private String phoneNumber;
+    private String ticketNumber;
+    private List<String> seats;
+    private String error;
+
+    /**
+     * Creates the result of a successful booking.
+     *
+     * @param booking The booking made.
+     * @return The result.
+     */
+    public static BookingResult success(Booking booking) {
+        return new BookingResult(booking.getShowNumber(), booking.getPhoneNumber(), booking.getTicketNumber(),
+                booking.getSeats(), null);
+    }
+
+    /**
+     * Creates the result of a rejected booking.
+     *
+     * @param request The rejected request, or null if the batch had no request in its place.
+     * @param error The reason for the rejection.
+     * @return The result.
+     */
+    public static BookingResult failure(BookingRequest request, String error) {
+        if (request == null) {
+            return new BookingResult(null, null, null, null, error);
+        }
+        return new BookingResult(request.getShowNumber(), request.getPhoneNumber(), null,
+                request.getSelectedSeats(), error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
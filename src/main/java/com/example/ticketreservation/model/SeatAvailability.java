@@ -0,0 +1,151 @@
+package com.example.ticketreservation.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable, versioned snapshot of a show's seat availability.
+ *
+ * A SeatMap on the heap publishes a new snapshot after every mutation, so readers see either
+ * all or none of a multi-seat booking and never need to take the show lock or wait. An
+ * off-heap SeatMap copies one for every read instead, under its sequence lock.
+ */
+public final class SeatAvailability {
+
+    private final SeatMap seatMap;
+    private final long version;
+    // One bit per seat. Set if booked or held.
+    private final long[] booked;
+    private final int availableCount;
+
+    SeatAvailability(SeatMap seatMap, long version, long[] booked) {
+        this.seatMap = seatMap;
+        this.version = version;
+        this.booked = booked;
+        int bookedCount = 0;
+        for (long word : booked) {
+            bookedCount += Long.bitCount(word);
+        }
+        this.availableCount = seatMap.capacity() - bookedCount;
+    }
+
+    /**
+     * @return The version of the seat map this snapshot was taken at. Increases with every mutation.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return The epoch of the seat map this snapshot was taken from. Together with the version
+     * this identifies the snapshot.
+     */
+    public long getEpoch() {
+        return seatMap.getEpoch();
+    }
+
+    public int getNumberOfRows() {
+        return seatMap.getNumberOfRows();
+    }
+
+    public int getSeatsPerRow() {
+        return seatMap.getSeatsPerRow();
+    }
+
+    /**
+     * @return The total number of seats.
+     */
+    public int capacity() {
+        return seatMap.capacity();
+    }
+
+    /**
+     * @return The number of seats that were available.
+     */
+    public int availableCount() {
+        return availableCount;
+    }
+
+    /**
+     * Checks whether a seat was available.
+     *
+     * @param ordinal The seat ordinal.
+     * @return true if the ordinal names a seat that was not booked.
+     */
+    public boolean isAvailable(int ordinal) {
+        return ordinal >= 0 && ordinal < seatMap.capacity() && (booked[ordinal >>> 6] & (1L << ordinal)) == 0;
+    }
+
+    /**
+     * Lists the available seats in row then seat order (A1, A2, ..., B1, ...).
+     *
+     * @return The labels of all available seats.
+     */
+    public List<String> availableSeats() {
+        int capacity = seatMap.capacity();
+        List<String> seats = new ArrayList<>(availableCount);
+        for (int w = 0; w < booked.length; w++) {
+            long free = ~booked[w];
+            if (w == booked.length - 1 && (capacity & 63) != 0) {
+                free &= (1L << capacity) - 1;
+            }
+            while (free != 0) {
+                seats.add(seatMap.labelOf((w << 6) + Long.numberOfTrailingZeros(free)));
+                free &= free - 1;
+            }
+        }
+        return seats;
+    }
+
+    /**
+     * @return The bit words of this snapshot, one bit per seat, set if booked or held. Not copied.
+     */
+    long[] bookedWords() {
+        return booked;
+    }
+
+    /**
+     * @param other Another snapshot.
+     * @return true if both snapshots were taken from the same seat map, so they can be compared.
+     */
+    public boolean isSameSeatMap(SeatAvailability other) {
+        return other.seatMap == seatMap;
+    }
+
+    /**
+     * Lists the seats that were available in an earlier snapshot of the same seat map but
+     * are booked or held in this one.
+     *
+     * @param earlier An earlier snapshot of the same seat map.
+     * @return The labels of the seats taken since, in row then seat order.
+     */
+    public List<String> seatsTakenSince(SeatAvailability earlier) {
+        return changedSeats(earlier, true);
+    }
+
+    /**
+     * Lists the seats that were booked or held in an earlier snapshot of the same seat map
+     * but are available in this one.
+     *
+     * @param earlier An earlier snapshot of the same seat map.
+     * @return The labels of the seats freed since, in row then seat order.
+     */
+    public List<String> seatsFreedSince(SeatAvailability earlier) {
+        return changedSeats(earlier, false);
+    }
+
+    private List<String> changedSeats(SeatAvailability earlier, boolean taken) {
+        if (!isSameSeatMap(earlier)) {
+            throw new IllegalArgumentException("Snapshots belong to different seat maps.");
+        }
+        List<String> seats = new ArrayList<>();
+        for (int w = 0; w < booked.length; w++) {
+            long changed = taken ? booked[w] & ~earlier.booked[w] : earlier.booked[w] & ~booked[w];
+            while (changed != 0) {
+                seats.add(seatMap.labelOf((w << 6) + Long.numberOfTrailingZeros(changed)));
+                changed &= changed - 1;
+            }
+        }
+        return seats;
+    }
+}
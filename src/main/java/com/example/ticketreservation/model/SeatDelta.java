@@ -0,0 +1,22 @@
+package com.example.ticketreservation.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * The seats of a show that changed since the last snapshot or delta sent to a client.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatDelta {
+
+    private long version;
+    // Seats that became unavailable, whether booked or held.
+    private List<String> booked;
+    // Seats that became available again.
+    private List<String> released;
+}
@@ -0,0 +1,46 @@
+package com.example.ticketreservation.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Represents seats held for a buyer while payment happens, until confirmed or expired.
+ */
+@Data
+@NoArgsConstructor
+public class SeatHold {
+
+    private String holdId;
+    private String phoneNumber;
+    private String showNumber;
+    private List<String> seats;
+    private Instant expiresAt;
+
+    /**
+     * Creates a new hold with given details.
+     *
+     * @param holdId Unique identifier for the hold.
+     * @param phoneNumber Phone number of the buyer.
+     * @param showNumber Identifier of the show being held.
+     * @param seats List of seat identifiers being held.
+     * @param expiresAt The time after which the hold lapses.
+     */
+    public SeatHold(String holdId, String phoneNumber, String showNumber, List<String> seats, Instant expiresAt) {
+        this.holdId = holdId;
+        this.phoneNumber = phoneNumber;
+        this.showNumber = showNumber;
+        this.seats = seats;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * @param now The current time.
+     * @return true if the hold has lapsed at the given time.
+     */
+    public boolean isExpired(Instant now) {
+        return !now.isBefore(expiresAt);
+    }
+}
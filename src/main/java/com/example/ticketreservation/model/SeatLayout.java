@@ -0,0 +1,285 @@
+package com.example.ticketreservation.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The arrangement of a show's seats into sections, rows and seats, and the mapping between
+ * seat labels and the seat ordinals a SeatMap works with.
+ *
+ * Ordinals run section by section, then row by row, so every row is a contiguous range of
+ * ordinals: a seat's ordinal is its section's first ordinal plus row * seatsPerRow + seat,
+ * all zero-based. The layout only keeps a few ints per section, however many seats it has.
+ *
+ * A show without sections has one unnamed section, with seat labels such as "A1" or "B10";
+ * rows past Z continue with "AA", "AB" and so on. In a sectioned show the labels are
+ * prefixed with the section name, e.g. "101-C12".
+ */
+public final class SeatLayout {
+
+    public static final int MAX_SEATS = 100_000;
+    private static final char SECTION_SEPARATOR = '-';
+
+    // Null for a show without sections.
+    private final String[] names;
+    private final int[] seatsPerRow;
+    // The first ordinal and the first row of each section, with the totals appended.
+    private final int[] firstOrdinal;
+    private final int[] firstRow;
+    private final Map<String, Integer> sectionIndex;
+    private final int widestRow;
+
+    private SeatLayout(String[] names, int[] numberOfRows, int[] seatsPerRow) {
+        this.names = names;
+        this.seatsPerRow = seatsPerRow;
+        this.firstOrdinal = new int[seatsPerRow.length + 1];
+        this.firstRow = new int[seatsPerRow.length + 1];
+        this.sectionIndex = new HashMap<>();
+        int widestRow = 0;
+        long capacity = 0;
+        for (int section = 0; section < seatsPerRow.length; section++) {
+            capacity += (long) numberOfRows[section] * seatsPerRow[section];
+            if (capacity > MAX_SEATS) {
+                throw new IllegalArgumentException("A show cannot have more than " + MAX_SEATS + " seats.");
+            }
+            firstOrdinal[section + 1] = (int) capacity;
+            firstRow[section + 1] = firstRow[section] + numberOfRows[section];
+            widestRow = Math.max(widestRow, seatsPerRow[section]);
+            if (names != null && sectionIndex.put(names[section], section) != null) {
+                throw new IllegalArgumentException("Duplicate section " + names[section] + ".");
+            }
+        }
+        this.widestRow = widestRow;
+    }
+
+    /**
+     * Creates the layout of a show without sections.
+     *
+     * @param numberOfRows The number of rows.
+     * @param seatsPerRow The number of seats per row.
+     * @return The layout.
+     */
+    public static SeatLayout of(int numberOfRows, int seatsPerRow) {
+        if (numberOfRows < 0 || seatsPerRow < 0) {
+            throw new IllegalArgumentException("Invalid seat layout: " + numberOfRows + " rows of " + seatsPerRow + " seats.");
+        }
+        return new SeatLayout(null, new int[]{numberOfRows}, new int[]{seatsPerRow});
+    }
+
+    /**
+     * Creates the layout of a sectioned show.
+     *
+     * @param sections The sections, in ordinal order. Names must be unique.
+     * @return The layout.
+     */
+    public static SeatLayout of(List<Section> sections) {
+        if (sections == null || sections.isEmpty()) {
+            throw new IllegalArgumentException("A sectioned show needs at least one section.");
+        }
+        String[] names = new String[sections.size()];
+        int[] numberOfRows = new int[names.length];
+        int[] seatsPerRow = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            Section section = sections.get(i);
+            if (section.getName() == null || section.getName().isEmpty()
+                    || section.getNumberOfRows() < 1 || section.getSeatsPerRow() < 1) {
+                throw new IllegalArgumentException("Sections need a name and at least one row of one seat.");
+            }
+            names[i] = section.getName();
+            numberOfRows[i] = section.getNumberOfRows();
+            seatsPerRow[i] = section.getSeatsPerRow();
+        }
+        return new SeatLayout(names, numberOfRows, seatsPerRow);
+    }
+
+    public boolean isSectioned() {
+        return names != null;
+    }
+
+    /**
+     * @return The sections. A layout without sections has a single one, with a null name.
+     */
+    public List<Section> getSections() {
+        List<Section> sections = new ArrayList<>(seatsPerRow.length);
+        for (int section = 0; section < seatsPerRow.length; section++) {
+            sections.add(new Section(names == null ? null : names[section],
+                    firstRow[section + 1] - firstRow[section], seatsPerRow[section]));
+        }
+        return sections;
+    }
+
+    /**
+     * @return The total number of seats.
+     */
+    public int capacity() {
+        return firstOrdinal[seatsPerRow.length];
+    }
+
+    /**
+     * @return The total number of rows, over all sections.
+     */
+    public int getNumberOfRows() {
+        return firstRow[seatsPerRow.length];
+    }
+
+    /**
+     * @return The number of seats per row, or 0 if the rows of the sections differ in length.
+     */
+    public int getSeatsPerRow() {
+        for (int seats : seatsPerRow) {
+            if (seats != seatsPerRow[0]) {
+                return 0;
+            }
+        }
+        return seatsPerRow[0];
+    }
+
+    /**
+     * @return The number of seats in the longest row.
+     */
+    public int widestRow() {
+        return widestRow;
+    }
+
+    /**
+     * @param ordinal A seat ordinal, in range.
+     * @return The row of the seat, counting rows over all sections.
+     */
+    public int rowOf(int ordinal) {
+        int section = sectionOf(firstOrdinal, ordinal);
+        return firstRow[section] + (ordinal - firstOrdinal[section]) / seatsPerRow[section];
+    }
+
+    /**
+     * @param row A row, counting rows over all sections.
+     * @return The ordinal of the first seat of the row.
+     */
+    public int rowStart(int row) {
+        int section = sectionOf(firstRow, row);
+        return firstOrdinal[section] + (row - firstRow[section]) * seatsPerRow[section];
+    }
+
+    /**
+     * @param row A row, counting rows over all sections.
+     * @return The number of seats in the row.
+     */
+    public int rowLength(int row) {
+        return seatsPerRow[sectionOf(firstRow, row)];
+    }
+
+    /**
+     * Parses a seat label such as "A1" or "101-C12" into its ordinal.
+     *
+     * @param label The seat label.
+     * @return The seat ordinal, or -1 if the label does not name a seat in this layout.
+     */
+    public int ordinalOf(String label) {
+        if (label == null) {
+            return -1;
+        }
+        int section = 0;
+        int start = 0;
+        if (names != null) {
+            int separator = label.lastIndexOf(SECTION_SEPARATOR);
+            Integer index = separator < 0 ? null : sectionIndex.get(label.substring(0, separator));
+            if (index == null) {
+                return -1;
+            }
+            section = index;
+            start = separator + 1;
+        }
+        int rows = firstRow[section + 1] - firstRow[section];
+        int seats = seatsPerRow[section];
+
+        // Rows are letters in bijective base 26 (A..Z, AA..ZZ, ...).
+        int i = start;
+        int row = 0;
+        while (i < label.length() && label.charAt(i) >= 'A' && label.charAt(i) <= 'Z') {
+            row = row * 26 + (label.charAt(i++) - 'A' + 1);
+            if (row > rows) {
+                return -1;
+            }
+        }
+        // Seat numbers are 1-based and written without leading zeros.
+        if (row == 0 || i == label.length() || label.charAt(i) == '0') {
+            return -1;
+        }
+        int seat = 0;
+        for (; i < label.length(); i++) {
+            int digit = label.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            seat = seat * 10 + digit;
+            if (seat > seats) {
+                return -1;
+            }
+        }
+        return firstOrdinal[section] + (row - 1) * seats + (seat - 1);
+    }
+
+    /**
+     * Formats a seat ordinal as a label, e.g. 0 -> "A1".
+     *
+     * @param ordinal The seat ordinal.
+     * @return The seat label.
+     */
+    public String labelOf(int ordinal) {
+        if (ordinal < 0 || ordinal >= capacity()) {
+            throw new IllegalArgumentException("Seat ordinal " + ordinal + " is out of range.");
+        }
+        int section = sectionOf(firstOrdinal, ordinal);
+        int offset = ordinal - firstOrdinal[section];
+        int row = offset / seatsPerRow[section] + 1;
+        int seat = offset % seatsPerRow[section] + 1;
+
+        int rowLetters = 0;
+        for (int r = row; r > 0; r = (r - 1) / 26) {
+            rowLetters++;
+        }
+        String prefix = names == null ? "" : names[section] + SECTION_SEPARATOR;
+        char[] chars = new char[prefix.length() + rowLetters + stringSize(seat)];
+        prefix.getChars(0, prefix.length(), chars, 0);
+        for (int i = prefix.length() + rowLetters - 1; row > 0; i--) {
+            chars[i] = (char) ('A' + (row - 1) % 26);
+            row = (row - 1) / 26;
+        }
+        for (int i = chars.length - 1; i >= prefix.length() + rowLetters; i--) {
+            chars[i] = (char) ('0' + seat % 10);
+            seat /= 10;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * @return The section whose range in starts (a section's first ordinal or row, with the
+     *         total appended) contains value.
+     */
+    private int sectionOf(int[] starts, int value) {
+        if (starts.length == 2) {
+            return 0;
+        }
+        int low = 0;
+        int high = starts.length - 2;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (starts[middle] <= value) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    private static int stringSize(int value) {
+        int size = 1;
+        while (value >= 10) {
+            value /= 10;
+            size++;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,549 @@
+package com.example.ticketreservation.model;
+
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compact seat-state engine for a show.
+ *
+ * Each seat is addressed by an int ordinal (see SeatLayout) and its booked and held states
+ * are single bits in bitsets, kept in SeatWords either on the Java heap or off-heap. A seat
+ * is available when it is neither. Seat labels ("A1", "B10", "101-C12"...) are only parsed
+ * and formatted at the edges. An 80,000-seat show takes 10 KB per bitset.
+ *
+ * For best-available allocation the map also keeps a max segment tree over the longest free
+ * run of every row, maintained incrementally on book and release. It lives in the SeatWords
+ * too, so an off-heap seat map keeps no per-seat or per-row state on the heap.
+ *
+ * Mutations must be serialized by the caller (see ShowLocks). While the seat state is on the
+ * heap, each mutation publishes a new immutable SeatAvailability snapshot, which readers use
+ * without locking or waiting. An off-heap seat map keeps no snapshot on the heap; readers
+ * copy the bits under a sequence lock instead: a mutation makes the sequence odd while it
+ * runs, and a reader retries if the sequence moved, so it sees either all or none of a
+ * multi-seat booking.
+ */
+public class SeatMap {
+
+    private static final int WORD_SHIFT = 6;
+    // Randomly seeded so epochs also differ between runs of the application.
+    private static final AtomicLong EPOCHS = new AtomicLong(ThreadLocalRandom.current().nextLong());
+
+    private final SeatLayout layout;
+    private final int capacity;
+    private final long epoch = EPOCHS.getAndIncrement();
+    private final int wordCount;
+    // One booked and one held bit per seat, and a max segment tree over the longest run of
+    // adjacent free seats in each row (leaves at node leaves + row). Replaced when the seat map
+    // moves to other storage.
+    private volatile SeatWords words;
+    private final int leaves;
+    // Twice the version, plus one while a mutation is in progress.
+    private volatile long sequence;
+    // The snapshot published by the latest mutation while the seat state is on the heap, else null.
+    private volatile SeatAvailability availability;
+    // The number of booked or held seats, kept by every mutation so counting them copies no seat state.
+    private volatile int takenCount;
+
+    /**
+     * Creates a seat map without sections, with every seat available.
+     *
+     * @param numberOfRows The number of rows.
+     * @param seatsPerRow The number of seats per row.
+     */
+    public SeatMap(int numberOfRows, int seatsPerRow) {
+        this(SeatLayout.of(numberOfRows, seatsPerRow));
+    }
+
+    /**
+     * Creates a seat map with every seat available.
+     *
+     * @param layout The seat layout.
+     */
+    public SeatMap(SeatLayout layout) {
+        this.layout = layout;
+        this.capacity = layout.capacity();
+        int numberOfRows = layout.getNumberOfRows();
+        this.wordCount = (capacity + 63) >>> WORD_SHIFT;
+        this.leaves = Math.max(1, Integer.highestOneBit(Math.max(1, numberOfRows - 1)) << 1);
+        SeatWords words = SeatWords.onHeap(wordCount, 2 * leaves);
+        for (int row = 0; row < numberOfRows; row++) {
+            words.runTree(leaves + row, layout.rowLength(row));
+        }
+        for (int node = leaves - 1; node > 0; node--) {
+            words.runTree(node, Math.max(words.runTree(2 * node), words.runTree(2 * node + 1)));
+        }
+        this.words = words;
+        this.availability = new SeatAvailability(this, 0, new long[wordCount]);
+    }
+
+    public SeatLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * @return The number of bit words of each kind the seat state needs.
+     */
+    public int wordCount() {
+        return wordCount;
+    }
+
+    /**
+     * @return The number of run tree nodes the seat state needs.
+     */
+    public int runTreeSize() {
+        return 2 * leaves;
+    }
+
+    /**
+     * Moves the seat state to other storage and frees the storage it was in. Counts as a
+     * mutation, so it must be serialized with the others.
+     *
+     * @param target Empty storage of wordCount() words and runTreeSize() run tree nodes.
+     */
+    public void moveTo(SeatWords target) {
+        beginMutation();
+        SeatWords source = words;
+        for (int w = 0; w < wordCount; w++) {
+            target.booked(w, source.booked(w));
+            target.held(w, source.held(w));
+        }
+        for (int node = 0; node < 2 * leaves; node++) {
+            target.runTree(node, source.runTree(node));
+        }
+        words = target;
+        endMutation();
+        // A reader still copying from the old storage sees the sequence move and retries.
+        source.free();
+    }
+
+    /**
+     * @return The total number of rows, over all sections.
+     */
+    public int getNumberOfRows() {
+        return layout.getNumberOfRows();
+    }
+
+    /**
+     * @return The number of seats per row, or 0 if the rows of the sections differ in length.
+     */
+    public int getSeatsPerRow() {
+        return layout.getSeatsPerRow();
+    }
+
+    /**
+     * @return An id for this seat map, different for every seat map created, so versions of
+     * a show that was configured again, or of an earlier run, are not confused.
+     */
+    public long getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * @return The total number of seats.
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Parses a seat label such as "A1" or "101-C12" into its ordinal.
+     *
+     * @param label The seat label.
+     * @return The seat ordinal, or -1 if the label does not name a seat in this map.
+     */
+    public int ordinalOf(String label) {
+        return layout.ordinalOf(label);
+    }
+
+    /**
+     * Parses a list of seat labels into ordinals.
+     *
+     * @param labels The seat labels.
+     * @return The ordinals, in the same order. Unknown labels map to -1.
+     */
+    public int[] ordinalsOf(List<String> labels) {
+        int[] ordinals = new int[labels.size()];
+        for (int i = 0; i < ordinals.length; i++) {
+            ordinals[i] = ordinalOf(labels.get(i));
+        }
+        return ordinals;
+    }
+
+    /**
+     * Formats a seat ordinal as a label, e.g. 0 -> "A1".
+     *
+     * @param ordinal The seat ordinal.
+     * @return The seat label.
+     */
+    public String labelOf(int ordinal) {
+        return layout.labelOf(ordinal);
+    }
+
+    /**
+     * Marks the given seats as held. Ordinals outside the map are ignored.
+     *
+     * @param ordinals The seat ordinals.
+     */
+    public void hold(int[] ordinals) {
+        beginMutation();
+        SeatWords words = this.words;
+        int taken = takenCount;
+        for (int ordinal : ordinals) {
+            if (ordinal >= 0 && ordinal < capacity) {
+                int w = ordinal >>> WORD_SHIFT;
+                taken -= takenBit(words, w, ordinal);
+                words.held(w, words.held(w) | 1L << ordinal);
+                taken += takenBit(words, w, ordinal);
+            }
+        }
+        takenCount = taken;
+        updateRuns(ordinals);
+        endMutation();
+    }
+
+    /**
+     * Clears the hold on the given seats, making them available again. Ordinals outside the map are ignored.
+     *
+     * @param ordinals The seat ordinals.
+     */
+    public void releaseHold(int[] ordinals) {
+        beginMutation();
+        SeatWords words = this.words;
+        int taken = takenCount;
+        for (int ordinal : ordinals) {
+            if (ordinal >= 0 && ordinal < capacity) {
+                int w = ordinal >>> WORD_SHIFT;
+                taken -= takenBit(words, w, ordinal);
+                words.held(w, words.held(w) & ~(1L << ordinal));
+                taken += takenBit(words, w, ordinal);
+            }
+        }
+        takenCount = taken;
+        updateRuns(ordinals);
+        endMutation();
+    }
+
+    /**
+     * Turns held seats into booked seats in one step. Ordinals outside the map are ignored.
+     *
+     * @param ordinals The seat ordinals.
+     */
+    public void confirmHold(int[] ordinals) {
+        beginMutation();
+        SeatWords words = this.words;
+        int taken = takenCount;
+        for (int ordinal : ordinals) {
+            if (ordinal >= 0 && ordinal < capacity) {
+                int w = ordinal >>> WORD_SHIFT;
+                taken -= takenBit(words, w, ordinal);
+                words.held(w, words.held(w) & ~(1L << ordinal));
+                words.booked(w, words.booked(w) | 1L << ordinal);
+                taken += takenBit(words, w, ordinal);
+            }
+        }
+        takenCount = taken;
+        endMutation();
+    }
+
+    /**
+     * Returns a snapshot of the current availability. Never blocks while the seat state is on
+     * the heap. Off-heap, copies the seat state, spinning while a mutation is in progress.
+     *
+     * @return The current snapshot.
+     */
+    public SeatAvailability snapshot() {
+        SeatAvailability published = availability;
+        if (published != null) {
+            return published;
+        }
+        long[] taken = new long[wordCount];
+        while (true) {
+            long before = sequence;
+            if ((before & 1) == 0) {
+                SeatWords words = this.words;
+                for (int w = 0; w < taken.length; w++) {
+                    taken[w] = words.booked(w) | words.held(w);
+                }
+                // Keep the reads of the bits before the second read of the sequence.
+                VarHandle.loadLoadFence();
+                if (sequence == before) {
+                    return new SeatAvailability(this, before >>> 1, taken);
+                }
+            }
+            Thread.onSpinWait();
+            // The seat state may have moved back to the heap meanwhile.
+            published = availability;
+            if (published != null) {
+                return published;
+            }
+        }
+    }
+
+    /**
+     * Checks whether a seat is available in the live seat state.
+     *
+     * @param ordinal The seat ordinal.
+     * @return true if the ordinal names a seat that is neither booked nor held.
+     */
+    public boolean isAvailable(int ordinal) {
+        return ordinal >= 0 && ordinal < capacity && (taken(ordinal >>> WORD_SHIFT) & (1L << ordinal)) == 0;
+    }
+
+    /**
+     * Checks whether all given seats are available in the live seat state.
+     *
+     * @param ordinals The seat ordinals.
+     * @return true if every ordinal names a seat that is neither booked nor held.
+     */
+    public boolean areAvailable(int[] ordinals) {
+        for (int ordinal : ordinals) {
+            if (!isAvailable(ordinal)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Marks the given seats as booked. Ordinals outside the map are ignored.
+     *
+     * @param ordinals The seat ordinals.
+     */
+    public void book(int[] ordinals) {
+        beginMutation();
+        SeatWords words = this.words;
+        int taken = takenCount;
+        for (int ordinal : ordinals) {
+            if (ordinal >= 0 && ordinal < capacity) {
+                int w = ordinal >>> WORD_SHIFT;
+                taken -= takenBit(words, w, ordinal);
+                words.booked(w, words.booked(w) | 1L << ordinal);
+                taken += takenBit(words, w, ordinal);
+            }
+        }
+        takenCount = taken;
+        updateRuns(ordinals);
+        endMutation();
+    }
+
+    /**
+     * Marks the given seats as available. Ordinals outside the map are ignored.
+     *
+     * @param ordinals The seat ordinals.
+     */
+    public void release(int[] ordinals) {
+        beginMutation();
+        SeatWords words = this.words;
+        int taken = takenCount;
+        for (int ordinal : ordinals) {
+            if (ordinal >= 0 && ordinal < capacity) {
+                int w = ordinal >>> WORD_SHIFT;
+                taken -= takenBit(words, w, ordinal);
+                words.booked(w, words.booked(w) & ~(1L << ordinal));
+                taken += takenBit(words, w, ordinal);
+            }
+        }
+        takenCount = taken;
+        updateRuns(ordinals);
+        endMutation();
+    }
+
+    /**
+     * Finds the best block of adjacent available seats: the front-most row that has a long
+     * enough free run, placed as close to the middle of that row as possible.
+     *
+     * Finding the row is O(log rows) through the segment tree; placing the block walks the
+     * free runs of that one row.
+     *
+     * @param count The number of adjacent seats wanted.
+     * @return The seat ordinals, or null if no row has enough adjacent available seats.
+     */
+    public int[] findBestContiguous(int count) {
+        SeatWords words = this.words;
+        if (count < 1 || count > layout.widestRow() || words.runTree(1) < count) {
+            return null;
+        }
+        int node = 1;
+        while (node < leaves) {
+            node = words.runTree(2 * node) >= count ? 2 * node : 2 * node + 1;
+        }
+        int row = node - leaves;
+        int start = layout.rowStart(row);
+        int end = start + layout.rowLength(row);
+
+        // Distances are measured on doubled coordinates to stay in integers.
+        int bestStart = -1;
+        int bestDistance = Integer.MAX_VALUE;
+        int ideal = (start + end - count) / 2;
+        for (int seat = nextFree(start, end); seat < end; ) {
+            int runEnd = nextTaken(seat, end);
+            if (runEnd - seat >= count) {
+                int blockStart = Math.max(seat, Math.min(runEnd - count, ideal));
+                int distance = Math.abs(2 * blockStart + count - (start + end));
+                if (distance < bestDistance) {
+                    bestDistance = distance;
+                    bestStart = blockStart;
+                }
+            }
+            seat = nextFree(runEnd, end);
+        }
+
+        int[] ordinals = new int[count];
+        for (int i = 0; i < count; i++) {
+            ordinals[i] = bestStart + i;
+        }
+        return ordinals;
+    }
+
+    /**
+     * Formats seat ordinals as labels.
+     *
+     * @param ordinals The seat ordinals.
+     * @return The seat labels, in the same order.
+     */
+    public List<String> labelsOf(int[] ordinals) {
+        List<String> labels = new ArrayList<>(ordinals.length);
+        for (int ordinal : ordinals) {
+            labels.add(labelOf(ordinal));
+        }
+        return labels;
+    }
+
+    /**
+     * @return The number of seats that are booked or held, from a running count, so it never
+     * copies the seat state.
+     */
+    public int takenCount() {
+        return takenCount;
+    }
+
+    /**
+     * @return The number of seats that are neither booked nor held.
+     */
+    public int availableCount() {
+        return capacity - takenCount;
+    }
+
+    /**
+     * Lists the available seats in row then seat order (A1, A2, ..., B1, ...).
+     *
+     * @return The labels of all available seats.
+     */
+    public List<String> availableSeats() {
+        return snapshot().availableSeats();
+    }
+
+    private void beginMutation() {
+        sequence = sequence + 1;
+        // Keep the writes of the bits after the odd sequence.
+        VarHandle.storeStoreFence();
+    }
+
+    /**
+     * Ends a mutation, publishing a snapshot of the new seat state if it is on the heap.
+     */
+    private void endMutation() {
+        long version = (sequence + 1) >>> 1;
+        SeatWords words = this.words;
+        SeatAvailability published = null;
+        if (words.isOnHeap()) {
+            long[] taken = new long[wordCount];
+            for (int w = 0; w < taken.length; w++) {
+                taken[w] = words.booked(w) | words.held(w);
+            }
+            published = new SeatAvailability(this, version, taken);
+        }
+        sequence = sequence + 1;
+        availability = published;
+    }
+
+    private long taken(int word) {
+        SeatWords words = this.words;
+        return words.booked(word) | words.held(word);
+    }
+
+    /**
+     * @return 1 if the seat is booked or held, else 0.
+     */
+    private static int takenBit(SeatWords words, int word, int ordinal) {
+        return (int) ((words.booked(word) | words.held(word)) >>> ordinal) & 1;
+    }
+
+    /**
+     * Recomputes the longest free run of every row touched by a mutation and updates the row tree.
+     */
+    private void updateRuns(int[] ordinals) {
+        SeatWords words = this.words;
+        int previousRow = -1;
+        for (int ordinal : ordinals) {
+            if (ordinal < 0 || ordinal >= capacity) {
+                continue;
+            }
+            int row = layout.rowOf(ordinal);
+            if (row == previousRow) {
+                continue;
+            }
+            previousRow = row;
+            int run = longestFreeRun(row);
+            int node = leaves + row;
+            if (run == words.runTree(node)) {
+                continue;
+            }
+            words.runTree(node, run);
+            for (node >>>= 1; node > 0; node >>>= 1) {
+                words.runTree(node, Math.max(words.runTree(2 * node), words.runTree(2 * node + 1)));
+            }
+        }
+    }
+
+    private int longestFreeRun(int row) {
+        int start = layout.rowStart(row);
+        int end = start + layout.rowLength(row);
+        int longest = 0;
+        for (int seat = nextFree(start, end); seat < end; ) {
+            int runEnd = nextTaken(seat, end);
+            longest = Math.max(longest, runEnd - seat);
+            seat = nextFree(runEnd, end);
+        }
+        return longest;
+    }
+
+    /**
+     * @return The first booked or held ordinal in [from, end), or end if there is none.
+     */
+    private int nextTaken(int from, int end) {
+        if (from >= end) {
+            return end;
+        }
+        int w = from >>> WORD_SHIFT;
+        long word = taken(w) & (-1L << from);
+        while (word == 0) {
+            if (++w << WORD_SHIFT >= end) {
+                return end;
+            }
+            word = taken(w);
+        }
+        return Math.min(end, (w << WORD_SHIFT) + Long.numberOfTrailingZeros(word));
+    }
+
+    /**
+     * @return The first available ordinal in [from, end), or end if there is none.
+     */
+    private int nextFree(int from, int end) {
+        if (from >= end) {
+            return end;
+        }
+        int w = from >>> WORD_SHIFT;
+        long word = ~taken(w) & (-1L << from);
+        while (word == 0) {
+            if (++w << WORD_SHIFT >= end) {
+                return end;
+            }
+            word = ~taken(w);
+        }
+        return Math.min(end, (w << WORD_SHIFT) + Long.numberOfTrailingZeros(word));
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.ticketreservation.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * All available seats of a show at one seat map version, sent when a client starts streaming.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatSnapshot {
+
+    private long version;
+    private List<String> availableSeats;
+}
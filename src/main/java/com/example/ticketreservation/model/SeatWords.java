@@ -0,0 +1,107 @@
+package com.example.ticketreservation.model;
+
+/**
+ * Storage for the seat state of one SeatMap: a booked and a held bit word for every 64 seats,
+ * and the nodes of the map's tree of longest free runs per row.
+ *
+ * Not thread-safe. The SeatMap serializes writes and validates racing reads itself.
+ */
+public interface SeatWords {
+
+    /**
+     * @return The number of words of each kind.
+     */
+    int length();
+
+    long booked(int word);
+
+    void booked(int word, long value);
+
+    long held(int word);
+
+    void held(int word, long value);
+
+    /**
+     * @return The number of run tree nodes.
+     */
+    int runTreeSize();
+
+    int runTree(int node);
+
+    void runTree(int node, int value);
+
+    /**
+     * @return true if the storage is on the Java heap.
+     */
+    boolean isOnHeap();
+
+    /**
+     * Gives the storage back to where it was allocated from. It must not be used afterwards.
+     */
+    void free();
+
+    /**
+     * Allocates storage on the Java heap, with every seat available and every run tree node zero.
+     *
+     * @param length The number of words of each kind.
+     * @param runTreeSize The number of run tree nodes.
+     * @return The storage.
+     */
+    static SeatWords onHeap(int length, int runTreeSize) {
+        return new SeatWords() {
+
+            private final long[] booked = new long[length];
+            private final long[] held = new long[length];
+            private final int[] runTree = new int[runTreeSize];
+
+            @Override
+            public int length() {
+                return length;
+            }
+
+            @Override
+            public long booked(int word) {
+                return booked[word];
+            }
+
+            @Override
+            public void booked(int word, long value) {
+                booked[word] = value;
+            }
+
+            @Override
+            public long held(int word) {
+                return held[word];
+            }
+
+            @Override
+            public void held(int word, long value) {
+                held[word] = value;
+            }
+
+            @Override
+            public int runTreeSize() {
+                return runTreeSize;
+            }
+
+            @Override
+            public int runTree(int node) {
+                return runTree[node];
+            }
+
+            @Override
+            public void runTree(int node, int value) {
+                runTree[node] = value;
+            }
+
+            @Override
+            public boolean isOnHeap() {
+                return true;
+            }
+
+            @Override
+            public void free() {
+            }
+        };
+    }
+}
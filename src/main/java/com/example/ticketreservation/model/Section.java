@@ -0,0 +1,18 @@
+package com.example.ticketreservation.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One section of a sectioned show, e.g. "101" with 30 rows of 24 seats.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Section {
+
+    private String name;
+    private int numberOfRows;
+    private int seatsPerRow;
+}
@@ -3,9 +3,10 @@ package com.example.ticketreservation.model;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import java.util.HashMap;
+import java.time.Instant;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Represents a show with a specific configuration.
@@ -19,8 +20,12 @@ public class Show {
     private int numberOfRows;
     private int seatsPerRow;
     private int cancelWindowInMinutes;
-    // A map to hold seat availability status. True if available, false if booked.
-    private Map<String, Boolean> seats;
+    // The sections of a sectioned show, in ordinal order. Null or empty for a show of numberOfRows x seatsPerRow.
+    private List<Section> sections;
+    // Bitset holding seat availability status, addressed by seat ordinal.
+    private SeatMap seats;
+    // Active seat holds keyed by the buyer's phone number; their seats are marked held in the seat map.
+    private final Map<String, SeatHold> holds = new ConcurrentHashMap<>();
 
     /**
      * Initializes a show with seat availability.
@@ -31,27 +36,41 @@ public class Show {
      * @param cancelWindowInMinutes The window in minutes for ticket cancellation.
      */
     public Show(String showNumber, int numberOfRows, int seatsPerRow, int cancelWindowInMinutes) {
+        this(showNumber, SeatLayout.of(numberOfRows, seatsPerRow), cancelWindowInMinutes);
+    }
+
+    /**
+     * Initializes a show with seat availability.
+     *
+     * @param showNumber The unique identifier of the show.
+     * @param layout The seat layout of the show.
+     * @param cancelWindowInMinutes The window in minutes for ticket cancellation.
+     */
+    public Show(String showNumber, SeatLayout layout, int cancelWindowInMinutes) {
         this.showNumber = showNumber;
-        this.numberOfRows = numberOfRows;
-        this.seatsPerRow = seatsPerRow;
+        this.numberOfRows = layout.getNumberOfRows();
+        this.seatsPerRow = layout.getSeatsPerRow();
         this.cancelWindowInMinutes = cancelWindowInMinutes;
-        this.seats = new HashMap<>();
-        initializeSeats();
+        this.sections = layout.isSectioned() ? layout.getSections() : null;
+        this.seats = new SeatMap(layout); // All seats are initially available
     }
 
     /**
-     * Initializes the seat map for a new show.
+     * @return The seat layout this show describes: its sections if it has any, otherwise
+     *         numberOfRows x seatsPerRow.
      */
-    private void initializeSeats() {
-        char row = 'A';
-        for (int i = 0; i < numberOfRows; i++) {
-            for (int j = 1; j <= seatsPerRow; j++) {
-                // Example seat format: A1, A2, B1...
-                String seat = row + String.valueOf(j);
-                this.seats.put(seat, true); // All seats are initially available
-            }
-            row++;
-        }
+    public SeatLayout layout() {
+        return sections == null || sections.isEmpty() ? SeatLayout.of(numberOfRows, seatsPerRow) : SeatLayout.of(sections);
+    }
+
+    /**
+     * Computes until when a booking on this show can be cancelled.
+     *
+     * @param bookingCreationTime The time the booking was made.
+     * @return The end of the booking's cancellation window.
+     */
+    public Instant cancellationDeadline(Instant bookingCreationTime) {
+        return bookingCreationTime.plusSeconds(cancelWindowInMinutes * 60L);
     }
 
     /**
@@ -61,10 +80,51 @@ public class Show {
      * @param available The new availability status.
      */
     public void updateSeatAvailability(List<String> seats, boolean available) {
-        for (String seat : seats) {
-            if (this.seats.containsKey(seat)) {
-                this.seats.put(seat, available);
-            }
+        updateSeatAvailability(this.seats.ordinalsOf(seats), available);
+    }
+
+    /**
+     * Updates the availability of a set of seats given by ordinal.
+     *
+     * @param seatOrdinals The seat ordinals to update. Unknown ordinals are ignored.
+     * @param available The new availability status.
+     */
+    public void updateSeatAvailability(int[] seatOrdinals, boolean available) {
+        if (available) {
+            this.seats.release(seatOrdinals);
+        } else {
+            this.seats.book(seatOrdinals);
         }
     }
+
+    /**
+     * Holds seats for a buyer, taking them out of availability until the hold is released or confirmed.
+     *
+     * @param hold The hold.
+     * @param seatOrdinals The ordinals of the held seats.
+     */
+    public void hold(SeatHold hold, int[] seatOrdinals) {
+        this.seats.hold(seatOrdinals);
+        this.holds.put(hold.getPhoneNumber(), hold);
+    }
+
+    /**
+     * Drops a hold and makes its seats available again.
+     *
+     * @param hold The hold.
+     */
+    public void releaseHold(SeatHold hold) {
+        this.holds.remove(hold.getPhoneNumber(), hold);
+        this.seats.releaseHold(this.seats.ordinalsOf(hold.getSeats()));
+    }
+
+    /**
+     * Drops a hold and marks its seats booked.
+     *
+     * @param hold The hold.
+     */
+    public void confirmHold(SeatHold hold) {
+        this.holds.remove(hold.getPhoneNumber(), hold);
+        this.seats.confirmHold(this.seats.ordinalsOf(hold.getSeats()));
+    }
 }
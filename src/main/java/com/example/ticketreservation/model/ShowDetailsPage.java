@@ -0,0 +1,79 @@
+package com.example.ticketreservation.model;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * One page of a show's manifest: the show's booking counts and up to a limit of its
+ * bookings, in ticket order.
+ *
+ * The bookings are read lazily from the repository while the page is iterated, so a page
+ * can be streamed to a client without ever holding all of it in memory. A page that is full
+ * may be followed by another, which starts after its last ticket number.
+ */
+public class ShowDetailsPage implements Iterable<Booking> {
+
+    private final String showNumber;
+    private final int cancellableBookings;
+    private final int finalBookings;
+    private final int limit;
+    private final Iterable<Booking> bookings;
+
+    /**
+     * @param showNumber The show number.
+     * @param cancellableBookings The number of bookings on the show that can still be cancelled.
+     * @param finalBookings The number of final bookings on the show.
+     * @param limit The most bookings on the page.
+     * @param bookings The bookings from the start of the page on, in ticket order.
+     */
+    public ShowDetailsPage(String showNumber, int cancellableBookings, int finalBookings, int limit,
+                           Iterable<Booking> bookings) {
+        this.showNumber = showNumber;
+        this.cancellableBookings = cancellableBookings;
+        this.finalBookings = finalBookings;
+        this.limit = limit;
+        this.bookings = bookings;
+    }
+
+    public String getShowNumber() {
+        return showNumber;
+    }
+
+    public int getCancellableBookings() {
+        return cancellableBookings;
+    }
+
+    public int getFinalBookings() {
+        return finalBookings;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return The bookings on the page, at most limit of them.
+     */
+    @Override
+    public Iterator<Booking> iterator() {
+        Iterator<Booking> source = bookings.iterator();
+        return new Iterator<Booking>() {
+
+            private int remaining = limit;
+
+            @Override
+            public boolean hasNext() {
+                return remaining > 0 && source.hasNext();
+            }
+
+            @Override
+            public Booking next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                remaining--;
+                return source.next();
+            }
+        };
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.ticketreservation.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A row of a show import that was not imported, and why.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShowImportError {
+
+    // The line of the row in the import file, counting from 1.
+    private long line;
+    // Null if the row could not be read far enough to find it.
+    private String showNumber;
+    private String error;
+}
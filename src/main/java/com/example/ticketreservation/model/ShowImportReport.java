@@ -0,0 +1,22 @@
+package com.example.ticketreservation.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk show import: how many shows were configured, and the rows that were not.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShowImportReport {
+
+    private long imported;
+    private long failed;
+    // The first failed rows, in file order; failed counts all of them.
+    private List<ShowImportError> errors = new ArrayList<>();
+}
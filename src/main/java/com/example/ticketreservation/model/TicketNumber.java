@@ -0,0 +1,104 @@
+package com.example.ticketreservation.model;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Converts between numeric ticket ids and ticket numbers.
+ *
+ * A ticket number is "TK" followed by the id in upper-case base 36, zero-padded to 13 digits
+ * so that ticket numbers sort like their ids, e.g. "TK01N3KF0QW2PS3". Hold ids are encoded
+ * the same way behind "HD".
+ */
+public final class TicketNumber {
+
+    public static final String PREFIX = "TK";
+    public static final String HOLD_PREFIX = "HD";
+    // Enough base-36 digits for any non-negative long.
+    static final int DIGITS = 13;
+    /**
+     * The length of a formatted ticket number or hold id, and of a buffer to format it in.
+     */
+    public static final int LENGTH = PREFIX.length() + DIGITS;
+
+    private static final byte[] DIGIT_CHARS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ".getBytes(StandardCharsets.US_ASCII);
+    // Reused by every format on a platform thread; the String is the only allocation left.
+    private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[LENGTH]);
+
+    private TicketNumber() {
+    }
+
+    /**
+     * Formats a ticket id. Encodes straight into a per-thread byte buffer, with no
+     * intermediate strings.
+     *
+     * @param id The ticket id, not negative.
+     * @return The ticket number.
+     */
+    public static String format(long id) {
+        return format(id, BUFFER.get());
+    }
+
+    /**
+     * Formats a ticket id in a buffer supplied by the caller.
+     *
+     * @param id The ticket id, not negative.
+     * @param buffer At least LENGTH bytes, overwritten.
+     * @return The ticket number.
+     */
+    public static String format(long id, byte[] buffer) {
+        return encode((byte) 'T', (byte) 'K', id, buffer);
+    }
+
+    /**
+     * Formats a hold id like a ticket number, behind HOLD_PREFIX.
+     *
+     * @param id The id, not negative.
+     * @return The hold id.
+     */
+    public static String formatHoldId(long id) {
+        return encode((byte) 'H', (byte) 'D', id, BUFFER.get());
+    }
+
+    private static String encode(byte first, byte second, long id, byte[] buffer) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Ticket id must not be negative.");
+        }
+        buffer[0] = first;
+        buffer[1] = second;
+        for (int i = LENGTH - 1; i >= PREFIX.length(); i--) {
+            buffer[i] = DIGIT_CHARS[(int) (id % 36)];
+            id /= 36;
+        }
+        return new String(buffer, 0, LENGTH, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Parses a ticket number. Shorter, unpadded numbers such as "TK0000A1" are accepted too.
+     *
+     * @param ticketNumber The ticket number.
+     * @return The ticket id, or -1 if the string is not a valid ticket number.
+     */
+    public static long parse(String ticketNumber) {
+        if (ticketNumber == null || ticketNumber.length() <= PREFIX.length()
+                || ticketNumber.length() > PREFIX.length() + DIGITS || !ticketNumber.startsWith(PREFIX)) {
+            return -1;
+        }
+        long id = 0;
+        for (int i = PREFIX.length(); i < ticketNumber.length(); i++) {
+            char c = ticketNumber.charAt(i);
+            int digit;
+            if (c >= '0' && c <= '9') {
+                digit = c - '0';
+            } else if (c >= 'A' && c <= 'Z') {
+                digit = c - 'A' + 10;
+            } else {
+                return -1;
+            }
+            if (id > (Long.MAX_VALUE - digit) / 36) {
+                return -1;
+            }
+            id = id * 36 + digit;
+        }
+        return id;
+    }
+}
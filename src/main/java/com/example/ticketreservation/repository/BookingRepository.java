@@ -1,20 +1,31 @@
 package com.example.ticketreservation.repository;
 
 import com.example.ticketreservation.model.Booking;
+import com.example.ticketreservation.model.TicketNumber;
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 /**
  * In-memory repository for managing Booking objects.
+ *
+ * Besides the primary ticket number lookup, the repository maintains per-show secondary
+ * indexes (show -> tickets and (show, phone) -> ticket) so show-scoped queries never scan
+ * the bookings of other shows. Bookings are keyed by their numeric ticket id rather than the
+ * ticket number string, so lookups hash and compare a long. A show's bookings are kept in
+ * ticket id order, so they can be paged through with the last ticket number as a cursor.
  */
 @Repository
 public class BookingRepository {
 
-    private final Map<String, Booking> bookings = new HashMap<>();
+    private final Map<Long, Booking> bookings = new ConcurrentHashMap<>();
+    // Secondary indexes, keyed by show number. Updated inside compute() so they stay in step with the primary map.
+    private final Map<String, ShowIndex> showIndexes = new ConcurrentHashMap<>();
 
     /**
      * Saves a booking in the repository.
@@ -22,7 +33,31 @@ public class BookingRepository {
      * @param booking The booking to save.
      */
     public void save(Booking booking) {
-        bookings.put(booking.getTicketNumber(), booking);
+        long ticketId = TicketNumber.parse(booking.getTicketNumber());
+        if (ticketId < 0) {
+            throw new IllegalArgumentException("Invalid ticket number " + booking.getTicketNumber() + ".");
+        }
+        Booking[] replaced = new Booking[1];
+        showIndexes.compute(booking.getShowNumber(), (showNumber, index) -> {
+            if (index == null) {
+                index = new ShowIndex();
+            }
+            replaced[0] = bookings.put(ticketId, booking);
+            if (replaced[0] != null && replaced[0].getShowNumber().equals(showNumber)) {
+                index.remove(ticketId, replaced[0]);
+                replaced[0] = null;
+            }
+            index.add(ticketId, booking);
+            return index;
+        });
+        // The ticket number was re-used for another show; drop it from that show's index.
+        if (replaced[0] != null) {
+            Booking previous = replaced[0];
+            showIndexes.computeIfPresent(previous.getShowNumber(), (showNumber, index) -> {
+                index.remove(ticketId, previous);
+                return index.isEmpty() ? null : index;
+            });
+        }
     }
 
     /**
@@ -32,7 +67,8 @@ public class BookingRepository {
      * @return The booking if found, or null otherwise.
      */
     public Booking findByTicketNumber(String ticketNumber) {
-        return bookings.get(ticketNumber);
+        long ticketId = TicketNumber.parse(ticketNumber);
+        return ticketId < 0 ? null : bookings.get(ticketId);
     }
 
     /**
@@ -41,7 +77,65 @@ public class BookingRepository {
      * @param ticketNumber The ticket number of the booking to delete.
      */
     public void delete(String ticketNumber) {
-        bookings.remove(ticketNumber);
+        long ticketId = TicketNumber.parse(ticketNumber);
+        Booking booking = ticketId < 0 ? null : bookings.get(ticketId);
+        if (booking == null) {
+            return;
+        }
+        showIndexes.computeIfPresent(booking.getShowNumber(), (showNumber, index) -> {
+            if (bookings.remove(ticketId, booking)) {
+                index.remove(ticketId, booking);
+            }
+            return index.isEmpty() ? null : index;
+        });
+    }
+
+    /**
+     * Deletes all bookings of a show.
+     *
+     * @param showNumber The show number whose bookings to delete.
+     */
+    public void deleteByShowNumber(String showNumber) {
+        showIndexes.computeIfPresent(showNumber, (key, index) -> {
+            index.bookingsByTicket.forEach(bookings::remove);
+            return null;
+        });
+    }
+
+    /**
+     * Marks a booking final once its cancellation window has closed.
+     *
+     * @param booking The booking to mark.
+     * @return true if the booking is stored and was not final yet.
+     */
+    public boolean markFinal(Booking booking) {
+        long ticketId = TicketNumber.parse(booking.getTicketNumber());
+        boolean[] marked = new boolean[1];
+        showIndexes.computeIfPresent(booking.getShowNumber(), (showNumber, index) -> {
+            if (!booking.isFinalized() && index.bookingsByTicket.get(ticketId) == booking) {
+                booking.setFinalized(true);
+                index.finalBookings++;
+                marked[0] = true;
+            }
+            return index;
+        });
+        return marked[0];
+    }
+
+    /**
+     * Retrieves all bookings.
+     *
+     * @return A snapshot of all bookings in the repository.
+     */
+    public Collection<Booking> findAll() {
+        return new ArrayList<>(bookings.values());
+    }
+
+    /**
+     * @return The number of bookings.
+     */
+    public int count() {
+        return bookings.size();
     }
 
     /**
@@ -51,9 +145,55 @@ public class BookingRepository {
      * @return A collection of bookings for the specified show.
      */
     public Collection<Booking> findByShowNumber(String showNumber) {
-        return bookings.values().stream()
-                .filter(booking -> booking.getShowNumber().equals(showNumber))
-                .collect(Collectors.toList());
+        ShowIndex index = showIndexes.get(showNumber);
+        if (index == null) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<>(index.bookingsByTicket.values());
+    }
+
+    /**
+     * Iterates the bookings for a given show number in ticket order, starting after a given
+     * ticket. The iteration reads the show's index without copying it, so it takes the same
+     * memory however many bookings the show has, and it may or may not see bookings made or
+     * cancelled while it runs.
+     *
+     * @param showNumber The show number to search bookings for.
+     * @param afterTicketNumber The ticket number to start after, or null to start at the first booking.
+     * @return The bookings for the specified show, in ticket order.
+     */
+    public Iterable<Booking> findByShowNumberAfter(String showNumber, String afterTicketNumber) {
+        long afterTicketId = afterTicketNumber == null ? -1 : TicketNumber.parse(afterTicketNumber);
+        if (afterTicketNumber != null && afterTicketId < 0) {
+            throw new IllegalArgumentException("Invalid ticket number " + afterTicketNumber + ".");
+        }
+        ShowIndex index = showIndexes.get(showNumber);
+        if (index == null) {
+            return Collections.emptyList();
+        }
+        return index.bookingsByTicket.tailMap(afterTicketId, false).values();
+    }
+
+    /**
+     * Counts the bookings for a given show number.
+     *
+     * @param showNumber The show number to count bookings for.
+     * @return The number of bookings on the show.
+     */
+    public int countByShowNumber(String showNumber) {
+        ShowIndex index = showIndexes.get(showNumber);
+        return index == null ? 0 : index.bookings;
+    }
+
+    /**
+     * Counts the final bookings, whose cancellation window has closed, for a given show number.
+     *
+     * @param showNumber The show number to count bookings for.
+     * @return The number of final bookings on the show.
+     */
+    public int countFinalByShowNumber(String showNumber) {
+        ShowIndex index = showIndexes.get(showNumber);
+        return index == null ? 0 : index.finalBookings;
     }
 
     /**
@@ -64,7 +204,41 @@ public class BookingRepository {
      * @return true if the phone number already has a booking on the show, false otherwise.
      */
     public boolean isPhoneNumberUsed(String showNumber, String phoneNumber) {
-        return bookings.values().stream()
-                .anyMatch(booking -> booking.getShowNumber().equals(showNumber) && booking.getPhoneNumber().equals(phoneNumber));
+        ShowIndex index = showIndexes.get(showNumber);
+        return index != null && index.ticketsByPhone.containsKey(phoneNumber);
+    }
+
+    /**
+     * Secondary indexes for the bookings of one show.
+     */
+    private static final class ShowIndex {
+
+        private final ConcurrentSkipListMap<Long, Booking> bookingsByTicket = new ConcurrentSkipListMap<>();
+        private final Map<String, Long> ticketsByPhone = new ConcurrentHashMap<>();
+        // Only written inside compute() on this show's entry. Counted here because size() of a skip list is linear.
+        private volatile int bookings;
+        private volatile int finalBookings;
+
+        void add(long ticketId, Booking booking) {
+            bookingsByTicket.put(ticketId, booking);
+            bookings++;
+            ticketsByPhone.put(booking.getPhoneNumber(), ticketId);
+            if (booking.isFinalized()) {
+                finalBookings++;
+            }
+        }
+
+        void remove(long ticketId, Booking booking) {
+            bookingsByTicket.remove(ticketId);
+            bookings--;
+            ticketsByPhone.remove(booking.getPhoneNumber(), ticketId);
+            if (booking.isFinalized()) {
+                finalBookings--;
+            }
+        }
+
+        boolean isEmpty() {
+            return bookingsByTicket.isEmpty();
+        }
     }
 }
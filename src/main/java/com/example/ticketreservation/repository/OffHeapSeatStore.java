@@ -0,0 +1,201 @@
+package com.example.ticketreservation.repository;
+
+import com.example.ticketreservation.model.SeatWords;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Optional off-heap storage for seat state, enabled with ticketreservation.seat-store.off-heap.
+ *
+ * With thousands of large shows in memory, their seat bitsets are most of the old generation
+ * the garbage collector has to mark and, when it compacts, copy, although they never become
+ * garbage while the show exists. This store keeps a show's whole seat state, the bitsets and
+ * the run tree for best-available allocation, in direct memory instead, so the heap holds
+ * only the fixed-size per-show objects. Off-heap seat maps do not cache availability
+ * snapshots either: each read copies the bits into a short-lived array, which the young
+ * generation collects cheaply, at the price of a copy per read on shows that rarely change.
+ *
+ * Direct memory is reserved in 1 MB chunks and carved into slots of power-of-two size
+ * classes. Freed slots go back on their class's free list and are reused by the next show of
+ * that size; chunks are never given back to the operating system. Direct memory is bounded
+ * by -XX:MaxDirectMemorySize.
+ */
+@Component
+public class OffHeapSeatStore {
+
+    private static final int CHUNK_SIZE = 1 << 20;
+    private static final int MIN_SLOT_SIZE = 64;
+
+    private final boolean enabled;
+    // Free slots of each size class, indexed by the log2 of the slot size.
+    private final Deque<Slot>[] freeSlots;
+    private ByteBuffer chunk;
+    private long reservedBytes;
+
+    /**
+     * @param enabled Whether to keep seat state off-heap.
+     */
+    @Autowired
+    @SuppressWarnings("unchecked")
+    public OffHeapSeatStore(@Value("${ticketreservation.seat-store.off-heap:false}") boolean enabled) {
+        this.enabled = enabled;
+        this.freeSlots = new Deque[Integer.SIZE];
+    }
+
+    /**
+     * @return An OffHeapSeatStore that is disabled, for wiring the repositories without Spring.
+     */
+    public static OffHeapSeatStore disabled() {
+        return new OffHeapSeatStore(false);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Allocates off-heap storage for seat state, with every seat available and every run tree node zero.
+     *
+     * @param length The number of words of each kind.
+     * @param runTreeSize The number of run tree nodes.
+     * @return The storage. Freeing it returns it to this store.
+     */
+    public synchronized SeatWords allocate(int length, int runTreeSize) {
+        int sizeClass = sizeClassOf(2L * length * Long.BYTES + (long) runTreeSize * Integer.BYTES);
+        Deque<Slot> free = freeSlots[sizeClass];
+        Slot slot = free == null ? null : free.poll();
+        if (slot == null) {
+            slot = newSlot(sizeClass);
+        }
+        slot.open(length, runTreeSize);
+        for (int w = 0; w < 2 * length; w++) {
+            slot.buffer.putLong(slot.offset + w * Long.BYTES, 0L);
+        }
+        for (int node = 0; node < runTreeSize; node++) {
+            slot.buffer.putInt(slot.runTreeOffset + node * Integer.BYTES, 0);
+        }
+        return slot;
+    }
+
+    /**
+     * @return The direct memory reserved so far, in bytes, whether in use or free.
+     */
+    public synchronized long reservedBytes() {
+        return reservedBytes;
+    }
+
+    private synchronized void release(Slot slot) {
+        if (freeSlots[slot.sizeClass] == null) {
+            freeSlots[slot.sizeClass] = new ArrayDeque<>();
+        }
+        freeSlots[slot.sizeClass].push(slot);
+    }
+
+    private Slot newSlot(int sizeClass) {
+        int size = 1 << sizeClass;
+        if (size > CHUNK_SIZE) {
+            reservedBytes += size;
+            return new Slot(newBuffer(size), 0, sizeClass);
+        }
+        if (chunk == null || chunk.remaining() < size) {
+            // The tail of a full chunk is left unused; it is smaller than any slot that follows it.
+            chunk = newBuffer(CHUNK_SIZE);
+            reservedBytes += CHUNK_SIZE;
+        }
+        Slot slot = new Slot(chunk, chunk.position(), sizeClass);
+        chunk.position(chunk.position() + size);
+        return slot;
+    }
+
+    private static ByteBuffer newBuffer(int size) {
+        return ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder());
+    }
+
+    private static int sizeClassOf(long bytes) {
+        long size = Math.max(MIN_SLOT_SIZE, bytes);
+        return Long.SIZE - Long.numberOfLeadingZeros(size - 1);
+    }
+
+    /**
+     * A slot in a chunk, holding the booked words, then the held words, then the run tree.
+     */
+    private final class Slot implements SeatWords {
+
+        private final ByteBuffer buffer;
+        private final int offset;
+        private final int sizeClass;
+        private int length;
+        private int heldOffset;
+        private int runTreeSize;
+        private int runTreeOffset;
+
+        private Slot(ByteBuffer buffer, int offset, int sizeClass) {
+            this.buffer = buffer;
+            this.offset = offset;
+            this.sizeClass = sizeClass;
+        }
+
+        private void open(int length, int runTreeSize) {
+            this.length = length;
+            this.heldOffset = offset + length * Long.BYTES;
+            this.runTreeSize = runTreeSize;
+            this.runTreeOffset = heldOffset + length * Long.BYTES;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public long booked(int word) {
+            return buffer.getLong(offset + word * Long.BYTES);
+        }
+
+        @Override
+        public void booked(int word, long value) {
+            buffer.putLong(offset + word * Long.BYTES, value);
+        }
+
+        @Override
+        public long held(int word) {
+            return buffer.getLong(heldOffset + word * Long.BYTES);
+        }
+
+        @Override
+        public void held(int word, long value) {
+            buffer.putLong(heldOffset + word * Long.BYTES, value);
+        }
+
+        @Override
+        public int runTreeSize() {
+            return runTreeSize;
+        }
+
+        @Override
+        public int runTree(int node) {
+            return buffer.getInt(runTreeOffset + node * Integer.BYTES);
+        }
+
+        @Override
+        public void runTree(int node, int value) {
+            buffer.putInt(runTreeOffset + node * Integer.BYTES, value);
+        }
+
+        @Override
+        public boolean isOnHeap() {
+            return false;
+        }
+
+        @Override
+        public void free() {
+            release(this);
+        }
+    }
+}
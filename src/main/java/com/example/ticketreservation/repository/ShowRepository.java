@@ -1,18 +1,36 @@
 package com.example.ticketreservation.repository;
 
+import com.example.ticketreservation.model.SeatMap;
+import com.example.ticketreservation.model.SeatWords;
 import com.example.ticketreservation.model.Show;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * In-memory repository for managing Show objects.
+ *
+ * When the OffHeapSeatStore is enabled, the seat state of every stored show lives off-heap.
+ * Saves that replace a show must be serialized with the show's other mutations (see ShowLocks).
  */
 @Repository
 public class ShowRepository {
 
-    private final Map<String, Show> shows = new HashMap<>();
+    private final Map<String, Show> shows = new ConcurrentHashMap<>();
+    private final OffHeapSeatStore offHeapSeatStore;
+
+    public ShowRepository() {
+        this(OffHeapSeatStore.disabled());
+    }
+
+    @Autowired
+    public ShowRepository(OffHeapSeatStore offHeapSeatStore) {
+        this.offHeapSeatStore = offHeapSeatStore;
+    }
 
     /**
      * Saves a show in the repository.
@@ -20,7 +38,19 @@ public class ShowRepository {
      * @param show The show to save.
      */
     public void save(Show show) {
-        shows.put(show.getShowNumber(), show);
+        if (shows.get(show.getShowNumber()) == show) {
+            return;
+        }
+        if (offHeapSeatStore.isEnabled()) {
+            SeatMap seats = show.getSeats();
+            seats.moveTo(offHeapSeatStore.allocate(seats.wordCount(), seats.runTreeSize()));
+        }
+        Show previous = shows.put(show.getShowNumber(), show);
+        if (previous != null && offHeapSeatStore.isEnabled()) {
+            // Anyone still holding the replaced show keeps working on a heap copy.
+            SeatMap seats = previous.getSeats();
+            seats.moveTo(SeatWords.onHeap(seats.wordCount(), seats.runTreeSize()));
+        }
     }
 
     /**
@@ -33,4 +63,20 @@ public class ShowRepository {
         return shows.get(showNumber);
     }
 
+    /**
+     * Retrieves all shows.
+     *
+     * @return A snapshot of all shows in the repository.
+     */
+    public Collection<Show> findAll() {
+        return new ArrayList<>(shows.values());
+    }
+
+    /**
+     * @return The number of shows.
+     */
+    public int count() {
+        return shows.size();
+    }
+
 }
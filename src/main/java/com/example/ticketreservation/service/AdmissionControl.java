@@ -0,0 +1,324 @@
+package com.example.ticketreservation.service;
+
+import com.example.ticketreservation.exception.AdmissionRejectedException;
+import com.example.ticketreservation.model.AdmissionStatus;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Optional per-show waiting room in front of bookings, enabled with ticketreservation.admission.enabled.
+ *
+ * Each show has a bucket of ticketreservation.admission.concurrency tokens. A booking takes
+ * a token and runs straight away if one is free and nobody is queued; it gives the token back
+ * when it completes. Otherwise the buyer joins the show's FIFO queue and is admitted, on a
+ * virtual thread, when a token is returned. A buyer who finds the queue full, or who waits
+ * longer than ticketreservation.admission.max-wait-millis, is turned away with their queue
+ * position and an estimated wait, before the show's state is ever touched. So only a bounded
+ * number of bookings contend for a hot show at once and admitted buyers keep a bounded tail
+ * latency, instead of every buyer slowing down together.
+ *
+ * The estimated wait is the queue ahead of the buyer divided by the concurrency, times a
+ * moving average of how long bookings of the show take. A queued buyer is told their
+ * position and estimated wait when they join, through a QueueListener. A buyer who times out
+ * leaves the queue at once, so positions and the queue length only count buyers still
+ * waiting. Shows without running or waiting bookings take no memory.
+ */
+@Component
+public class AdmissionControl {
+
+    // Weight of the latest booking in the moving average of booking times.
+    private static final double SMOOTHING = 0.2;
+
+    private final boolean enabled;
+    private final int concurrency;
+    private final int queueCapacity;
+    private final long maxWaitMillis;
+    private final TimingWheel timingWheel;
+    private final ExecutorService executor;
+    private final Map<String, Gate> gates = new ConcurrentHashMap<>();
+
+    /**
+     * @param timingWheel The wheel that times out waiting buyers.
+     * @param enabled Whether to queue bookings.
+     * @param concurrency The most bookings of one show that run at once.
+     * @param queueCapacity The most buyers that can wait for one show.
+     * @param maxWaitMillis How long a buyer waits in the queue before being turned away.
+     */
+    @Autowired
+    public AdmissionControl(TimingWheel timingWheel,
+                            @Value("${ticketreservation.admission.enabled:false}") boolean enabled,
+                            @Value("${ticketreservation.admission.concurrency:32}") int concurrency,
+                            @Value("${ticketreservation.admission.queue-capacity:10000}") int queueCapacity,
+                            @Value("${ticketreservation.admission.max-wait-millis:5000}") long maxWaitMillis) {
+        this(timingWheel, enabled, concurrency, queueCapacity, maxWaitMillis,
+                enabled ? Executors.newVirtualThreadPerTaskExecutor() : null);
+    }
+
+    AdmissionControl(TimingWheel timingWheel, boolean enabled, int concurrency, int queueCapacity,
+                     long maxWaitMillis, ExecutorService executor) {
+        if (concurrency < 1 || queueCapacity < 0 || maxWaitMillis < 0) {
+            throw new IllegalArgumentException("Admission concurrency must be positive, and queue capacity and wait must not be negative.");
+        }
+        this.timingWheel = timingWheel;
+        this.enabled = enabled;
+        this.concurrency = concurrency;
+        this.queueCapacity = queueCapacity;
+        this.maxWaitMillis = maxWaitMillis;
+        this.executor = executor;
+    }
+
+    /**
+     * @return An AdmissionControl that admits every booking at once, for wiring the controller without Spring.
+     */
+    public static AdmissionControl disabled() {
+        return new AdmissionControl(null, false, 1, 0, 0, null);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Told where a buyer joined a show's queue.
+     */
+    @FunctionalInterface
+    public interface QueueListener {
+
+        /**
+         * @param position The buyer's position in the queue, 1 for the next to be admitted.
+         * @param estimatedWaitMillis The estimated wait at that position.
+         */
+        void queued(int position, long estimatedWaitMillis);
+    }
+
+    /**
+     * Runs a booking once the show's waiting room admits it.
+     *
+     * @param showNumber The show being booked.
+     * @param action Runs the booking. Called on the caller's thread if admitted straight away,
+     *               otherwise on a virtual thread.
+     * @return The result of the booking, or a future failed with AdmissionRejectedException
+     *         if the buyer was turned away.
+     */
+    public <T> CompletableFuture<T> admit(String showNumber, Supplier<CompletableFuture<T>> action) {
+        return admit(showNumber, (position, estimatedWaitMillis) -> {
+        }, action);
+    }
+
+    /**
+     * Runs a booking once the show's waiting room admits it, telling the caller its place if
+     * it has to wait.
+     *
+     * @param showNumber The show being booked.
+     * @param listener Called on the caller's thread, before this returns, if the buyer joins the queue.
+     * @param action Runs the booking. Called on the caller's thread if admitted straight away,
+     *               otherwise on a virtual thread.
+     * @return The result of the booking, or a future failed with AdmissionRejectedException
+     *         if the buyer was turned away.
+     */
+    public <T> CompletableFuture<T> admit(String showNumber, QueueListener listener, Supplier<CompletableFuture<T>> action) {
+        if (!enabled) {
+            return action.get();
+        }
+        while (true) {
+            Gate gate = gates.computeIfAbsent(showNumber, Gate::new);
+            Waiter waiter;
+            int position = 0;
+            long estimatedWaitMillis = 0;
+            gate.lock.lock();
+            try {
+                if (gate.retired) {
+                    continue;
+                }
+                if (gate.inFlight < concurrency && gate.queued == 0) {
+                    gate.inFlight++;
+                    waiter = null;
+                } else if (gate.queued >= queueCapacity) {
+                    int rejectedPosition = gate.queued + 1;
+                    return CompletableFuture.failedFuture(new AdmissionRejectedException(rejectedPosition,
+                            gate.estimatedWaitMillis(rejectedPosition)));
+                } else {
+                    Waiter queued = new Waiter();
+                    queued.timeout = timingWheel.schedule(maxWaitMillis, () -> expire(gate, queued));
+                    gate.add(queued);
+                    waiter = queued;
+                    position = gate.queued;
+                    estimatedWaitMillis = gate.estimatedWaitMillis(position);
+                }
+            } finally {
+                gate.lock.unlock();
+            }
+            if (waiter == null) {
+                return run(gate, action);
+            }
+            listener.queued(position, estimatedWaitMillis);
+            return waiter.admitted.thenComposeAsync(admitted -> run(gate, action), executor);
+        }
+    }
+
+    /**
+     * @param showNumber The show number.
+     * @return The state of the show's waiting room.
+     */
+    public AdmissionStatus status(String showNumber) {
+        Gate gate = gates.get(showNumber);
+        if (gate == null) {
+            return new AdmissionStatus(showNumber, 0, 0, 0);
+        }
+        gate.lock.lock();
+        try {
+            return new AdmissionStatus(showNumber, gate.inFlight, gate.queued, gate.estimatedWaitMillis(gate.queued + 1));
+        } finally {
+            gate.lock.unlock();
+        }
+    }
+
+    private <T> CompletableFuture<T> run(Gate gate, Supplier<CompletableFuture<T>> action) {
+        long start = System.nanoTime();
+        CompletableFuture<T> result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        return result.whenComplete((value, failure) -> release(gate, System.nanoTime() - start));
+    }
+
+    /**
+     * Returns a booking's token, handing it straight to the next waiter if there is one.
+     */
+    private void release(Gate gate, long bookingNanos) {
+        Waiter next = null;
+        gate.lock.lock();
+        try {
+            gate.averageNanos = gate.averageNanos == 0 ? bookingNanos
+                    : gate.averageNanos + SMOOTHING * (bookingNanos - gate.averageNanos);
+            next = gate.head;
+            if (next != null) {
+                gate.remove(next);
+                next.chosen = true;
+            }
+            if (next == null && --gate.inFlight == 0) {
+                gate.retired = true;
+                gates.remove(gate.showNumber, gate);
+            }
+        } finally {
+            gate.lock.unlock();
+        }
+        if (next != null) {
+            next.timeout.cancel();
+            next.admitted.complete(null);
+        }
+    }
+
+    private void expire(Gate gate, Waiter waiter) {
+        int position;
+        long estimatedWaitMillis;
+        gate.lock.lock();
+        try {
+            if (waiter.chosen) {
+                return;
+            }
+            position = gate.positionOf(waiter);
+            estimatedWaitMillis = gate.estimatedWaitMillis(position);
+            gate.remove(waiter);
+        } finally {
+            gate.lock.unlock();
+        }
+        waiter.admitted.completeExceptionally(new AdmissionRejectedException(position, estimatedWaitMillis));
+    }
+
+    /**
+     * The tokens and queue of one show. Guarded by its lock. The queue is an intrusive doubly
+     * linked list, so a waiter that times out is unlinked in O(1).
+     */
+    private final class Gate {
+
+        private final String showNumber;
+        private final ReentrantLock lock = new ReentrantLock();
+        private Waiter head;
+        private Waiter tail;
+        private int inFlight;
+        // The number of waiters in the queue.
+        private int queued;
+        private double averageNanos;
+        // Set when the gate is removed from the map; a booking that still finds it must look again.
+        private boolean retired;
+
+        private Gate(String showNumber) {
+            this.showNumber = showNumber;
+        }
+
+        private long estimatedWaitMillis(int position) {
+            long rounds = (position + concurrency - 1) / concurrency;
+            return TimeUnit.NANOSECONDS.toMillis((long) (rounds * averageNanos));
+        }
+
+        private void add(Waiter waiter) {
+            waiter.previous = tail;
+            if (tail == null) {
+                head = waiter;
+            } else {
+                tail.next = waiter;
+            }
+            tail = waiter;
+            queued++;
+        }
+
+        private void remove(Waiter waiter) {
+            if (waiter.previous == null) {
+                head = waiter.next;
+            } else {
+                waiter.previous.next = waiter.next;
+            }
+            if (waiter.next == null) {
+                tail = waiter.previous;
+            } else {
+                waiter.next.previous = waiter.previous;
+            }
+            waiter.previous = null;
+            waiter.next = null;
+            queued--;
+        }
+
+        /**
+         * Counts the waiters up to a waiter. Every buyer waits the same time, so they time
+         * out in the order they joined and the one timing out is normally at the head.
+         */
+        private int positionOf(Waiter waiter) {
+            int position = 1;
+            for (Waiter ahead = head; ahead != waiter; ahead = ahead.next) {
+                position++;
+            }
+            return position;
+        }
+    }
+
+    private static final class Waiter {
+
+        private final CompletableFuture<Void> admitted = new CompletableFuture<>();
+        // Guarded by the gate's lock.
+        private TimingWheel.Timeout timeout;
+        private boolean chosen;
+        private Waiter previous;
+        private Waiter next;
+    }
+}
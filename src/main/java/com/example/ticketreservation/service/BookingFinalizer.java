@@ -0,0 +1,90 @@
+package com.example.ticketreservation.service;
+
+import com.example.ticketreservation.model.Booking;
+import com.example.ticketreservation.repository.BookingRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Marks bookings final once their cancellation window closes.
+ *
+ * Every booking is indexed by its cancellation deadline on the timing wheel, which sweeps
+ * one bucket of due bookings per tick. Once a booking is final a cancel attempt is rejected
+ * by a state check, and the per-show final count is kept up to date so reports need no scan.
+ */
+@Component
+@DependsOn("bookingJournal")
+public class BookingFinalizer {
+
+    private final BookingRepository bookingRepository;
+    private final TimingWheel timingWheel;
+    // Pending finalizations by ticket number, so a cancelled booking leaves the wheel straight away.
+    private final Map<String, TimingWheel.Timeout> pending = new ConcurrentHashMap<>();
+
+    @Autowired
+    public BookingFinalizer(BookingRepository bookingRepository, TimingWheel timingWheel) {
+        this.bookingRepository = bookingRepository;
+        this.timingWheel = timingWheel;
+    }
+
+    /**
+     * Tracks the bookings recovered from the booking journal, finalizing the ones whose
+     * cancellation window closed while the application was down.
+     */
+    @PostConstruct
+    public void trackRecovered() {
+        for (Booking booking : bookingRepository.findAll()) {
+            track(booking);
+        }
+    }
+
+    /**
+     * Schedules a saved booking to become final at its cancellation deadline.
+     *
+     * @param booking The booking, with its cancellation deadline set.
+     */
+    public void track(Booking booking) {
+        if (booking.getCancellationDeadline() == null || booking.isFinalized()) {
+            return;
+        }
+        long remainingMillis = booking.getCancellationDeadline().toEpochMilli() - System.currentTimeMillis();
+        if (remainingMillis <= 0) {
+            finalizeBooking(booking);
+            return;
+        }
+        pending.put(booking.getTicketNumber(), timingWheel.schedule(remainingMillis, () -> finalizeBooking(booking)));
+    }
+
+    /**
+     * Stops tracking a booking that was cancelled.
+     *
+     * @param booking The cancelled booking.
+     */
+    public void untrack(Booking booking) {
+        TimingWheel.Timeout timeout = pending.remove(booking.getTicketNumber());
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+
+    /**
+     * Runs on the timing wheel when a booking's deadline is due.
+     */
+    private void finalizeBooking(Booking booking) {
+        Instant now = Instant.now();
+        if (now.isBefore(booking.getCancellationDeadline())) {
+            // The wall clock lags the wheel's monotonic clock; check again later.
+            long remainingMillis = Math.max(1, booking.getCancellationDeadline().toEpochMilli() - now.toEpochMilli());
+            pending.put(booking.getTicketNumber(), timingWheel.schedule(remainingMillis, () -> finalizeBooking(booking)));
+            return;
+        }
+        pending.remove(booking.getTicketNumber());
+        bookingRepository.markFinal(booking);
+    }
+}
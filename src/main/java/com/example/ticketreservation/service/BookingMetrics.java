@@ -0,0 +1,200 @@
+package com.example.ticketreservation.service;
+
+import com.example.ticketreservation.model.SeatMap;
+import com.example.ticketreservation.model.Show;
+import com.example.ticketreservation.repository.BookingRepository;
+import com.example.ticketreservation.repository.ShowRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer instrumentation of the booking hot paths, exported by Actuator at /actuator/prometheus.
+ *
+ * Timers and their percentiles are built once up front, so recording a call is a couple of
+ * System.nanoTime() reads and a lock-free histogram update. Gauges are only computed when
+ * the registry is scraped and add nothing to the request path. Occupancy reads the running
+ * count of taken seats every seat map keeps, so a scrape never copies seat state, even of
+ * shows whose seats are off-heap.
+ *
+ * Occupancy is exported across all shows by default. A gauge per show, enabled with
+ * ticketreservation.metrics.show-occupancy, is a separate time series for every show ever
+ * configured, so it is only meant for deployments with few shows.
+ */
+@Component
+@DependsOn("bookingJournal")
+public class BookingMetrics {
+
+    /**
+     * The instrumented operations, each with its own latency timer.
+     */
+    public enum Operation {
+        BOOK("ticketreservation.book"),
+        CANCEL("ticketreservation.cancel"),
+        AVAILABILITY("ticketreservation.availability"),
+        SHOW_DETAILS("ticketreservation.show.details");
+
+        private final String metricName;
+
+        Operation(String metricName) {
+            this.metricName = metricName;
+        }
+
+        public String tagValue() {
+            return name().toLowerCase();
+        }
+    }
+
+    private final MeterRegistry registry;
+    private final ShowRepository showRepository;
+    private final BookingRepository bookingRepository;
+    private final boolean showOccupancy;
+    private final Map<Operation, Timer> timers = new EnumMap<>(Operation.class);
+    private final Timer lockWait;
+    private final Timer loopStall;
+    // Rejection counters by operation and reason, to skip the registry's id lookup on repeats.
+    private final Map<String, Counter> rejections = new ConcurrentHashMap<>();
+
+    /**
+     * @param registry The registry to record in.
+     * @param showRepository The shows, for the show count and occupancy gauges.
+     * @param bookingRepository The bookings, for the booking count gauge.
+     * @param showOccupancy Whether to register an occupancy gauge for every show.
+     */
+    @Autowired
+    public BookingMetrics(MeterRegistry registry, ShowRepository showRepository, BookingRepository bookingRepository,
+                          @Value("${ticketreservation.metrics.show-occupancy:false}") boolean showOccupancy) {
+        this.registry = registry;
+        this.showRepository = showRepository;
+        this.bookingRepository = bookingRepository;
+        this.showOccupancy = showOccupancy;
+        for (Operation operation : Operation.values()) {
+            timers.put(operation, Timer.builder(operation.metricName)
+                    .publishPercentiles(0.5, 0.99, 0.999)
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        this.lockWait = Timer.builder("ticketreservation.lock.wait")
+                .description("Time spent waiting for a show lock")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.loopStall = Timer.builder("ticketreservation.loop.stall")
+                .description("Time an event loop spent waiting for a show lock, holding up every show of its partition")
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * Creates metrics that are recorded nowhere, for use without Spring.
+     *
+     * @return The metrics.
+     */
+    public static BookingMetrics disabled() {
+        return new BookingMetrics(new CompositeMeterRegistry(), null, null, false);
+    }
+
+    /**
+     * Registers the repository size gauges and the occupancy gauge across all shows, and, if
+     * enabled, an occupancy gauge for every show recovered from the booking journal.
+     */
+    @PostConstruct
+    public void registerGauges() {
+        Gauge.builder("ticketreservation.shows", showRepository, ShowRepository::count)
+                .register(registry);
+        Gauge.builder("ticketreservation.bookings", bookingRepository, BookingRepository::count)
+                .register(registry);
+        Gauge.builder("ticketreservation.occupancy", this, BookingMetrics::totalOccupancy)
+                .description("Fraction of the seats of all shows that are booked or held")
+                .register(registry);
+        for (Show show : showRepository.findAll()) {
+            showConfigured(show.getShowNumber());
+        }
+    }
+
+    /**
+     * Registers the occupancy gauge of a show, if per-show occupancy is enabled: the fraction
+     * of its seats that are booked or held. Registering the same show again is a no-op.
+     *
+     * @param showNumber The show number.
+     */
+    public void showConfigured(String showNumber) {
+        if (!showOccupancy) {
+            return;
+        }
+        Gauge.builder("ticketreservation.show.occupancy", () -> occupancy(showNumber))
+                .tag("show", showNumber)
+                .register(registry);
+    }
+
+    private double totalOccupancy() {
+        long capacity = 0;
+        long taken = 0;
+        for (Show show : showRepository.findAll()) {
+            SeatMap seats = show.getSeats();
+            capacity += seats.capacity();
+            taken += seats.takenCount();
+        }
+        return capacity == 0 ? 0 : (double) taken / capacity;
+    }
+
+    private double occupancy(String showNumber) {
+        Show show = showRepository.findByShowNumber(showNumber);
+        if (show == null) {
+            return 0;
+        }
+        SeatMap seats = show.getSeats();
+        int capacity = seats.capacity();
+        return capacity == 0 ? 0 : (double) seats.takenCount() / capacity;
+    }
+
+    /**
+     * Records the latency of a call.
+     *
+     * @param operation The operation.
+     * @param startNanos The System.nanoTime() when the call started.
+     */
+    public void record(Operation operation, long startNanos) {
+        timers.get(operation).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records the time spent waiting for a show lock, also as a stall if waited on an event loop.
+     *
+     * @param startNanos The System.nanoTime() when the wait started.
+     */
+    public void recordLockWait(long startNanos) {
+        long waitedNanos = System.nanoTime() - startNanos;
+        lockWait.record(waitedNanos, TimeUnit.NANOSECONDS);
+        if (ShowPartitions.onEventLoop()) {
+            loopStall.record(waitedNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Counts a rejected call.
+     *
+     * @param operation The operation.
+     * @param reason The rejection message. Must come from a fixed set, since every distinct
+     *               reason is a separate time series.
+     */
+    public void rejected(Operation operation, String reason) {
+        rejections.computeIfAbsent(operation.tagValue() + '\n' + reason, key -> Counter.builder("ticketreservation.rejections")
+                .tag("operation", operation.tagValue())
+                .tag("reason", reason)
+                .register(registry))
+                .increment();
+    }
+}
@@ -1,15 +1,33 @@
 package com.example.ticketreservation.service;
 
+import com.example.ticketreservation.journal.BookingJournal;
 import com.example.ticketreservation.model.Booking;
+import com.example.ticketreservation.model.BookingRequest;
+import com.example.ticketreservation.model.BookingResult;
+import com.example.ticketreservation.model.SeatAvailability;
+import com.example.ticketreservation.model.SeatHold;
+import com.example.ticketreservation.model.SeatMap;
 import com.example.ticketreservation.model.Show;
 import com.example.ticketreservation.repository.BookingRepository;
 import com.example.ticketreservation.repository.ShowRepository;
+import com.example.ticketreservation.service.BookingMetrics.Operation;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import java.time.Instant;
-import java.util.*;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Service for managing booking operations.
@@ -17,49 +35,79 @@ import java.util.stream.Collectors;
 @Service
 public class BookingService {
 
-    private static final AtomicLong COUNTER = new AtomicLong(1);
-    private static final String PREFIX = "TK";
+    static final int MAX_BATCH_SIZE = 1000;
+    static final int MAX_HOLD_SECONDS = 900;
+    // How long a hold expiry waits to try again when its show is locked.
+    static final long EXPIRY_RETRY_MILLIS = 10;
+    private static final String DUPLICATE_SEATS = "The same seat cannot be selected twice.";
 
     private final BookingRepository bookingRepository;
     private final ShowRepository showRepository;
     private final ShowService showService;
+    private final ShowLocks showLocks;
+    private final BookingJournal bookingJournal;
+    private final TimingWheel timingWheel;
+    private final BookingFinalizer bookingFinalizer;
+    private final TicketNumberGenerator ticketNumberGenerator;
+    private final BookingMetrics bookingMetrics;
+    private final ShowPartitions showPartitions;
 
     @Autowired
-    public BookingService(BookingRepository bookingRepository, ShowRepository showRepository, ShowService showService) {
+    public BookingService(BookingRepository bookingRepository, ShowRepository showRepository, ShowService showService,
+                          ShowLocks showLocks, BookingJournal bookingJournal, TimingWheel timingWheel,
+                          BookingFinalizer bookingFinalizer, TicketNumberGenerator ticketNumberGenerator,
+                          BookingMetrics bookingMetrics, ShowPartitions showPartitions) {
         this.bookingRepository = bookingRepository;
         this.showRepository = showRepository;
         this.showService = showService;
+        this.showLocks = showLocks;
+        this.bookingJournal = bookingJournal;
+        this.timingWheel = timingWheel;
+        this.bookingFinalizer = bookingFinalizer;
+        this.ticketNumberGenerator = ticketNumberGenerator;
+        this.bookingMetrics = bookingMetrics;
+        this.showPartitions = showPartitions;
     }
 
     /**
-     * Checks available seats for a given show.
+     * Checks available seats for a given show. Reads the show's latest availability
+     * snapshot, which never waits for a booking in flight unless the show's seats are off-heap.
      *
      * @param showNumber The show number to check seats for.
      * @return A list of available seats.
      */
     public List<String> checkAvailableSeats(String showNumber) {
+        long start = System.nanoTime();
+        try {
+            return snapshotOf(showNumber).availableSeats();
+        } finally {
+            bookingMetrics.record(Operation.AVAILABILITY, start);
+        }
+    }
+
+    /**
+     * Returns the latest availability snapshot of a show, for callers that encode it themselves.
+     *
+     * @param showNumber The show number to check seats for.
+     * @return The show's seat availability.
+     */
+    public SeatAvailability checkSeatAvailability(String showNumber) {
+        long start = System.nanoTime();
+        try {
+            return snapshotOf(showNumber);
+        } finally {
+            bookingMetrics.record(Operation.AVAILABILITY, start);
+        }
+    }
+
+    private SeatAvailability snapshotOf(String showNumber) {
         Show show = showRepository.findByShowNumber(showNumber);
         if (show == null) {
+            bookingMetrics.rejected(Operation.AVAILABILITY, "Show not found.");
             throw new IllegalArgumentException("Show not found.");
         }
 
-        // Get booked seats for this show
-        Collection<Booking> bookings = bookingRepository.findByShowNumber(showNumber);
-        Set<String> bookedSeats = bookings.stream()
-                .flatMap(booking -> booking.getSeats().stream())
-                .collect(Collectors.toSet());
-
-        // Filter out booked seats from all seats
-        return show.getSeats().keySet().stream()
-                .filter(seat -> !bookedSeats.contains(seat))
-                .sorted((seat1, seat2) -> {
-                    String[] parts1 = seat1.split("(?<=\\D)(?=\\d)");
-                    String[] parts2 = seat2.split("(?<=\\D)(?=\\d)");
-                    int rowComparison = parts1[0].compareTo(parts2[0]);
-                    return rowComparison == 0 ? Integer.compare(Integer.parseInt(parts1[1]), Integer.parseInt(parts2[1])) : rowComparison;
-                })
-                .collect(Collectors.toList());
-
+        return show.getSeats().snapshot();
     }
 
     /**
@@ -71,28 +119,411 @@ public class BookingService {
      * @return A unique ticket number for the booking.
      */
     public String bookSeats(String showNumber, String phoneNumber, List<String> selectedSeats) {
-        Show show = showRepository.findByShowNumber(showNumber);
-        if (show == null) {
-            throw new IllegalArgumentException("Show not found.");
+        return book(showNumber, phoneNumber, selected(selectedSeats)).getTicketNumber();
+    }
+
+    /**
+     * Books seats on a show for a buyer without blocking. With event loops enabled the booking
+     * runs on the show's loop and the future completes once the booking is journaled;
+     * otherwise this books on the calling thread like {@link #bookSeats}.
+     *
+     * @param showNumber The unique identifier of the show.
+     * @param phoneNumber The buyer's phone number.
+     * @param selectedSeats The seats to book.
+     * @return The ticket number, or the reason the booking failed.
+     */
+    public CompletableFuture<String> bookSeatsAsync(String showNumber, String phoneNumber, List<String> selectedSeats) {
+        if (!showPartitions.isEnabled()) {
+            return completed(() -> bookSeats(showNumber, phoneNumber, selectedSeats));
+        }
+        long start = System.nanoTime();
+        return instrumented(Operation.BOOK, start, showPartitions
+                .submit(showNumber, () -> applyBooking(showNumber, phoneNumber, selected(selectedSeats)))
+                .thenCompose(this::whenDurable)
+                .thenApply(Booking::getTicketNumber));
+    }
+
+    private static Function<SeatMap, int[]> selected(List<String> selectedSeats) {
+        return seatMap -> {
+            checkSelected(selectedSeats);
+            // Ensure all selected seats are available
+            int[] seatOrdinals = seatMap.ordinalsOf(selectedSeats);
+            if (!seatMap.areAvailable(seatOrdinals)) {
+                throw new IllegalArgumentException("One or more selected seats are not available.");
+            }
+            if (hasDuplicates(seatOrdinals)) {
+                throw new IllegalArgumentException(DUPLICATE_SEATS);
+            }
+            return seatOrdinals;
+        };
+    }
+
+    private static void checkSelected(List<String> selectedSeats) {
+        if (selectedSeats == null || selectedSeats.isEmpty()) {
+            throw new IllegalArgumentException("Selected seats are required.");
+        }
+    }
+
+    /**
+     * @return true if a seat was selected more than once. Ordinals of unknown seats are ignored.
+     */
+    private static boolean hasDuplicates(int[] seatOrdinals) {
+        BitSet seen = new BitSet();
+        for (int ordinal : seatOrdinals) {
+            if (ordinal < 0) {
+                continue;
+            }
+            if (seen.get(ordinal)) {
+                return true;
+            }
+            seen.set(ordinal);
+        }
+        return false;
+    }
+
+    /**
+     * Books the best block of adjacent available seats on a show for a buyer: the front-most
+     * row with enough adjacent free seats, as close to the middle of the row as possible.
+     *
+     * @param showNumber The unique identifier of the show.
+     * @param phoneNumber The buyer's phone number.
+     * @param numberOfSeats The number of adjacent seats to book.
+     * @return The booking, including the allocated seats.
+     */
+    public Booking bookBestAvailableSeats(String showNumber, String phoneNumber, int numberOfSeats) {
+        if (numberOfSeats < 1) {
+            throw new IllegalArgumentException("Number of seats must be at least 1.");
+        }
+        return book(showNumber, phoneNumber, seatMap -> {
+            int[] seatOrdinals = seatMap.findBestContiguous(numberOfSeats);
+            if (seatOrdinals == null) {
+                throw new IllegalArgumentException("Not enough adjacent seats are available.");
+            }
+            return seatOrdinals;
+        });
+    }
+
+    /**
+     * Books many reservations in one call. Requests are grouped by show and each group is
+     * validated and applied under a single acquisition of the show's lock, with one seat map
+     * update for the whole group. Each request succeeds or fails on its own.
+     *
+     * @param requests The bookings to make.
+     * @return One result per request, in request order.
+     */
+    public List<BookingResult> bookSeatsInBatch(List<BookingRequest> requests) {
+        if (requests.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("A batch cannot contain more than " + MAX_BATCH_SIZE + " bookings.");
+        }
+        BookingResult[] results = new BookingResult[requests.size()];
+        Map<String, List<Integer>> requestsByShow = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            if (requests.get(i) == null) {
+                results[i] = BookingResult.failure(null, "Booking request is required.");
+                continue;
+            }
+            requestsByShow.computeIfAbsent(requests.get(i).getShowNumber(), k -> new ArrayList<>()).add(i);
+        }
+
+        requestsByShow.forEach((showNumber, indexes) -> bookShowGroup(showNumber, indexes, requests, results));
+        for (BookingResult result : results) {
+            if (!result.isSuccess()) {
+                bookingMetrics.rejected(Operation.BOOK, result.getError());
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private void bookShowGroup(String showNumber, List<Integer> indexes, List<BookingRequest> requests,
+                               BookingResult[] results) {
+        if (showNumber == null || showRepository.findByShowNumber(showNumber) == null) {
+            for (int i : indexes) {
+                results[i] = BookingResult.failure(requests.get(i), "Show not found.");
+            }
+            return;
+        }
+
+        long journalSequence = 0;
+        Lock lock = lockShow(showNumber);
+        try {
+            Show show = showRepository.findByShowNumber(showNumber);
+            if (show == null) {
+                for (int i : indexes) {
+                    results[i] = BookingResult.failure(requests.get(i), "Show not found.");
+                }
+                return;
+            }
+            SeatMap seatMap = show.getSeats();
+            bookingJournal.checkWritable();
+            // Seats and phone numbers taken by earlier requests of this group, not yet applied to the show.
+            BitSet claimedSeats = new BitSet(seatMap.capacity());
+            Set<String> claimedPhoneNumbers = new HashSet<>();
+            List<Booking> bookings = new ArrayList<>(indexes.size());
+            for (int i : indexes) {
+                BookingRequest request = requests.get(i);
+                if (request.getPhoneNumber() == null || request.getSelectedSeats() == null || request.getSelectedSeats().isEmpty()) {
+                    results[i] = BookingResult.failure(request, "Phone number and selected seats are required.");
+                    continue;
+                }
+                if (claimedPhoneNumbers.contains(request.getPhoneNumber())
+                        || bookingRepository.isPhoneNumberUsed(showNumber, request.getPhoneNumber())) {
+                    results[i] = BookingResult.failure(request, "This phone number has existing booking in this show.");
+                    continue;
+                }
+                int[] seatOrdinals = seatMap.ordinalsOf(request.getSelectedSeats());
+                if (!seatMap.areAvailable(seatOrdinals) || anyClaimed(claimedSeats, seatOrdinals)) {
+                    results[i] = BookingResult.failure(request, "One or more selected seats are not available.");
+                    continue;
+                }
+                if (hasDuplicates(seatOrdinals)) {
+                    results[i] = BookingResult.failure(request, DUPLICATE_SEATS);
+                    continue;
+                }
+
+                for (int ordinal : seatOrdinals) {
+                    claimedSeats.set(ordinal);
+                }
+                claimedPhoneNumbers.add(request.getPhoneNumber());
+                Booking booking = newBooking(show, request.getPhoneNumber(), seatMap.labelsOf(seatOrdinals));
+                bookingRepository.save(booking);
+                bookingFinalizer.track(booking);
+                bookings.add(booking);
+                results[i] = BookingResult.success(booking);
+            }
+
+            if (!bookings.isEmpty()) {
+                showService.updateShowSeatAvailability(show, claimedSeats.stream().toArray(), false); // For booking
+                for (Booking booking : bookings) {
+                    journalSequence = bookingJournal.appendBooked(booking);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        bookingJournal.awaitDurable(journalSequence);
+    }
+
+    private static boolean anyClaimed(BitSet claimedSeats, int[] seatOrdinals) {
+        for (int ordinal : seatOrdinals) {
+            if (claimedSeats.get(ordinal)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Books the seats chosen by a selector, which runs under the show's lock.
+     */
+    private Booking book(String showNumber, String phoneNumber, Function<SeatMap, int[]> seatSelector) {
+        long start = System.nanoTime();
+        try {
+            return bookSelected(showNumber, phoneNumber, seatSelector);
+        } catch (IllegalArgumentException e) {
+            bookingMetrics.rejected(Operation.BOOK, e.getMessage());
+            throw e;
+        } finally {
+            bookingMetrics.record(Operation.BOOK, start);
+        }
+    }
+
+    private Booking bookSelected(String showNumber, String phoneNumber, Function<SeatMap, int[]> seatSelector) {
+        Committed<Booking> committed = applyBooking(showNumber, phoneNumber, seatSelector);
+
+        // Wait for the group commit outside the lock so other bookings on the show can proceed.
+        bookingJournal.awaitDurable(committed.journalSequence());
+        return committed.result();
+    }
+
+    private Committed<Booking> applyBooking(String showNumber, String phoneNumber, Function<SeatMap, int[]> seatSelector) {
+        findShow(showNumber);
+
+        // Check-then-act on the show's seats and bookings must not interleave with other writers.
+        Booking booking;
+        long journalSequence;
+        Lock lock = lockShow(showNumber);
+        try {
+            Show show = findShow(showNumber);
+            bookingJournal.checkWritable();
+            if (bookingRepository.isPhoneNumberUsed(showNumber, phoneNumber)) {
+                throw new IllegalArgumentException("This phone number has existing booking in this show.");
+            }
+
+            int[] seatOrdinals = seatSelector.apply(show.getSeats());
+
+            // Create and save the booking
+            booking = newBooking(show, phoneNumber, show.getSeats().labelsOf(seatOrdinals));
+            bookingRepository.save(booking);
+            bookingFinalizer.track(booking);
+
+            showService.updateShowSeatAvailability(show, seatOrdinals, false); // For booking
+            journalSequence = bookingJournal.appendBooked(booking);
+        } finally {
+            lock.unlock();
+        }
+        return new Committed<>(booking, journalSequence);
+    }
+
+    /**
+     * Creates a booking with a fresh ticket number, cancellable until the end of the show's cancellation window.
+     */
+    private Booking newBooking(Show show, String phoneNumber, List<String> seats) {
+        Booking booking = new Booking(ticketNumberGenerator.next(), phoneNumber, show.getShowNumber(), seats);
+        booking.setCancellationDeadline(show.cancellationDeadline(booking.getBookingCreationTime()));
+        return booking;
+    }
+
+    /**
+     * Holds seats on a show for a buyer for a limited time, taking them out of availability
+     * until the hold is confirmed, released, or lapses. Holds live in memory only.
+     *
+     * @param showNumber The unique identifier of the show.
+     * @param phoneNumber The buyer's phone number.
+     * @param selectedSeats The seats to hold.
+     * @param holdSeconds How long to hold the seats for.
+     * @return The hold, including its id and expiry time.
+     */
+    public SeatHold holdSeats(String showNumber, String phoneNumber, List<String> selectedSeats, int holdSeconds) {
+        if (holdSeconds < 1 || holdSeconds > MAX_HOLD_SECONDS) {
+            throw new IllegalArgumentException("Hold duration must be between 1 and " + MAX_HOLD_SECONDS + " seconds.");
         }
-        if (bookingRepository.isPhoneNumberUsed(showNumber, phoneNumber)) {
-            throw new IllegalArgumentException("This phone number has existing booking in this show.");
+        checkSelected(selectedSeats);
+        findShow(showNumber);
+
+        Show show;
+        SeatHold hold;
+        Lock lock = lockShow(showNumber);
+        try {
+            show = findShow(showNumber);
+            if (bookingRepository.isPhoneNumberUsed(showNumber, phoneNumber)) {
+                throw new IllegalArgumentException("This phone number has existing booking in this show.");
+            }
+            if (show.getHolds().containsKey(phoneNumber)) {
+                throw new IllegalArgumentException("This phone number already holds seats in this show.");
+            }
+            SeatMap seatMap = show.getSeats();
+            int[] seatOrdinals = seatMap.ordinalsOf(selectedSeats);
+            if (!seatMap.areAvailable(seatOrdinals)) {
+                throw new IllegalArgumentException("One or more selected seats are not available.");
+            }
+            if (hasDuplicates(seatOrdinals)) {
+                throw new IllegalArgumentException(DUPLICATE_SEATS);
+            }
+
+            hold = new SeatHold(ticketNumberGenerator.nextHoldId(), phoneNumber, showNumber, seatMap.labelsOf(seatOrdinals),
+                    Instant.now().plusSeconds(holdSeconds));
+            showService.holdSeats(show, hold, seatOrdinals);
+        } finally {
+            lock.unlock();
         }
 
-        // Ensure all selected seats are available
-        List<String> availableSeats = checkAvailableSeats(showNumber);
-        if (!availableSeats.containsAll(selectedSeats)) {
-            throw new IllegalArgumentException("One or more selected seats are not available.");
+        timingWheel.schedule(TimeUnit.SECONDS.toMillis(holdSeconds), () -> expireHold(show, hold));
+        return hold;
+    }
+
+    /**
+     * Turns a hold into a booking of the held seats.
+     *
+     * @param showNumber The unique identifier of the show.
+     * @param holdId The id of the hold.
+     * @param phoneNumber The phone number used for the hold.
+     * @return A unique ticket number for the booking.
+     */
+    public String confirmHold(String showNumber, String holdId, String phoneNumber) {
+        findShow(showNumber);
+
+        Booking booking;
+        long journalSequence;
+        Lock lock = lockShow(showNumber);
+        try {
+            Show show = findShow(showNumber);
+            bookingJournal.checkWritable();
+            SeatHold hold = findHold(show, holdId, phoneNumber);
+            if (hold.isExpired(Instant.now())) {
+                throw new IllegalArgumentException("Hold not found or expired.");
+            }
+            if (bookingRepository.isPhoneNumberUsed(showNumber, phoneNumber)) {
+                throw new IllegalArgumentException("This phone number has existing booking in this show.");
+            }
+
+            booking = newBooking(show, phoneNumber, hold.getSeats());
+            bookingRepository.save(booking);
+            bookingFinalizer.track(booking);
+            showService.confirmHold(show, hold);
+            journalSequence = bookingJournal.appendBooked(booking);
+        } finally {
+            lock.unlock();
         }
 
-        // Create and save the booking
-        String ticketNumber = generateTicketNumber();
-        Booking booking = new Booking(ticketNumber, phoneNumber, showNumber, selectedSeats);
-        bookingRepository.save(booking);
+        bookingJournal.awaitDurable(journalSequence);
+        return booking.getTicketNumber();
+    }
+
+    /**
+     * Releases a hold before it lapses, making its seats available again.
+     *
+     * @param showNumber The unique identifier of the show.
+     * @param holdId The id of the hold.
+     * @param phoneNumber The phone number used for the hold.
+     */
+    public void releaseHold(String showNumber, String holdId, String phoneNumber) {
+        findShow(showNumber);
+
+        Lock lock = lockShow(showNumber);
+        try {
+            Show show = findShow(showNumber);
+            showService.releaseHold(show, findHold(show, holdId, phoneNumber));
+        } finally {
+            lock.unlock();
+        }
+    }
 
-        showService.updateShowSeatAvailability(show, selectedSeats, false); // For booking
+    /**
+     * Looks up a show. Mutations look it up again once they hold the show's lock, since the
+     * show may have been configured again, with a new seat map, while they waited for it.
+     */
+    private Show findShow(String showNumber) {
+        Show show = showRepository.findByShowNumber(showNumber);
+        if (show == null) {
+            throw new IllegalArgumentException("Show not found.");
+        }
+        return show;
+    }
+
+    private static SeatHold findHold(Show show, String holdId, String phoneNumber) {
+        SeatHold hold = show.getHolds().get(phoneNumber);
+        if (hold == null || !hold.getHoldId().equals(holdId)) {
+            throw new IllegalArgumentException("Hold not found or expired.");
+        }
+        return hold;
+    }
 
-        return ticketNumber;
+    /**
+     * Runs on the timing wheel when a hold is due. The hold may have been confirmed or
+     * released in the meantime, in which case there is nothing to do. The wheel thread must
+     * not block, so if the show is locked the expiry is tried again shortly after.
+     */
+    private void expireHold(Show show, SeatHold hold) {
+        Lock lock = showLocks.lockFor(show.getShowNumber());
+        if (!lock.tryLock()) {
+            timingWheel.schedule(EXPIRY_RETRY_MILLIS, () -> expireHold(show, hold));
+            return;
+        }
+        try {
+            if (show.getHolds().get(hold.getPhoneNumber()) != hold) {
+                return;
+            }
+            long remainingMillis = hold.getExpiresAt().toEpochMilli() - System.currentTimeMillis();
+            if (remainingMillis > 0) {
+                // The wall clock lags the wheel's monotonic clock; check again later.
+                timingWheel.schedule(remainingMillis, () -> expireHold(show, hold));
+                return;
+            }
+            showService.releaseHold(show, hold);
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -102,47 +533,127 @@ public class BookingService {
      * @param phoneNumber The phone number used for the booking.
      */
     public void cancelBooking(String ticketNumber, String phoneNumber) {
+        long start = System.nanoTime();
+        try {
+            cancel(ticketNumber, phoneNumber);
+        } catch (IllegalArgumentException e) {
+            bookingMetrics.rejected(Operation.CANCEL, e.getMessage());
+            throw e;
+        } finally {
+            bookingMetrics.record(Operation.CANCEL, start);
+        }
+    }
+
+    /**
+     * Cancels a booking without blocking. With event loops enabled the cancellation runs on
+     * the loop of the booking's show and the future completes once it is journaled; otherwise
+     * this cancels on the calling thread like {@link #cancelBooking}.
+     *
+     * @param ticketNumber The ticket number of the booking to cancel.
+     * @param phoneNumber The phone number used for the booking.
+     * @return A future that completes when the booking is cancelled, or with the reason it was not.
+     */
+    public CompletableFuture<Void> cancelBookingAsync(String ticketNumber, String phoneNumber) {
+        if (!showPartitions.isEnabled()) {
+            return completed(() -> {
+                cancelBooking(ticketNumber, phoneNumber);
+                return null;
+            });
+        }
+        long start = System.nanoTime();
+        // Only picks the loop. The booking is looked up again and checked on the loop.
+        Booking booking = bookingRepository.findByTicketNumber(ticketNumber);
+        String showNumber = booking == null ? null : booking.getShowNumber();
+        return instrumented(Operation.CANCEL, start, showPartitions
+                .submit(showNumber, () -> applyCancel(ticketNumber, phoneNumber))
+                .thenCompose(this::whenDurable));
+    }
+
+    private void cancel(String ticketNumber, String phoneNumber) {
+        bookingJournal.awaitDurable(applyCancel(ticketNumber, phoneNumber).journalSequence());
+    }
+
+    private Committed<Void> applyCancel(String ticketNumber, String phoneNumber) {
         Booking booking = bookingRepository.findByTicketNumber(ticketNumber);
         if (booking == null || !booking.getPhoneNumber().equals(phoneNumber)) {
             throw new IllegalArgumentException("Booking not found or phone number does not match.");
         }
+        if (booking.isFinalized()) {
+            throw new IllegalArgumentException("Cancellation window has passed.");
+        }
 
-        Show show = showRepository.findByShowNumber(booking.getShowNumber());
-        if (show == null) {
+        if (showRepository.findByShowNumber(booking.getShowNumber()) == null) {
             throw new IllegalArgumentException("Show for this booking not found.");
         }
 
-        // Check cancellation window
-        Instant bookingCreationTime = booking.getBookingCreationTime();
-        Instant cancellationDeadline = bookingCreationTime.plusSeconds(show.getCancelWindowInMinutes() * 60);
+        long journalSequence;
+        Lock lock = lockShow(booking.getShowNumber());
+        try {
+            Show show = showRepository.findByShowNumber(booking.getShowNumber());
+            if (show == null) {
+                throw new IllegalArgumentException("Show for this booking not found.");
+            }
+            bookingJournal.checkWritable();
+            // A concurrent cancel of the same ticket may have won the race.
+            if (bookingRepository.findByTicketNumber(ticketNumber) != booking) {
+                throw new IllegalArgumentException("Booking not found or phone number does not match.");
+            }
+
+            // The finalizer may not have reached a booking whose deadline just passed.
+            if (!Instant.now().isBefore(booking.getCancellationDeadline())) {
+                throw new IllegalArgumentException("Cancellation window has passed.");
+            }
 
-        // Check if the current time is before the cancellation deadline.
-        if (Instant.now().isBefore(cancellationDeadline)) {
-            // Proceed with cancellation
             bookingRepository.delete(ticketNumber);
-            System.out.println("Booking cancelled successfully.");
-        } else {
-            throw new IllegalArgumentException("Cancellation window has passed.");
+            bookingFinalizer.untrack(booking);
+
+            showService.updateShowSeatAvailability(show, booking.getSeats(), true); // For cancellation
+            journalSequence = bookingJournal.appendCancelled(ticketNumber);
+        } finally {
+            lock.unlock();
         }
+        return new Committed<>(null, journalSequence);
+    }
 
-        bookingRepository.delete(ticketNumber);
+    private <T> CompletableFuture<T> whenDurable(Committed<T> committed) {
+        return bookingJournal.whenDurable(committed.journalSequence()).thenApply(durable -> committed.result());
+    }
 
-        showService.updateShowSeatAvailability(show, booking.getSeats(), true); // For cancellation
+    /**
+     * Records the latency and any rejection of an asynchronous call when it completes.
+     */
+    private <T> CompletableFuture<T> instrumented(Operation operation, long start, CompletableFuture<T> future) {
+        return future.whenComplete((result, failure) -> {
+            Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+            if (cause instanceof IllegalArgumentException) {
+                bookingMetrics.rejected(operation, cause.getMessage());
+            }
+            bookingMetrics.record(operation, start);
+        });
+    }
+
+    private static <T> CompletableFuture<T> completed(Supplier<T> call) {
+        try {
+            return CompletableFuture.completedFuture(call.get());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
     }
 
     /**
-     * Generates a unique ticket number using a static atomic counter.
-     *
-     * Example output format: "TK000A1", "TK00CC2", where "TK" is the predefined prefix.
-     *
-     * @return A string representing the uniquely generated ticket number in the format "PREFIX + padded base-36 counter value".
+     * The result of a mutation applied under the show lock, with the journal sequence to wait for.
      */
-    public static String generateTicketNumber() {
-        long counterValue = COUNTER.getAndIncrement();
-        // Convert the counter value to a base-36 string and pad it to ensure 6 characters length
-        String base36 = Long.toString(counterValue, 36).toUpperCase();
-        String padded = String.format("%6s", base36).replace(' ', '0');
-        return PREFIX + padded;
+    private record Committed<T>(T result, long journalSequence) {
     }
-}
 
+    /**
+     * Locks a show, recording how long the lock took to get.
+     */
+    private Lock lockShow(String showNumber) {
+        Lock lock = showLocks.lockFor(showNumber);
+        long start = System.nanoTime();
+        lock.lock();
+        bookingMetrics.recordLockWait(start);
+        return lock;
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.ticketreservation.service;
+
+import com.example.ticketreservation.exception.MisdirectedRequestException;
+import com.example.ticketreservation.model.TicketNumber;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Which node of the cluster owns which show, enabled by listing the nodes in
+ * ticketreservation.cluster.nodes.
+ *
+ * Shows are placed on a consistent-hash ring with a number of virtual points per node, so
+ * shows spread evenly and adding a node only moves about 1/N of them. Every node must be
+ * started with the same list; a node's id (ticketreservation.node-id) is its index in it.
+ * Ticket numbers already carry the id of the node that issued them, which is the node that
+ * owns the show, so a ticket can be routed without looking up its booking.
+ *
+ * When no nodes are listed, the application runs standalone and owns every show.
+ */
+@Component
+public class ClusterTopology {
+
+    private static final int POINTS_PER_NODE = 160;
+
+    private final int nodeId;
+    private final List<String> nodeUrls;
+    // The ring: sorted point hashes, and the node that owns each point.
+    private final long[] points;
+    private final int[] owners;
+
+    /**
+     * @param nodeId The id of this node.
+     * @param nodes The base URLs of all nodes, comma separated and in node id order, e.g.
+     *              "http://localhost:8080,http://localhost:8081". Empty when standalone.
+     */
+    @Autowired
+    public ClusterTopology(@Value("${ticketreservation.node-id:0}") int nodeId,
+                           @Value("${ticketreservation.cluster.nodes:}") String nodes) {
+        List<String> nodeUrls = new ArrayList<>();
+        for (String node : nodes.split(",")) {
+            node = node.trim();
+            if (!node.isEmpty()) {
+                nodeUrls.add(node.endsWith("/") ? node.substring(0, node.length() - 1) : node);
+            }
+        }
+        if (!nodeUrls.isEmpty() && (nodeId < 0 || nodeId >= nodeUrls.size())) {
+            throw new IllegalArgumentException("Node id must be the index of this node in ticketreservation.cluster.nodes.");
+        }
+        this.nodeId = nodeId;
+        this.nodeUrls = List.copyOf(nodeUrls);
+
+        long[][] ring = new long[nodeUrls.size() * POINTS_PER_NODE][];
+        for (int node = 0; node < nodeUrls.size(); node++) {
+            for (int i = 0; i < POINTS_PER_NODE; i++) {
+                ring[node * POINTS_PER_NODE + i] = new long[]{hash("node-" + node + "#" + i), node};
+            }
+        }
+        Arrays.sort(ring, (a, b) -> Long.compare(a[0], b[0]));
+        this.points = new long[ring.length];
+        this.owners = new int[ring.length];
+        for (int i = 0; i < ring.length; i++) {
+            points[i] = ring[i][0];
+            owners[i] = (int) ring[i][1];
+        }
+    }
+
+    /**
+     * @return A topology of a single standalone node, for wiring the services without Spring.
+     */
+    public static ClusterTopology standalone() {
+        return new ClusterTopology(0, "");
+    }
+
+    public boolean isEnabled() {
+        return !nodeUrls.isEmpty();
+    }
+
+    public int getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * @param showNumber The show number.
+     * @return The id of the node that owns the show.
+     */
+    public int ownerOf(String showNumber) {
+        if (!isEnabled()) {
+            return nodeId;
+        }
+        int index = Arrays.binarySearch(points, hash(showNumber));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        // Past the last point, wrap around to the first.
+        return owners[index == points.length ? 0 : index];
+    }
+
+    /**
+     * @param ticketNumber The ticket number.
+     * @return The id of the node that owns the ticket's booking, or this node's id if the
+     *         ticket number is not valid, so that it is rejected locally.
+     */
+    public int ownerOfTicket(String ticketNumber) {
+        long id = TicketNumber.parse(ticketNumber);
+        if (!isEnabled() || id < 0) {
+            return nodeId;
+        }
+        int owner = TicketNumberGenerator.nodeIdOf(id);
+        return owner < nodeUrls.size() ? owner : nodeId;
+    }
+
+    /**
+     * Checks that this node owns a show.
+     *
+     * @param showNumber The show number.
+     * @throws MisdirectedRequestException If another node owns the show.
+     */
+    public void checkOwner(String showNumber) {
+        checkNode(ownerOf(showNumber));
+    }
+
+    /**
+     * Checks that this node owns the booking of a ticket.
+     *
+     * @param ticketNumber The ticket number.
+     * @throws MisdirectedRequestException If another node owns the booking.
+     */
+    public void checkTicketOwner(String ticketNumber) {
+        checkNode(ownerOfTicket(ticketNumber));
+    }
+
+    /**
+     * @param node The id of the node that owns a request.
+     * @throws MisdirectedRequestException If that is not this node.
+     */
+    public void checkNode(int node) {
+        if (node != nodeId) {
+            throw new MisdirectedRequestException(node, nodeUrls.get(node));
+        }
+    }
+
+    // 64-bit FNV-1a, then MurmurHash3's finalizer to spread the bits. Stable across JVMs,
+    // unlike a seeded hash, since all nodes must agree on the ring.
+    private static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
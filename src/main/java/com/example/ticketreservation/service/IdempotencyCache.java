@@ -0,0 +1,161 @@
+package com.example.ticketreservation.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Results of bookings and cancellations by the Idempotency-Key the client sent with them, so
+ * a retried request gets the original outcome instead of being run again.
+ *
+ * A retry is answered with a single map lookup: while the original request is still running
+ * the retry waits for the same result, and afterwards it gets the same ticket number or the
+ * same error. Results expire on the timing wheel a while after they complete. Requests shed
+ * under overload are not kept, so they can be retried for real. When the cache is full, new
+ * keys are run without being remembered rather than evicting keys that may still be retried.
+ */
+@Component
+public class IdempotencyCache {
+
+    public static final String HEADER = "Idempotency-Key";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final TimingWheel timingWheel;
+    private final long ttlMillis;
+    private final int maxEntries;
+
+    /**
+     * @param timingWheel The wheel that expires results.
+     * @param ttlSeconds How long a result is kept after it completes.
+     * @param maxEntries The most results kept, or 0 to ignore idempotency keys.
+     */
+    @Autowired
+    public IdempotencyCache(TimingWheel timingWheel,
+                            @Value("${ticketreservation.idempotency.ttl-seconds:600}") long ttlSeconds,
+                            @Value("${ticketreservation.idempotency.max-entries:100000}") int maxEntries) {
+        if (ttlSeconds < 0 || maxEntries < 0) {
+            throw new IllegalArgumentException("Idempotency TTL and capacity must not be negative.");
+        }
+        this.timingWheel = timingWheel;
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * @return An IdempotencyCache that ignores idempotency keys, for wiring without Spring.
+     */
+    public static IdempotencyCache disabled() {
+        return new IdempotencyCache(null, 0, 0);
+    }
+
+    /**
+     * Runs a request, telling it whether its result is kept for retries.
+     */
+    @FunctionalInterface
+    public interface Action<T> {
+
+        /**
+         * @param remembered Whether a retry with the same key will get this request's result.
+         *                   False without a key, or when the cache is disabled or full.
+         * @return The result of the request.
+         */
+        CompletableFuture<T> run(boolean remembered);
+    }
+
+    /**
+     * Runs a request once per idempotency key.
+     *
+     * @param key The Idempotency-Key header, or null to run the request without deduplication.
+     * @param request A description of the request, e.g. its method and parameters. A key
+     *                cannot be reused for a different request.
+     * @param action Runs the request.
+     * @return The result of the first request with this key.
+     */
+    public <T> CompletableFuture<T> execute(String key, String request, Supplier<CompletableFuture<T>> action) {
+        return execute(key, request, remembered -> action.get());
+    }
+
+    /**
+     * Runs a request once per idempotency key, telling it whether its result is kept.
+     *
+     * @param key The Idempotency-Key header, or null to run the request without deduplication.
+     * @param request A description of the request, e.g. its method and parameters. A key
+     *                cannot be reused for a different request.
+     * @param action Runs the request.
+     * @return The result of the first request with this key.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> execute(String key, String request, Action<T> action) {
+        if (key == null || maxEntries == 0) {
+            return action.run(false);
+        }
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters.");
+        }
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            if (entries.size() >= maxEntries) {
+                return action.run(false);
+            }
+            Entry created = new Entry(request);
+            entry = entries.putIfAbsent(key, created);
+            if (entry == null) {
+                run(key, created, action);
+                return (CompletableFuture<T>) created.result;
+            }
+        }
+        if (!entry.request.equals(request)) {
+            throw new IllegalArgumentException(HEADER + " " + key + " was already used for a different request.");
+        }
+        return (CompletableFuture<T>) entry.result;
+    }
+
+    /**
+     * @return The number of results kept.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private <T> void run(String key, Entry entry, Action<T> action) {
+        CompletableFuture<T> result;
+        try {
+            result = action.run(true);
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        result.whenComplete((value, failure) -> {
+            Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+            if (cause instanceof RejectedExecutionException) {
+                entries.remove(key, entry);
+            } else {
+                timingWheel.schedule(ttlMillis, () -> entries.remove(key, entry));
+            }
+            if (cause == null) {
+                entry.result.complete(value);
+            } else {
+                entry.result.completeExceptionally(cause);
+            }
+        });
+    }
+
+    private static final class Entry {
+
+        private final String request;
+        // Completed with the outcome of the first request, which every retry shares.
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        private Entry(String request) {
+            this.request = request;
+        }
+    }
+}
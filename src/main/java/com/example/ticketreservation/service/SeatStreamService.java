@@ -0,0 +1,239 @@
+package com.example.ticketreservation.service;
+
+import com.example.ticketreservation.model.SeatAvailability;
+import com.example.ticketreservation.model.SeatDelta;
+import com.example.ticketreservation.model.SeatSnapshot;
+import com.example.ticketreservation.model.Show;
+import com.example.ticketreservation.repository.ShowRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streams the seat availability of shows to clients as server-sent events.
+ *
+ * A new subscriber first receives a "snapshot" event with every available seat, then "delta"
+ * events with the seats booked and released since the last event it was sent. Changes are
+ * not queued: a change only marks the show, and then each of its subscribers, as dirty, and a
+ * subscriber's next send diffs the show's latest availability snapshot against the last one
+ * it was sent. A slow subscriber therefore gets fewer, larger deltas and never holds more
+ * than one snapshot, and the booking path never waits for a subscriber.
+ *
+ * Writing an event blocks until the client's connection takes it, so each send runs on its
+ * own virtual thread and a stalled client parks only that thread. A send that takes longer
+ * than the send timeout means the client has fallen behind: it is unsubscribed and its stream
+ * is completed with an error, and the client can reconnect for a fresh snapshot.
+ */
+@Service
+public class SeatStreamService {
+
+    static final long STREAM_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(30);
+
+    private final ShowRepository showRepository;
+    private final TimingWheel timingWheel;
+    private final long sendTimeoutMillis;
+    private final Map<String, ShowStream> streams = new ConcurrentHashMap<>();
+    private final ExecutorService sender = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * @param showRepository The show repository.
+     * @param timingWheel The timing wheel that times sends.
+     * @param sendTimeoutMillis How long one event may take to write before its client is dropped.
+     */
+    @Autowired
+    public SeatStreamService(ShowRepository showRepository, TimingWheel timingWheel,
+                             @Value("${ticketreservation.stream.send-timeout-millis:5000}") long sendTimeoutMillis) {
+        this.showRepository = showRepository;
+        this.timingWheel = timingWheel;
+        this.sendTimeoutMillis = sendTimeoutMillis;
+    }
+
+    @PreDestroy
+    public void stop() {
+        sender.shutdownNow();
+    }
+
+    /**
+     * Subscribes to the seat availability of a show.
+     *
+     * @param showNumber The show number.
+     * @return The event stream.
+     */
+    public SseEmitter subscribe(String showNumber) {
+        if (showRepository.findByShowNumber(showNumber) == null) {
+            throw new IllegalArgumentException("Show not found.");
+        }
+        return subscribe(showNumber, new SseEmitter(STREAM_TIMEOUT_MILLIS));
+    }
+
+    SseEmitter subscribe(String showNumber, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter);
+        ShowStream stream = streams.compute(showNumber, (k, existing) -> {
+            ShowStream showStream = existing == null ? new ShowStream(showNumber) : existing;
+            showStream.subscribers.add(subscriber);
+            return showStream;
+        });
+        emitter.onCompletion(() -> unsubscribe(stream, subscriber));
+        emitter.onTimeout(() -> unsubscribe(stream, subscriber));
+        emitter.onError(e -> unsubscribe(stream, subscriber));
+        subscriber.schedule(stream);
+        return emitter;
+    }
+
+    /**
+     * Tells subscribers of a show that its seats changed. Cheap when nobody is subscribed, and
+     * otherwise a single flag update per show no matter how many clients are subscribed.
+     *
+     * @param showNumber The show number.
+     */
+    public void seatsChanged(String showNumber) {
+        ShowStream stream = streams.get(showNumber);
+        if (stream != null && stream.fanOutScheduled.compareAndSet(false, true)) {
+            execute(stream::fanOut);
+        }
+    }
+
+    private void unsubscribe(ShowStream stream, Subscriber subscriber) {
+        streams.computeIfPresent(stream.showNumber, (k, existing) -> {
+            existing.subscribers.remove(subscriber);
+            return existing.subscribers.isEmpty() ? null : existing;
+        });
+    }
+
+    private void execute(Runnable task) {
+        try {
+            sender.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Shutting down.
+        }
+    }
+
+    /**
+     * The subscribers of one show.
+     */
+    private final class ShowStream {
+
+        final String showNumber;
+        final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+        final AtomicBoolean fanOutScheduled = new AtomicBoolean();
+
+        ShowStream(String showNumber) {
+            this.showNumber = showNumber;
+        }
+
+        void fanOut() {
+            fanOutScheduled.set(false);
+            for (Subscriber subscriber : subscribers) {
+                subscriber.schedule(this);
+            }
+        }
+    }
+
+    /**
+     * One client. At most one send per subscriber is queued or running at a time; a change
+     * that arrives during a send triggers one more send afterwards.
+     */
+    private final class Subscriber {
+
+        private static final int IDLE = 0;
+        private static final int SCHEDULED = 1;
+        private static final int SENDING = 2;
+        private static final int SENDING_DIRTY = 3;
+
+        final SseEmitter emitter;
+        final AtomicInteger state = new AtomicInteger(IDLE);
+        final AtomicBoolean dropped = new AtomicBoolean();
+        // Only touched by the send in progress.
+        SeatAvailability lastSent;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void schedule(ShowStream stream) {
+            while (!dropped.get()) {
+                int current = state.get();
+                if (current == IDLE && state.compareAndSet(IDLE, SCHEDULED)) {
+                    execute(() -> send(stream));
+                    return;
+                }
+                if (current == SENDING && state.compareAndSet(SENDING, SENDING_DIRTY)) {
+                    return;
+                }
+                if (current == SCHEDULED || current == SENDING_DIRTY) {
+                    return;
+                }
+            }
+        }
+
+        void send(ShowStream stream) {
+            state.set(SENDING);
+            Show show = showRepository.findByShowNumber(stream.showNumber);
+            if (show == null) {
+                emitter.complete();
+                return;
+            }
+            SeatAvailability current = show.getSeats().snapshot();
+            TimingWheel.Timeout deadline = timingWheel.schedule(sendTimeoutMillis, () -> fallBehind(stream));
+            try {
+                if (lastSent == null || !current.isSameSeatMap(lastSent)) {
+                    emitter.send(SseEmitter.event()
+                            .name("snapshot")
+                            .id(Long.toString(current.getVersion()))
+                            .data(new SeatSnapshot(current.getVersion(), current.availableSeats()), MediaType.APPLICATION_JSON));
+                } else if (current.getVersion() != lastSent.getVersion()) {
+                    List<String> taken = current.seatsTakenSince(lastSent);
+                    List<String> freed = current.seatsFreedSince(lastSent);
+                    // A seat booked and released again since the last send is no change at all.
+                    if (!taken.isEmpty() || !freed.isEmpty()) {
+                        emitter.send(SseEmitter.event()
+                                .name("delta")
+                                .id(Long.toString(current.getVersion()))
+                                .data(new SeatDelta(current.getVersion(), taken, freed), MediaType.APPLICATION_JSON));
+                    }
+                }
+                lastSent = current;
+            } catch (IOException | IllegalStateException e) {
+                // The client went away; the emitter's callbacks unsubscribe it.
+                unsubscribe(stream, this);
+                return;
+            } finally {
+                deadline.cancel();
+            }
+
+            if (!state.compareAndSet(SENDING, IDLE) && !dropped.get()) {
+                // Seats changed while sending.
+                state.set(SCHEDULED);
+                execute(() -> send(stream));
+            }
+        }
+
+        /**
+         * Drops a client whose send took too long. Runs on the timing wheel, so completing the
+         * emitter, which waits for the stalled send, is left to a sender thread.
+         */
+        void fallBehind(ShowStream stream) {
+            if (dropped.compareAndSet(false, true)) {
+                unsubscribe(stream, this);
+                execute(() -> emitter.completeWithError(
+                        new TimeoutException("Seat stream send took over " + sendTimeoutMillis + " ms.")));
+            }
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.ticketreservation.service;
+
+import com.example.ticketreservation.model.SeatLayout;
+import com.example.ticketreservation.model.Show;
+import com.example.ticketreservation.model.ShowImportError;
+import com.example.ticketreservation.model.ShowImportReport;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Configures many shows from a CSV or NDJSON file, for setting up a season at once.
+ *
+ * The file is read a batch of rows at a time, so an import of any size takes the memory of
+ * one batch. The rows of a batch are parsed and their seat maps built in parallel, then the
+ * shows are configured together with {@link ShowService#configureShows}, which waits for the
+ * journal once per batch instead of once per show. A row that cannot be imported is reported
+ * with its line number and does not stop the rest of the file.
+ *
+ * CSV rows are showNumber,numberOfRows,seatsPerRow,cancelWindowInMinutes, with an optional
+ * header line. NDJSON rows are the JSON bodies POST /api/setup accepts, one per line, so they
+ * can describe sectioned shows too.
+ */
+@Service
+public class ShowImporter {
+
+    public static final String CSV_MEDIA_TYPE = "text/csv";
+    public static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+    static final int BATCH_SIZE = 1024;
+    static final int MAX_REPORTED_ERRORS = 1000;
+    private static final String CSV_COLUMNS = "showNumber,numberOfRows,seatsPerRow,cancelWindowInMinutes";
+
+    /**
+     * The formats an import file can be in.
+     */
+    public enum Format {
+        CSV, NDJSON;
+
+        /**
+         * @param contentType The Content-Type of an import request.
+         * @return The format of the request body.
+         */
+        public static Format forContentType(String contentType) {
+            String mediaType = contentType == null ? "" : contentType.split(";")[0].trim().toLowerCase();
+            switch (mediaType) {
+                case CSV_MEDIA_TYPE:
+                    return CSV;
+                case NDJSON_MEDIA_TYPE:
+                    return NDJSON;
+                default:
+                    throw new IllegalArgumentException("Show imports must be " + CSV_MEDIA_TYPE + " or " + NDJSON_MEDIA_TYPE + ".");
+            }
+        }
+
+        /**
+         * @param fileName The name of an import file.
+         * @return The format of the file, by its extension.
+         */
+        public static Format forFileName(String fileName) {
+            String name = fileName.toLowerCase();
+            if (name.endsWith(".csv")) {
+                return CSV;
+            }
+            if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+                return NDJSON;
+            }
+            throw new IllegalArgumentException("Show import files must end in .csv, .ndjson or .jsonl.");
+        }
+    }
+
+    private final ShowService showService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * @param showService The service that configures the shows.
+     * @param objectMapper Reads NDJSON rows the same way POST /api/setup reads its body.
+     */
+    @Autowired
+    public ShowImporter(ShowService showService, ObjectMapper objectMapper) {
+        this.showService = showService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Configures the shows of an import file. Blank lines are skipped.
+     *
+     * @param reader The file.
+     * @param format The format of the file.
+     * @return How many shows were configured, and the first rows that were not.
+     * @throws IOException If the file cannot be read. Shows of the batches read before stay configured.
+     */
+    public ShowImportReport importShows(Reader reader, Format format) throws IOException {
+        BufferedReader lines = new BufferedReader(reader, 1 << 16);
+        ShowImportReport report = new ShowImportReport();
+        List<String> batch = new ArrayList<>(BATCH_SIZE);
+        long[] lineNumbers = new long[BATCH_SIZE];
+        long lineNumber = 0;
+        String line;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || (format == Format.CSV && lineNumber == 1 && isCsvHeader(line))) {
+                continue;
+            }
+            lineNumbers[batch.size()] = lineNumber;
+            batch.add(line);
+            if (batch.size() == BATCH_SIZE) {
+                importBatch(batch, lineNumbers, format, report);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            importBatch(batch, lineNumbers, format, report);
+        }
+        return report;
+    }
+
+    private void importBatch(List<String> batch, long[] lineNumbers, Format format, ShowImportReport report) {
+        Row[] rows = new Row[batch.size()];
+        // Building the seat maps is most of the work of configuring a show, so it is spread over the cores.
+        IntStream.range(0, rows.length).parallel().forEach(i -> rows[i] = parse(batch.get(i), format));
+
+        List<Show> shows = new ArrayList<>(rows.length);
+        for (Row row : rows) {
+            if (row.show() != null) {
+                shows.add(row.show());
+            }
+        }
+        List<String> errors = showService.configureShows(shows);
+
+        int configured = 0;
+        for (int i = 0; i < rows.length; i++) {
+            String error = rows[i].show() == null ? rows[i].error() : errors.get(configured++);
+            if (error == null) {
+                report.setImported(report.getImported() + 1);
+                continue;
+            }
+            report.setFailed(report.getFailed() + 1);
+            if (report.getErrors().size() < MAX_REPORTED_ERRORS) {
+                report.getErrors().add(new ShowImportError(lineNumbers[i], rows[i].showNumber(), error));
+            }
+        }
+    }
+
+    private Row parse(String line, Format format) {
+        String showNumber = null;
+        try {
+            Show show;
+            if (format == Format.CSV) {
+                String[] columns = line.split(",", -1);
+                if (columns.length != 4) {
+                    return new Row(null, null, "Expected " + CSV_COLUMNS + ".");
+                }
+                showNumber = columns[0].trim();
+                show = newShow(showNumber, SeatLayout.of(Integer.parseInt(columns[1].trim()),
+                        Integer.parseInt(columns[2].trim())), Integer.parseInt(columns[3].trim()));
+            } else {
+                Show request = objectMapper.readValue(line, Show.class);
+                showNumber = request.getShowNumber();
+                show = newShow(showNumber, request.layout(), request.getCancelWindowInMinutes());
+            }
+            return new Row(showNumber, show, null);
+        } catch (NumberFormatException e) {
+            return new Row(showNumber, null, "numberOfRows, seatsPerRow and cancelWindowInMinutes must be whole numbers.");
+        } catch (JsonProcessingException e) {
+            return new Row(null, null, "Invalid JSON: " + e.getOriginalMessage());
+        } catch (RuntimeException e) {
+            return new Row(showNumber, null, e.getMessage());
+        }
+    }
+
+    private static Show newShow(String showNumber, SeatLayout layout, int cancelWindowInMinutes) {
+        if (showNumber == null || showNumber.isBlank()) {
+            throw new IllegalArgumentException("Show number is required.");
+        }
+        return new Show(showNumber, layout, cancelWindowInMinutes);
+    }
+
+    private static boolean isCsvHeader(String line) {
+        return line.trim().toLowerCase().startsWith("shownumber");
+    }
+
+    /**
+     * A parsed row: the show to configure, or the reason it cannot be.
+     */
+    private record Row(String showNumber, Show show, String error) {
+    }
+}
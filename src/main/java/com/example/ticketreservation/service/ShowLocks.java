@@ -0,0 +1,92 @@
+package com.example.ticketreservation.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped locks that serialize mutations of a show.
+ *
+ * Every show number hashes to one lock stripe, so bookings and cancellations on the
+ * same show run one at a time while different shows mostly proceed in parallel.
+ * A single stripe degenerates to one global lock. The stripes are ReentrantLocks rather
+ * than monitors, so a virtual thread waiting for a show does not pin its carrier thread.
+ */
+@Component
+public class ShowLocks {
+
+    static final int DEFAULT_STRIPES = 256;
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    public ShowLocks() {
+        this(DEFAULT_STRIPES);
+    }
+
+    /**
+     * Creates the lock stripes.
+     *
+     * @param stripes The number of stripes, rounded up to a power of two.
+     */
+    public ShowLocks(int stripes) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("Number of lock stripes must be positive.");
+        }
+        int size = Integer.highestOneBit(stripes);
+        if (size < stripes) {
+            size <<= 1;
+        }
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Returns the lock guarding a show.
+     *
+     * @param showNumber The show number.
+     * @return The lock stripe for the show.
+     */
+    public ReentrantLock lockFor(String showNumber) {
+        return stripes[stripeOf(showNumber)];
+    }
+
+    /**
+     * Returns the stripe index a show hashes to.
+     *
+     * @param showNumber The show number.
+     * @return The stripe index.
+     */
+    public int stripeOf(String showNumber) {
+        int h = showNumber.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * Acquires every stripe, in index order, to stop all show mutations.
+     */
+    public void lockAll() {
+        for (ReentrantLock stripe : stripes) {
+            stripe.lock();
+        }
+    }
+
+    /**
+     * Releases every stripe acquired by {@link #lockAll()}.
+     */
+    public void unlockAll() {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            stripes[i].unlock();
+        }
+    }
+
+    /**
+     * @return The number of lock stripes.
+     */
+    public int size() {
+        return stripes.length;
+    }
+}
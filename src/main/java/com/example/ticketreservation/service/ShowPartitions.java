@@ -0,0 +1,265 @@
+package com.example.ticketreservation.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Optional single-writer execution of show mutations, enabled with ticketreservation.event-loop.enabled.
+ *
+ * Shows are hash-partitioned across a fixed number of event loops, each a single thread
+ * draining a bounded lock-free queue. Every mutation submitted for a show runs on the show's
+ * loop, one after another, so request threads never wait for each other on a hot show: they
+ * enqueue and get a CompletableFuture back. The tasks still take the show lock, so they stay
+ * safe against mutations that are not routed through a loop.
+ *
+ * Those mutations (holds, hold expiry, best-available and batch bookings, the CLI) and the
+ * journal snapshot, which takes every stripe, share the show lock stripes with the loops. A
+ * loop task that finds its stripe held blocks the loop, and every show of its partition waits
+ * until the holder is done. Holders only keep the lock for in-memory work, so a stall lasts
+ * about one such mutation, or a segment rotation for a snapshot. Lock waits on loop threads
+ * are recorded as ticketreservation.loop.stall.
+ *
+ * When disabled, no threads are started and callers run their mutations directly.
+ */
+@Component
+public class ShowPartitions {
+
+    // Busy-polls before parking, so back-to-back requests do not pay for a wake-up.
+    private static final int SPINS_BEFORE_PARK = 1000;
+
+    private final EventLoop[] loops;
+
+    /**
+     * @param enabled Whether to run mutations on event loops.
+     * @param partitions The number of event loops, or 0 for one per available processor.
+     * @param queueCapacity The most tasks that can wait on one loop, rounded up to a power of two.
+     */
+    @Autowired
+    public ShowPartitions(@Value("${ticketreservation.event-loop.enabled:false}") boolean enabled,
+                          @Value("${ticketreservation.event-loop.partitions:0}") int partitions,
+                          @Value("${ticketreservation.event-loop.queue-capacity:65536}") int queueCapacity) {
+        if (!enabled) {
+            this.loops = null;
+            return;
+        }
+        if (partitions < 0 || queueCapacity < 1) {
+            throw new IllegalArgumentException("Partitions must not be negative and queue capacity must be positive.");
+        }
+        int count = partitions == 0 ? Runtime.getRuntime().availableProcessors() : partitions;
+        this.loops = new EventLoop[count];
+        for (int i = 0; i < count; i++) {
+            loops[i] = new EventLoop(i, queueCapacity);
+        }
+    }
+
+    /**
+     * @return A ShowPartitions that is disabled, for wiring the services without Spring.
+     */
+    public static ShowPartitions disabled() {
+        return new ShowPartitions(false, 0, 1);
+    }
+
+    public boolean isEnabled() {
+        return loops != null;
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (loops == null) {
+            return;
+        }
+        for (EventLoop loop : loops) {
+            loop.running = false;
+            LockSupport.unpark(loop.thread);
+        }
+        for (EventLoop loop : loops) {
+            loop.thread.join();
+        }
+    }
+
+    /**
+     * @return true if the calling thread is an event loop.
+     */
+    static boolean onEventLoop() {
+        return Thread.currentThread() instanceof LoopThread;
+    }
+
+    /**
+     * Runs a task on the event loop that owns a show.
+     *
+     * @param showNumber The show the task mutates.
+     * @param task The task. Must not block, since it holds up every show of its partition.
+     * @return A future with the task's result, or its exception. Fails with a
+     *         RejectedExecutionException if the loop's queue is full.
+     */
+    public <T> CompletableFuture<T> submit(String showNumber, Supplier<T> task) {
+        if (loops == null) {
+            throw new IllegalStateException("Event loops are disabled.");
+        }
+        Task<T> submitted = new Task<>(task);
+        EventLoop loop = loops[Math.floorMod(showNumber == null ? 0 : showNumber.hashCode(), loops.length)];
+        if (!loop.running) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Shutting down."));
+        }
+        if (!loop.queue.offer(submitted)) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Too many pending requests for this show."));
+        }
+        if (loop.parked) {
+            LockSupport.unpark(loop.thread);
+        }
+        return submitted.future;
+    }
+
+    private static final class Task<T> implements Runnable {
+
+        final Supplier<T> supplier;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+
+        Task(Supplier<T> supplier) {
+            this.supplier = supplier;
+        }
+
+        @Override
+        public void run() {
+            T result;
+            try {
+                result = supplier.get();
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+                return;
+            }
+            future.complete(result);
+        }
+    }
+
+    private static final class EventLoop {
+
+        final BoundedQueue<Task<?>> queue;
+        final Thread thread;
+        volatile boolean running = true;
+        volatile boolean parked;
+
+        EventLoop(int index, int queueCapacity) {
+            this.queue = new BoundedQueue<>(queueCapacity);
+            this.thread = new LoopThread(this::run, "show-event-loop-" + index);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        private void run() {
+            int idle = 0;
+            while (running) {
+                Task<?> task = queue.poll();
+                if (task != null) {
+                    task.run();
+                    idle = 0;
+                } else if (++idle < SPINS_BEFORE_PARK) {
+                    Thread.onSpinWait();
+                } else {
+                    // Publish parked before the last check, so a producer either sees it or we see its task.
+                    parked = true;
+                    if (queue.isEmpty() && running) {
+                        LockSupport.park(this);
+                    }
+                    parked = false;
+                    idle = 0;
+                }
+            }
+            // Fail what is left rather than leave callers waiting forever.
+            Task<?> task;
+            while ((task = queue.poll()) != null) {
+                task.future.completeExceptionally(new RejectedExecutionException("Shutting down."));
+            }
+        }
+    }
+
+    private static final class LoopThread extends Thread {
+
+        LoopThread(Runnable run, String name) {
+            super(run, name);
+        }
+    }
+
+    /**
+     * Bounded multi-producer single-consumer queue over a ring buffer. Each slot carries a
+     * sequence number that says whether it is free for the producer of a given position or
+     * filled for the consumer, so producers only contend on one CAS and never lock.
+     */
+    static final class BoundedQueue<E> {
+
+        private final AtomicReferenceArray<E> slots;
+        private final AtomicLongArray sequences;
+        private final int mask;
+        private final AtomicLong tail = new AtomicLong();
+        // Only read and written by the consumer.
+        private long head;
+
+        BoundedQueue(int capacity) {
+            int size = Integer.highestOneBit(capacity);
+            if (size < capacity) {
+                size <<= 1;
+            }
+            this.slots = new AtomicReferenceArray<>(size);
+            this.sequences = new AtomicLongArray(size);
+            this.mask = size - 1;
+            for (int i = 0; i < size; i++) {
+                sequences.set(i, i);
+            }
+        }
+
+        /**
+         * @return false if the queue is full.
+         */
+        boolean offer(E element) {
+            long position = tail.get();
+            while (true) {
+                int index = (int) (position & mask);
+                long difference = sequences.get(index) - position;
+                if (difference == 0) {
+                    if (tail.compareAndSet(position, position + 1)) {
+                        slots.lazySet(index, element);
+                        sequences.set(index, position + 1);
+                        return true;
+                    }
+                    position = tail.get();
+                } else if (difference < 0) {
+                    return false;
+                } else {
+                    position = tail.get();
+                }
+            }
+        }
+
+        /**
+         * @return The oldest element, or null if the queue is empty. Consumer thread only.
+         */
+        E poll() {
+            int index = (int) (head & mask);
+            if (sequences.get(index) != head + 1) {
+                return null;
+            }
+            E element = slots.get(index);
+            slots.lazySet(index, null);
+            sequences.set(index, head + mask + 1);
+            head++;
+            return element;
+        }
+
+        /**
+         * @return true if the queue has no element ready. Consumer thread only.
+         */
+        boolean isEmpty() {
+            return sequences.get((int) (head & mask)) != head + 1;
+        }
+    }
+}
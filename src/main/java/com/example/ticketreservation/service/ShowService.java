@@ -1,14 +1,22 @@
 package com.example.ticketreservation.service;
 
+import com.example.ticketreservation.journal.BookingJournal;
 import com.example.ticketreservation.model.Booking;
+import com.example.ticketreservation.model.SeatAvailability;
+import com.example.ticketreservation.model.SeatHold;
+import com.example.ticketreservation.model.SeatLayout;
 import com.example.ticketreservation.model.Show;
+import com.example.ticketreservation.model.ShowDetailsPage;
 import com.example.ticketreservation.repository.BookingRepository;
 import com.example.ticketreservation.repository.ShowRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Lock;
 import java.util.stream.Collectors;
 
 /**
@@ -17,13 +25,30 @@ import java.util.stream.Collectors;
 @Service
 public class ShowService {
 
+    public static final int MAX_PAGE_SIZE = 10_000;
+
     private final BookingRepository bookingRepository;
     private final ShowRepository showRepository;
+    private final ShowLocks showLocks;
+    private final BookingJournal bookingJournal;
+    private final SeatStreamService seatStreamService;
+    private final BookingMetrics bookingMetrics;
+    private final ShowPartitions showPartitions;
+    private final ClusterTopology clusterTopology;
 
     @Autowired
-    public ShowService(ShowRepository showRepository, BookingRepository bookingRepository) {
+    public ShowService(ShowRepository showRepository, BookingRepository bookingRepository, ShowLocks showLocks,
+                       BookingJournal bookingJournal, SeatStreamService seatStreamService,
+                       BookingMetrics bookingMetrics, ShowPartitions showPartitions,
+                       ClusterTopology clusterTopology) {
         this.showRepository = showRepository;
         this.bookingRepository = bookingRepository;
+        this.showLocks = showLocks;
+        this.bookingJournal = bookingJournal;
+        this.seatStreamService = seatStreamService;
+        this.bookingMetrics = bookingMetrics;
+        this.showPartitions = showPartitions;
+        this.clusterTopology = clusterTopology;
     }
 
     /**
@@ -35,11 +60,101 @@ public class ShowService {
      * @param cancelWindowInMinutes The window in minutes in which a booking can be cancelled.
      */
     public void configureShow(String showNumber, int numberOfRows, int seatsPerRow, int cancelWindowInMinutes) {
-        if (numberOfRows > 26 || seatsPerRow > 10) {
-            throw new IllegalArgumentException("Number of rows cannot exceed 26 and seats per row cannot exceed 10.");
+        configureShow(showNumber, SeatLayout.of(numberOfRows, seatsPerRow), cancelWindowInMinutes);
+    }
+
+    /**
+     * Configures a new show with any seat layout, including a sectioned one. An existing show
+     * can be configured again, with a fresh seat map, only while it has no bookings or holds.
+     *
+     * @param showNumber The unique identifier for the show.
+     * @param layout The seat layout of the show.
+     * @param cancelWindowInMinutes The window in minutes in which a booking can be cancelled.
+     */
+    public void configureShow(String showNumber, SeatLayout layout, int cancelWindowInMinutes) {
+        bookingJournal.awaitDurable(applyConfigureShow(showNumber, layout, cancelWindowInMinutes));
+    }
+
+    /**
+     * Configures a new show without blocking. With event loops enabled the show is configured
+     * on its loop and the future completes once it is journaled; otherwise this configures the
+     * show on the calling thread like {@link #configureShow}.
+     *
+     * @param showNumber The unique identifier for the show.
+     * @param layout The seat layout of the show.
+     * @param cancelWindowInMinutes The window in minutes in which a booking can be cancelled.
+     * @return A future that completes when the show is configured, or with the reason it was not.
+     */
+    public CompletableFuture<Void> configureShowAsync(String showNumber, SeatLayout layout, int cancelWindowInMinutes) {
+        if (!showPartitions.isEnabled()) {
+            try {
+                configureShow(showNumber, layout, cancelWindowInMinutes);
+                return CompletableFuture.completedFuture(null);
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
         }
-        Show show = new Show(showNumber, numberOfRows, seatsPerRow, cancelWindowInMinutes);
-        showRepository.save(show);
+        return showPartitions
+                .submit(showNumber, () -> applyConfigureShow(showNumber, layout, cancelWindowInMinutes))
+                .thenCompose(bookingJournal::whenDurable);
+    }
+
+    /**
+     * Configures a batch of shows, for bulk imports. Each show is configured like
+     * {@link #configureShow}, but the batch waits for the journal only once, and a show that
+     * cannot be configured does not stop the others.
+     *
+     * @param shows The shows to configure, already built with their seat maps.
+     * @return The reason each show was not configured, in order, or null for each show that was.
+     */
+    public List<String> configureShows(List<Show> shows) {
+        String[] errors = new String[shows.size()];
+        long journalSequence = 0;
+        for (int i = 0; i < errors.length; i++) {
+            Show show = shows.get(i);
+            try {
+                clusterTopology.checkOwner(show.getShowNumber());
+                journalSequence = Math.max(journalSequence, applyConfigureShow(show));
+            } catch (RuntimeException e) {
+                errors[i] = e.getMessage();
+            }
+        }
+        bookingJournal.awaitDurable(journalSequence);
+        return Arrays.asList(errors);
+    }
+
+    /**
+     * @return The journal sequence to wait for before the show counts as configured.
+     */
+    private long applyConfigureShow(String showNumber, SeatLayout layout, int cancelWindowInMinutes) {
+        clusterTopology.checkOwner(showNumber);
+        return applyConfigureShow(new Show(showNumber, layout, cancelWindowInMinutes));
+    }
+
+    private long applyConfigureShow(Show show) {
+        String showNumber = show.getShowNumber();
+        long journalSequence;
+        Lock lock = showLocks.lockFor(showNumber);
+        long start = System.nanoTime();
+        lock.lock();
+        bookingMetrics.recordLockWait(start);
+        try {
+            bookingJournal.checkWritable();
+            // Bookings and holds are seats on the old seat map, which the new one would not know of.
+            Show existing = showRepository.findByShowNumber(showNumber);
+            if (existing != null && (!existing.getHolds().isEmpty()
+                    || bookingRepository.countByShowNumber(showNumber) > 0)) {
+                throw new IllegalArgumentException(
+                        "Show " + showNumber + " has bookings or holds and cannot be configured again.");
+            }
+            showRepository.save(show);
+            journalSequence = bookingJournal.appendShowConfigured(show);
+        } finally {
+            lock.unlock();
+        }
+        seatStreamService.seatsChanged(showNumber);
+        bookingMetrics.showConfigured(showNumber);
+        return journalSequence;
     }
 
     /**
@@ -52,17 +167,93 @@ public class ShowService {
     public void updateShowSeatAvailability(Show show, List<String> seats, boolean available) {
         show.updateSeatAvailability(seats, available);
         showRepository.save(show);
+        seatStreamService.seatsChanged(show.getShowNumber());
+    }
+
+    /**
+     * Updates the availability of seats for a show, given as seat ordinals.
+     *
+     * @param show The show to update.
+     * @param seatOrdinals The seat ordinals to update.
+     * @param available The new availability status for the seats.
+     */
+    public void updateShowSeatAvailability(Show show, int[] seatOrdinals, boolean available) {
+        show.updateSeatAvailability(seatOrdinals, available);
+        showRepository.save(show);
+        seatStreamService.seatsChanged(show.getShowNumber());
+    }
+
+    /**
+     * Holds seats on a show for a buyer.
+     *
+     * @param show The show to update.
+     * @param hold The hold.
+     * @param seatOrdinals The ordinals of the held seats.
+     */
+    public void holdSeats(Show show, SeatHold hold, int[] seatOrdinals) {
+        show.hold(hold, seatOrdinals);
+        seatStreamService.seatsChanged(show.getShowNumber());
+    }
+
+    /**
+     * Drops a hold, making its seats available again.
+     *
+     * @param show The show to update.
+     * @param hold The hold.
+     */
+    public void releaseHold(Show show, SeatHold hold) {
+        show.releaseHold(hold);
+        seatStreamService.seatsChanged(show.getShowNumber());
+    }
+
+    /**
+     * Drops a hold and books its seats.
+     *
+     * @param show The show to update.
+     * @param hold The hold.
+     */
+    public void confirmHold(Show show, SeatHold hold) {
+        show.confirmHold(hold);
+        seatStreamService.seatsChanged(show.getShowNumber());
+    }
+
+    /**
+     * Returns a version of a show's details that changes whenever displayShowDetails would
+     * return something different: on every booking, cancellation, hold or reconfiguration of
+     * the show, and whenever one of its bookings becomes final.
+     *
+     * @param showNumber The show number.
+     * @return The version, as an opaque string.
+     */
+    public String showDetailsVersion(String showNumber) {
+        Show show = showRepository.findByShowNumber(showNumber);
+        if (show == null) {
+            throw new IllegalArgumentException("Show number " + showNumber + " not found.");
+        }
+
+        SeatAvailability availability = show.getSeats().snapshot();
+        return Long.toHexString(availability.getEpoch()) + "-" + availability.getVersion()
+                + "-" + bookingRepository.countFinalByShowNumber(showNumber);
     }
 
     /**
      * Displays detailed information for a specific show, including show number,
      * and for each booking on that show: the ticket number, buyer phone number,
-     * and the seats allocated to the buyer.
+     * and the seats allocated to the buyer. For large shows, use showDetailsPage.
      *
      * @param showNumber The show number for which detailed information is requested.
      *
      */
     public List<String> displayShowDetails(String showNumber) {
+        long start = System.nanoTime();
+        try {
+            return showDetails(showNumber);
+        } finally {
+            bookingMetrics.record(BookingMetrics.Operation.SHOW_DETAILS, start);
+        }
+    }
+
+    private List<String> showDetails(String showNumber) {
         List<String> details = new ArrayList<>();
 
         Show show = showRepository.findByShowNumber(showNumber);
@@ -74,9 +265,9 @@ public class ShowService {
 
         List<Booking> bookings = new ArrayList<>(bookingRepository.findByShowNumber(showNumber));
 
-        if (bookings.isEmpty()) {
-            throw new IllegalArgumentException("No bookings found for show " + showNumber);
-        }
+        int finalBookings = bookingRepository.countFinalByShowNumber(showNumber);
+        details.add("Cancellable Bookings: " + (bookingRepository.countByShowNumber(showNumber) - finalBookings)
+                + ", Final Bookings: " + finalBookings);
 
         bookings.forEach(booking -> details.add("Ticket Number: " + booking.getTicketNumber() +
                 ", Phone Number: " + booking.getPhoneNumber() +
@@ -85,6 +276,29 @@ public class ShowService {
         return details;
     }
 
+    /**
+     * Returns one page of a show's details, whose bookings are read as the page is iterated.
+     * Pages follow each other in ticket order; a full page may be followed by another.
+     *
+     * @param showNumber The show number for which detailed information is requested.
+     * @param afterTicketNumber The last ticket number of the previous page, or null for the first page.
+     * @param limit The most bookings on the page, up to MAX_PAGE_SIZE.
+     * @return The page.
+     */
+    public ShowDetailsPage showDetailsPage(String showNumber, String afterTicketNumber, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+        Show show = showRepository.findByShowNumber(showNumber);
+        if (show == null) {
+            throw new IllegalArgumentException("Show number " + showNumber + " not found.");
+        }
+
+        int finalBookings = bookingRepository.countFinalByShowNumber(showNumber);
+        return new ShowDetailsPage(showNumber, bookingRepository.countByShowNumber(showNumber) - finalBookings,
+                finalBookings, limit, bookingRepository.findByShowNumberAfter(showNumber, afterTicketNumber));
+    }
+
     /**
      * Retrieves show details by show number.
      *
@@ -95,5 +309,19 @@ public class ShowService {
         return showRepository.findByShowNumber(showNumber);
     }
 
+    /**
+     * Retrieves the seat layout of a show, for clients that draw its seat map.
+     *
+     * @param showNumber The show number.
+     * @return The seat layout.
+     */
+    public SeatLayout getShowLayout(String showNumber) {
+        Show show = showRepository.findByShowNumber(showNumber);
+        if (show == null) {
+            throw new IllegalArgumentException("Show number " + showNumber + " not found.");
+        }
+        return show.getSeats().getLayout();
+    }
+
 }
 
@@ -0,0 +1,105 @@
+package com.example.ticketreservation.service;
+
+import com.example.ticketreservation.model.TicketNumber;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates ticket numbers that are unique across nodes and restarts without coordination.
+ *
+ * A ticket id is snowflake-style: milliseconds since 2024-01-01 (41 bits), the node id
+ * (10 bits) and a sequence within the millisecond (12 bits). Ids from different nodes never
+ * collide as long as every node has its own id. Ids from one node keep increasing across
+ * restarts as long as the clock does not go back by more than the downtime, and the journal
+ * recovery moves the generator past every recovered ticket in any case. When more than 4096
+ * ids are needed in one millisecond the generator borrows from the next one rather than waiting.
+ */
+@Component
+public class TicketNumberGenerator {
+
+    static final long EPOCH_MILLIS = 1704067200000L; // 2024-01-01T00:00:00Z
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final int nodeId;
+    // (milliseconds since the epoch << SEQUENCE_BITS) | sequence, of the last id handed out.
+    private final AtomicLong last = new AtomicLong();
+
+    public TicketNumberGenerator() {
+        this(0);
+    }
+
+    /**
+     * @param nodeId The id of this node, unique within the cluster.
+     */
+    @Autowired
+    public TicketNumberGenerator(@Value("${ticketreservation.node-id:0}") int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ".");
+        }
+        this.nodeId = nodeId;
+    }
+
+    public int getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * @return A new unique ticket number.
+     */
+    public String next() {
+        return TicketNumber.format(nextId());
+    }
+
+    /**
+     * @return A new hold id, unique across nodes like ticket numbers.
+     */
+    public String nextHoldId() {
+        return TicketNumber.formatHoldId(nextId());
+    }
+
+    /**
+     * @return A new unique ticket id.
+     */
+    public long nextId() {
+        long floor = (System.currentTimeMillis() - EPOCH_MILLIS) << SEQUENCE_BITS;
+        // Uncontended fast path: one atomic add. Only when the clock has moved past the last
+        // id does it take a CAS loop to jump ahead.
+        long state = last.incrementAndGet();
+        if (state < floor) {
+            state = last.accumulateAndGet(floor, (previous, next) -> Math.max(previous + 1, next));
+        }
+        return (state >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS)
+                | (long) nodeId << SEQUENCE_BITS
+                | (state & SEQUENCE_MASK);
+    }
+
+    /**
+     * Moves the generator past a ticket number issued before a restart, so new ticket
+     * numbers never collide with it even if the clock went back.
+     *
+     * @param ticketNumber A ticket number restored from the booking journal.
+     */
+    public void advancePast(String ticketNumber) {
+        long id = TicketNumber.parse(ticketNumber);
+        if (id < 0 || nodeIdOf(id) != nodeId) {
+            // Not one of ours; it cannot collide with generated numbers.
+            return;
+        }
+        long state = (id >>> (NODE_BITS + SEQUENCE_BITS)) << SEQUENCE_BITS | (id & SEQUENCE_MASK);
+        last.accumulateAndGet(state, Math::max);
+    }
+
+    /**
+     * @param id A ticket id.
+     * @return The id of the node that generated it.
+     */
+    public static int nodeIdOf(long id) {
+        return (int) (id >>> SEQUENCE_BITS) & MAX_NODE_ID;
+    }
+}
@@ -0,0 +1,285 @@
+package com.example.ticketreservation.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hashed timing wheel that runs tasks after a delay, used to expire seat holds and to
+ * finalize bookings once their cancellation window closes.
+ *
+ * Scheduling and cancelling are O(1) for the caller: the task goes onto a lock-free queue
+ * and the wheel thread later links it into the bucket for its deadline tick, or unlinks it
+ * again when it is cancelled. Tasks due more than one revolution ahead, such as bookings
+ * finalized at the end of a long cancellation window, wait in an overflow heap ordered by
+ * deadline instead, which costs the wheel thread O(log n) per task, and enter their bucket
+ * once they are due within a revolution. So each tick only visits the tasks due in it.
+ * Deadlines are rounded up to whole ticks, so a task never runs early but may run up to one
+ * tick late.
+ */
+@Component
+public class TimingWheel {
+
+    // Upper bound on the tasks moved from the queue into buckets per tick, so a burst of
+    // schedules cannot stall expiry.
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+    private static final Logger LOG = LoggerFactory.getLogger(TimingWheel.class);
+
+    private final long tickNanos;
+    private final Bucket[] buckets;
+    private final int mask;
+    private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final long startNanos = System.nanoTime();
+
+    // Owned by the wheel thread.
+    private final PriorityQueue<Timeout> overflow = new PriorityQueue<>(Comparator.comparingLong(timeout -> timeout.deadlineTick));
+    // Timeouts cancelled while in the overflow heap since it was last compacted. Some may have
+    // left it since, so this only decides when compacting is worth it.
+    private int cancelledInOverflow;
+    private long tick;
+    private volatile boolean running;
+    private Thread worker;
+
+    /**
+     * Creates the wheel.
+     *
+     * @param tickMillis The resolution of the wheel.
+     * @param wheelSize The number of buckets, rounded up to a power of two.
+     */
+    @Autowired
+    public TimingWheel(@Value("${ticketreservation.hold.tick-millis:100}") long tickMillis,
+                       @Value("${ticketreservation.hold.wheel-size:512}") int wheelSize) {
+        if (tickMillis < 1 || wheelSize < 1) {
+            throw new IllegalArgumentException("Tick and wheel size must be positive.");
+        }
+        int size = Integer.highestOneBit(wheelSize);
+        if (size < wheelSize) {
+            size <<= 1;
+        }
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.buckets = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            this.buckets[i] = new Bucket();
+        }
+        this.mask = size - 1;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        worker = new Thread(this::run, "timing-wheel");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            LockSupport.unpark(worker);
+            worker.join();
+        }
+    }
+
+    /**
+     * Schedules a task to run once on the wheel thread after a delay. The task must be short
+     * and must not block, since it holds up every other task due in the same tick.
+     *
+     * @param delayMillis The delay in milliseconds.
+     * @param task The task to run.
+     * @return A handle that can cancel the task before it runs.
+     */
+    public Timeout schedule(long delayMillis, Runnable task) {
+        long deadline = System.nanoTime() - startNanos + TimeUnit.MILLISECONDS.toNanos(Math.max(delayMillis, 0));
+        Timeout timeout = new Timeout(this, deadline, task);
+        scheduled.add(timeout);
+        return timeout;
+    }
+
+    // ---- wheel thread ------------------------------------------------------------------
+
+    private void run() {
+        while (running) {
+            long tickEnd = (tick + 1) * tickNanos;
+            long wait;
+            while (running && (wait = tickEnd - (System.nanoTime() - startNanos)) > 0) {
+                LockSupport.parkNanos(this, wait);
+            }
+            if (!running) {
+                return;
+            }
+            removeCancelled();
+            transferScheduled();
+            transferOverflow();
+            buckets[(int) (tick & mask)].expire();
+            tick++;
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            // Null if it was cancelled before it reached a bucket or already ran.
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            } else if (timeout.inOverflow) {
+                cancelledInOverflow++;
+            }
+        }
+        if (cancelledInOverflow > overflow.size() / 2) {
+            overflow.removeIf(waiting -> {
+                waiting.inOverflow = waiting.state == Timeout.PENDING;
+                return !waiting.inOverflow;
+            });
+            cancelledInOverflow = 0;
+        }
+    }
+
+    private void transferScheduled() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Timeout timeout = scheduled.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.state != Timeout.PENDING) {
+                continue;
+            }
+            // The tick whose end is at or after the deadline. Overdue tasks go into the current bucket.
+            timeout.deadlineTick = Math.max((timeout.deadline - 1) / tickNanos, tick);
+            if (timeout.deadlineTick - tick < buckets.length) {
+                buckets[(int) (timeout.deadlineTick & mask)].add(timeout);
+            } else {
+                timeout.inOverflow = true;
+                overflow.add(timeout);
+            }
+        }
+    }
+
+    /**
+     * Moves the overflow tasks that are now due within one revolution into their buckets.
+     */
+    private void transferOverflow() {
+        Timeout timeout;
+        while ((timeout = overflow.peek()) != null && timeout.deadlineTick - tick < buckets.length) {
+            overflow.poll();
+            timeout.inOverflow = false;
+            if (timeout.state == Timeout.PENDING) {
+                buckets[(int) (timeout.deadlineTick & mask)].add(timeout);
+            }
+        }
+    }
+
+    /**
+     * A scheduled task.
+     */
+    public static final class Timeout {
+
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        private final TimingWheel wheel;
+        private final long deadline;
+        private final Runnable task;
+        private volatile int state;
+
+        // Owned by the wheel thread.
+        private long deadlineTick;
+        private boolean inOverflow;
+        private Bucket bucket;
+        private Timeout previous;
+        private Timeout next;
+
+        private Timeout(TimingWheel wheel, long deadline, Runnable task) {
+            this.wheel = wheel;
+            this.deadline = deadline;
+            this.task = task;
+        }
+
+        /**
+         * Cancels the task and lets the wheel drop it on its next tick.
+         *
+         * @return true if the task had not run or been cancelled yet.
+         */
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, PENDING, CANCELLED)) {
+                return false;
+            }
+            wheel.cancelled.add(this);
+            return true;
+        }
+
+        private void expire() {
+            if (!STATE.compareAndSet(this, PENDING, EXPIRED)) {
+                return;
+            }
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                LOG.error("Timed task failed", e);
+            }
+        }
+    }
+
+    /**
+     * The timeouts due in one slot of the wheel, as an intrusive doubly linked list so
+     * cancelled timeouts can be unlinked in O(1). Only touched by the wheel thread.
+     */
+    private static final class Bucket {
+
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            timeout.previous = tail;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.previous == null) {
+                head = timeout.next;
+            } else {
+                timeout.previous.next = timeout.next;
+            }
+            if (timeout.next == null) {
+                tail = timeout.previous;
+            } else {
+                timeout.next.previous = timeout.previous;
+            }
+            timeout.bucket = null;
+            timeout.previous = null;
+            timeout.next = null;
+        }
+
+        void expire() {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                remove(timeout);
+                timeout.expire();
+                timeout = next;
+            }
+        }
+    }
+}
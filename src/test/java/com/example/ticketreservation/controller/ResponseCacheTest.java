@@ -0,0 +1,35 @@
+package com.example.ticketreservation.controller;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for ResponseCache.
+ */
+public class ResponseCacheTest {
+
+    @Test
+    void testGetReturnsOnlyTheCachedVersion() {
+        ResponseCache cache = new ResponseCache();
+        byte[] body = {1, 2, 3};
+        cache.put("SH0001", "\"a-1\"", body);
+
+        assertSame(body, cache.get("SH0001", "\"a-1\""));
+        assertNull(cache.get("SH0001", "\"a-2\""));
+        assertNull(cache.get("SH0002", "\"a-1\""));
+    }
+
+    @Test
+    void testNotModified() {
+        String etag = ResponseCache.etag("a-1");
+
+        assertEquals("\"a-1\"", etag);
+        assertTrue(ResponseCache.notModified("\"a-1\"", etag));
+        assertTrue(ResponseCache.notModified("W/\"a-1\"", etag));
+        assertTrue(ResponseCache.notModified("\"a-0\", \"a-1\"", etag));
+        assertTrue(ResponseCache.notModified("*", etag));
+        assertFalse(ResponseCache.notModified("\"a-0\"", etag));
+        assertFalse(ResponseCache.notModified(null, etag));
+    }
+}
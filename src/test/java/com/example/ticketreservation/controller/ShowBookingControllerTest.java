@@ -1,20 +1,49 @@
 package com.example.ticketreservation.controller;
 
+import com.example.ticketreservation.model.AdmissionStatus;
+import com.example.ticketreservation.model.Booking;
+import com.example.ticketreservation.model.BookingRequest;
+import com.example.ticketreservation.model.BookingResult;
+import com.example.ticketreservation.model.SeatAvailability;
+import com.example.ticketreservation.model.SeatHold;
+import com.example.ticketreservation.model.SeatLayout;
+import com.example.ticketreservation.model.Section;
 import com.example.ticketreservation.model.Show;
+import com.example.ticketreservation.model.ShowDetailsPage;
+import com.example.ticketreservation.model.ShowImportError;
+import com.example.ticketreservation.model.ShowImportReport;
+import com.example.ticketreservation.exception.MisdirectedRequestException;
+import com.example.ticketreservation.service.AdmissionControl;
 import com.example.ticketreservation.service.BookingService;
+import com.example.ticketreservation.service.ClusterTopology;
+import com.example.ticketreservation.service.IdempotencyCache;
+import com.example.ticketreservation.service.SeatStreamService;
+import com.example.ticketreservation.service.ShowImporter;
 import com.example.ticketreservation.service.ShowService;
+import com.example.ticketreservation.service.TimingWheel;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 /**
@@ -28,6 +57,21 @@ public class ShowBookingControllerTest {
     @Mock
     private BookingService bookingService;
 
+    @Mock
+    private SeatStreamService seatStreamService;
+
+    @Mock
+    private ClusterTopology clusterTopology;
+
+    @Mock
+    private ShowImporter showImporter;
+
+    @Spy
+    private IdempotencyCache idempotencyCache = new IdempotencyCache(new TimingWheel(100, 8), 600, 100);
+
+    @Spy
+    private AdmissionControl admissionControl = AdmissionControl.disabled();
+
     @InjectMocks
     private ShowBookingController showBookingController;
 
@@ -43,14 +87,163 @@ public class ShowBookingControllerTest {
         String phoneNumber = "+1234567890";
         List<String> selectedSeats = Arrays.asList("A1", "B1");
         String ticketNumber = "TK000001";
-        when(bookingService.bookSeats(showNumber, phoneNumber, selectedSeats)).thenReturn(ticketNumber);
+        when(bookingService.bookSeatsAsync(showNumber, phoneNumber, selectedSeats))
+                .thenReturn(CompletableFuture.completedFuture(ticketNumber));
 
         // When
-        ResponseEntity<String> response = showBookingController.bookSeats(showNumber, phoneNumber, selectedSeats);
+        ResponseEntity<String> response = showBookingController.bookSeats(showNumber, phoneNumber, selectedSeats, null, null).join();
 
         // Then
         assertEquals("Booking successful. Ticket Number: " + ticketNumber, response.getBody());
-        verify(bookingService).bookSeats(showNumber, phoneNumber, selectedSeats);
+        verify(bookingService).bookSeatsAsync(showNumber, phoneNumber, selectedSeats);
+    }
+
+    @Test
+    void testBookBestAvailableSeats() {
+        // Given
+        String showNumber = "SH0001";
+        String phoneNumber = "+1234567890";
+        Booking booking = new Booking("TK000001", phoneNumber, showNumber, Arrays.asList("A2", "A3"));
+        when(bookingService.bookBestAvailableSeats(showNumber, phoneNumber, 2)).thenReturn(booking);
+
+        // When
+        ResponseEntity<String> response = showBookingController.bookBestAvailableSeats(showNumber, phoneNumber, 2);
+
+        // Then
+        assertEquals("Booking successful. Ticket Number: TK000001, Seats: A2, A3", response.getBody());
+        verify(bookingService).bookBestAvailableSeats(showNumber, phoneNumber, 2);
+    }
+
+    @Test
+    void testHoldAndConfirmSeats() {
+        // Given
+        String showNumber = "SH0001";
+        String phoneNumber = "+1234567890";
+        List<String> selectedSeats = Arrays.asList("A1", "A2");
+        SeatHold hold = new SeatHold("HD1", phoneNumber, showNumber, selectedSeats, Instant.parse("2024-01-01T10:05:00Z"));
+        when(bookingService.holdSeats(showNumber, phoneNumber, selectedSeats, 300)).thenReturn(hold);
+        when(bookingService.confirmHold(showNumber, "HD1", phoneNumber)).thenReturn("TK000001");
+
+        // When
+        ResponseEntity<String> held = showBookingController.holdSeats(showNumber, phoneNumber, selectedSeats, 300);
+        ResponseEntity<String> confirmed = showBookingController.confirmHold(showNumber, "HD1", phoneNumber);
+
+        // Then
+        assertEquals("Seats held. Hold ID: HD1, Expires At: 2024-01-01T10:05:00Z", held.getBody());
+        assertEquals("Booking successful. Ticket Number: TK000001", confirmed.getBody());
+        verify(bookingService).confirmHold(showNumber, "HD1", phoneNumber);
+    }
+
+    @Test
+    void testStreamAvailableSeats() {
+        // Given
+        SseEmitter emitter = new SseEmitter();
+        when(seatStreamService.subscribe("SH0001")).thenReturn(emitter);
+
+        // When
+        SseEmitter stream = showBookingController.streamAvailableSeats("SH0001");
+
+        // Then
+        assertEquals(emitter, stream);
+    }
+
+    @Test
+    void testBookSeatsInBatch() {
+        // Given
+        List<BookingRequest> requests = Arrays.asList(
+                new BookingRequest("SH0001", "+1", Collections.singletonList("A1")),
+                new BookingRequest("SH0001", "+2", Collections.singletonList("A1")));
+        List<BookingResult> results = Arrays.asList(
+                new BookingResult("SH0001", "+1", "TK000001", Collections.singletonList("A1"), null),
+                BookingResult.failure(requests.get(1), "One or more selected seats are not available."));
+        when(bookingService.bookSeatsInBatch(requests)).thenReturn(results);
+
+        // When
+        ResponseEntity<List<BookingResult>> response = showBookingController.bookSeatsInBatch(requests);
+
+        // Then
+        assertEquals(results, response.getBody());
+        verify(bookingService).bookSeatsInBatch(requests);
+    }
+
+    @Test
+    void testRetriedBookingIsNotBookedAgain() {
+        // Given
+        String showNumber = "SH0001";
+        String phoneNumber = "+1234567890";
+        List<String> selectedSeats = Arrays.asList("A1", "B1");
+        when(bookingService.bookSeatsAsync(showNumber, phoneNumber, selectedSeats))
+                .thenReturn(CompletableFuture.completedFuture("TK000001"));
+
+        // When
+        ResponseEntity<String> response = showBookingController.bookSeats(showNumber, phoneNumber, selectedSeats, "retry-1", null).join();
+        ResponseEntity<String> retried = showBookingController.bookSeats(showNumber, phoneNumber, selectedSeats, "retry-1", null).join();
+
+        // Then
+        assertEquals(response.getBody(), retried.getBody());
+        assertEquals(HttpStatus.CREATED, retried.getStatusCode());
+        verify(bookingService, times(1)).bookSeatsAsync(showNumber, phoneNumber, selectedSeats);
+        assertThrows(IllegalArgumentException.class,
+                () -> showBookingController.bookSeats(showNumber, "+1999999999", selectedSeats, "retry-1", null));
+    }
+
+    @Test
+    void testQueuedBookingRespondsAsyncWithItsPosition() {
+        // Given
+        String showNumber = "SH0001";
+        String phoneNumber = "+1234567890";
+        List<String> selectedSeats = Arrays.asList("A1", "B1");
+        CompletableFuture<String> booking = new CompletableFuture<>();
+        doAnswer(invocation -> {
+            invocation.<AdmissionControl.QueueListener>getArgument(1).queued(3, 2500);
+            return booking;
+        }).when(admissionControl).admit(eq(showNumber), any(AdmissionControl.QueueListener.class), any());
+
+        // When
+        ResponseEntity<String> queued = showBookingController.bookSeats(showNumber, phoneNumber, selectedSeats,
+                "retry-1", "respond-async").join();
+        booking.complete("TK000001");
+        ResponseEntity<String> retried = showBookingController.bookSeats(showNumber, phoneNumber, selectedSeats,
+                "retry-1", "respond-async").join();
+
+        // Then
+        assertEquals(HttpStatus.ACCEPTED, queued.getStatusCode());
+        assertEquals("3", queued.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertTrue(queued.getBody().contains("position 3"));
+        assertEquals(HttpStatus.CREATED, retried.getStatusCode());
+        assertEquals("Booking successful. Ticket Number: TK000001", retried.getBody());
+    }
+
+    @Test
+    void testQueuedBookingWithoutAKeptKeyWaitsForTheOutcome() {
+        // Given
+        String showNumber = "SH0001";
+        List<String> selectedSeats = Arrays.asList("A1", "B1");
+        CompletableFuture<String> booking = new CompletableFuture<>();
+        doAnswer(invocation -> {
+            invocation.<AdmissionControl.QueueListener>getArgument(1).queued(3, 2500);
+            return booking;
+        }).when(admissionControl).admit(eq(showNumber), any(AdmissionControl.QueueListener.class), any());
+
+        // When
+        CompletableFuture<ResponseEntity<String>> response = showBookingController.bookSeats(showNumber,
+                "+1234567890", selectedSeats, null, "respond-async");
+
+        // Then
+        assertFalse(response.isDone());
+        booking.complete("TK000001");
+        assertEquals(HttpStatus.CREATED, response.join().getStatusCode());
+    }
+
+    @Test
+    void testGetAdmissionStatus() {
+        // When
+        ResponseEntity<AdmissionStatus> response = showBookingController.getAdmissionStatus("SH0001");
+
+        // Then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(new AdmissionStatus("SH0001", 0, 0, 0), response.getBody());
+        verify(clusterTopology).checkOwner("SH0001");
     }
 
     @Test
@@ -58,14 +251,32 @@ public class ShowBookingControllerTest {
         // Given
         String ticketNumber = "TK000001";
         String phoneNumber = "+1234567890";
-        doNothing().when(bookingService).cancelBooking(ticketNumber, phoneNumber);
+        when(bookingService.cancelBookingAsync(ticketNumber, phoneNumber))
+                .thenReturn(CompletableFuture.completedFuture(null));
 
         // When
-        ResponseEntity<String> response = showBookingController.cancelBooking(ticketNumber, phoneNumber);
+        ResponseEntity<String> response = showBookingController.cancelBooking(ticketNumber, phoneNumber, null).join();
 
         // Then
         assertEquals("Booking cancelled successfully.", response.getBody());
-        verify(bookingService).cancelBooking(ticketNumber, phoneNumber);
+        verify(bookingService).cancelBookingAsync(ticketNumber, phoneNumber);
+    }
+
+    @Test
+    void testRequestForShowOfAnotherNodeIsRedirected() {
+        // Given
+        String showNumber = "SH0002";
+        List<String> selectedSeats = Arrays.asList("A1", "B1");
+        doThrow(new MisdirectedRequestException(1, "http://localhost:8081"))
+                .when(clusterTopology).checkOwner(showNumber);
+
+        // When
+        MisdirectedRequestException e = assertThrows(MisdirectedRequestException.class,
+                () -> showBookingController.bookSeats(showNumber, "+1234567890", selectedSeats, null, null));
+
+        // Then
+        assertEquals("http://localhost:8081", e.getOwnerUrl());
+        verify(bookingService, never()).bookSeatsAsync(anyString(), anyString(), anyList());
     }
 
     @Test
@@ -73,14 +284,21 @@ public class ShowBookingControllerTest {
         // Given
         String showNumber = "SH0001";
         List<String> showDetails = Collections.singletonList("[Show Number: SH0001, Ticket Number: TK000001, Phone Number: 123, Seats: A1]");
+        when(showService.showDetailsVersion(showNumber)).thenReturn("1-1-0");
         when(showService.displayShowDetails(showNumber)).thenReturn(showDetails);
 
         // When
-        ResponseEntity<List<String>> response = showBookingController.getShowDetails(showNumber);
+        ResponseEntity<byte[]> response = showBookingController.getShowDetails(showNumber, null);
+        ResponseEntity<byte[]> cached = showBookingController.getShowDetails(showNumber, null);
+        ResponseEntity<byte[]> unchanged = showBookingController.getShowDetails(showNumber, "\"1-1-0\"");
 
         // Then
-        assertEquals(showDetails, response.getBody());
-        verify(showService).displayShowDetails(showNumber);
+        assertEquals("[\"[Show Number: SH0001, Ticket Number: TK000001, Phone Number: 123, Seats: A1]\"]",
+                new String(response.getBody(), StandardCharsets.UTF_8));
+        assertEquals("\"1-1-0\"", response.getHeaders().getETag());
+        assertSame(response.getBody(), cached.getBody());
+        assertEquals(HttpStatus.NOT_MODIFIED, unchanged.getStatusCode());
+        verify(showService, times(1)).displayShowDetails(showNumber);
     }
 
     @Test
@@ -92,30 +310,154 @@ public class ShowBookingControllerTest {
         show.setSeatsPerRow(6);
         show.setCancelWindowInMinutes(120);
 
-        doNothing().when(showService).configureShow(anyString(), anyInt(), anyInt(), anyInt());
+        when(showService.configureShowAsync(anyString(), any(SeatLayout.class), anyInt()))
+                .thenReturn(CompletableFuture.completedFuture(null));
 
         // When
-        ResponseEntity<String> response = showBookingController.configureShow(show);
+        ResponseEntity<String> response = showBookingController.configureShow(show).join();
 
         // Then
         assertEquals("Show configured successfully.", response.getBody());
-        verify(showService).configureShow(show.getShowNumber(), show.getNumberOfRows(),
-                show.getSeatsPerRow(), show.getCancelWindowInMinutes());
+        verify(showService).configureShowAsync(eq(show.getShowNumber()),
+                argThat(layout -> !layout.isSectioned() && layout.getNumberOfRows() == 20 && layout.getSeatsPerRow() == 6),
+                eq(show.getCancelWindowInMinutes()));
+    }
+
+    @Test
+    void testImportShows() throws Exception {
+        // Given
+        ShowImportReport report = new ShowImportReport(1, 1,
+                List.of(new ShowImportError(2, "SH0002", "Invalid seat layout: -1 rows of 10 seats.")));
+        when(showImporter.importShows(any(Reader.class), eq(ShowImporter.Format.CSV))).thenReturn(report);
+        byte[] body = "SH0001,10,10,60\nSH0002,-1,10,60\n".getBytes(StandardCharsets.UTF_8);
+
+        // When
+        ResponseEntity<ShowImportReport> response = showBookingController.importShows(
+                "text/csv;charset=UTF-8", new ByteArrayInputStream(body));
+
+        // Then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(report, response.getBody());
+        assertThrows(IllegalArgumentException.class,
+                () -> showBookingController.importShows("application/json", new ByteArrayInputStream(body)));
+    }
+
+    @Test
+    void testConfigureSectionedShow() {
+        // Given
+        Show show = new Show();
+        show.setShowNumber("SH0001");
+        show.setSections(Arrays.asList(new Section("101", 30, 24), new Section("FLOOR", 40, 50)));
+        show.setCancelWindowInMinutes(120);
+
+        when(showService.configureShowAsync(anyString(), any(SeatLayout.class), anyInt()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        // When
+        ResponseEntity<String> response = showBookingController.configureShow(show).join();
+
+        // Then
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        verify(showService).configureShowAsync(eq(show.getShowNumber()),
+                argThat(layout -> layout.isSectioned() && layout.capacity() == 2720),
+                eq(show.getCancelWindowInMinutes()));
     }
 
     @Test
     void testCheckAvailableSeats() {
         // Given
         String showNumber = "SH0001";
-        List<String> availableSeats = Arrays.asList("A1", "B1", "C1");
-        when(bookingService.checkAvailableSeats(showNumber)).thenReturn(availableSeats);
+        Show show = new Show(showNumber, 3, 1, 60);
+        when(bookingService.checkSeatAvailability(showNumber)).thenReturn(show.getSeats().snapshot());
 
         // When
-        ResponseEntity<List<String>> response = showBookingController.checkAvailableSeats(showNumber);
+        ResponseEntity<byte[]> response = showBookingController.checkAvailableSeats(showNumber, null);
 
         // Then
-        assertEquals(availableSeats, response.getBody());
-        verify(bookingService).checkAvailableSeats(showNumber);
+        assertEquals("[\"A1\",\"B1\",\"C1\"]", new String(response.getBody(), StandardCharsets.UTF_8));
+        verify(bookingService).checkSeatAvailability(showNumber);
+    }
+
+    @Test
+    void testCheckAvailableSeatsIsNotModifiedUntilSeatsChange() {
+        // Given
+        String showNumber = "SH0001";
+        Show show = new Show(showNumber, 3, 1, 60);
+        SeatAvailability before = show.getSeats().snapshot();
+        show.getSeats().book(show.getSeats().ordinalsOf(Collections.singletonList("B1")));
+        SeatAvailability after = show.getSeats().snapshot();
+        when(bookingService.checkSeatAvailability(showNumber)).thenReturn(before, before, after);
+
+        // When
+        ResponseEntity<byte[]> first = showBookingController.checkAvailableSeats(showNumber, null);
+        String etag = first.getHeaders().getETag();
+        ResponseEntity<byte[]> unchanged = showBookingController.checkAvailableSeats(showNumber, etag);
+        ResponseEntity<byte[]> changed = showBookingController.checkAvailableSeats(showNumber, etag);
+
+        // Then
+        assertEquals(HttpStatus.NOT_MODIFIED, unchanged.getStatusCode());
+        assertEquals(List.of(HttpHeaders.ACCEPT), unchanged.getHeaders().getVary());
+        assertEquals(HttpStatus.OK, changed.getStatusCode());
+        assertNotEquals(etag, changed.getHeaders().getETag());
+        assertEquals("[\"A1\",\"C1\"]", new String(changed.getBody(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testCheckAvailableSeatBitmap() {
+        // Given
+        String showNumber = "SH0001";
+        Show show = new Show(showNumber, 2, 4, 60);
+        show.getSeats().book(show.getSeats().ordinalsOf(Arrays.asList("A2", "B4")));
+        when(bookingService.checkSeatAvailability(showNumber)).thenReturn(show.getSeats().snapshot());
+
+        // When
+        ResponseEntity<byte[]> response = showBookingController.checkAvailableSeatBitmap(showNumber, null);
+
+        // Then
+        byte[] bitmap = response.getBody();
+        assertEquals(17, bitmap.length);
+        assertEquals((byte) 0b0111_1101, bitmap[16]);
+        assertEquals(List.of(HttpHeaders.ACCEPT), response.getHeaders().getVary());
+    }
+
+    @Test
+    void testJsonAndBitmapAvailabilityHaveDifferentETags() {
+        // Given
+        String showNumber = "SH0001";
+        Show show = new Show(showNumber, 2, 4, 60);
+        when(bookingService.checkSeatAvailability(showNumber)).thenReturn(show.getSeats().snapshot());
+
+        // When
+        ResponseEntity<byte[]> json = showBookingController.checkAvailableSeats(showNumber, null);
+        ResponseEntity<byte[]> bitmap = showBookingController.checkAvailableSeatBitmap(showNumber, json.getHeaders().getETag());
+
+        // Then
+        assertNotEquals(json.getHeaders().getETag(), bitmap.getHeaders().getETag());
+        assertEquals(HttpStatus.OK, bitmap.getStatusCode());
+        assertEquals(17, bitmap.getBody().length);
+        assertEquals(List.of(HttpHeaders.ACCEPT), json.getHeaders().getVary());
     }
     
+
+    @Test
+    void testGetShowBookingsStreamsPage() throws Exception {
+        // Given
+        String showNumber = "SH0001";
+        List<Booking> bookings = Arrays.asList(
+                new Booking("TK000001", "+1", showNumber, Arrays.asList("A1", "A2")),
+                new Booking("TK000002", "+2", showNumber, Collections.singletonList("B1")));
+        when(showService.showDetailsPage(showNumber, null, 2)).thenReturn(new ShowDetailsPage(showNumber, 3, 0, 2, bookings));
+
+        // When
+        ResponseEntity<StreamingResponseBody> response = showBookingController.getShowBookings(showNumber, null, 2);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        // Then
+        assertEquals("{\"showNumber\":\"SH0001\",\"cancellableBookings\":3,\"finalBookings\":0,\"bookings\":["
+                        + "{\"ticketNumber\":\"TK000001\",\"phoneNumber\":\"+1\",\"seats\":[\"A1\",\"A2\"],\"finalized\":false},"
+                        + "{\"ticketNumber\":\"TK000002\",\"phoneNumber\":\"+2\",\"seats\":[\"B1\"],\"finalized\":false}],"
+                        + "\"next\":\"TK000002\"}",
+                out.toString(StandardCharsets.UTF_8));
+    }
 }
\ No newline at end of file
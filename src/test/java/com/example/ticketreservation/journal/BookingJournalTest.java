@@ -0,0 +1,193 @@
+package com.example.ticketreservation.journal;
+
+import com.example.ticketreservation.model.Booking;
+import com.example.ticketreservation.model.SeatLayout;
+import com.example.ticketreservation.model.Section;
+import com.example.ticketreservation.service.ServiceFixture;
+import com.example.ticketreservation.service.ShowPartitions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for BookingJournal.
+ */
+public class BookingJournalTest {
+
+    private Path directory;
+    private ServiceFixture node;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("booking-journal");
+        node = ServiceFixture.builder().journal(directory, 1000).build();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        node.journal.stop();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    void testRecoversShowsAndBookingsAfterRestart() throws Exception {
+        node.showService.configureShow("SH0001", 5, 5, 60);
+        String kept = node.bookingService.bookSeats("SH0001", "+111", Arrays.asList("A1", "A2"));
+        String cancelled = node.bookingService.bookSeats("SH0001", "+222", Collections.singletonList("B1"));
+        node.bookingService.cancelBooking(cancelled, "+222");
+
+        ServiceFixture recovered = restart();
+
+        Booking booking = recovered.bookingRepository.findByTicketNumber(kept);
+        assertNotNull(booking);
+        assertEquals(Arrays.asList("A1", "A2"), booking.getSeats());
+        assertEquals(node.bookingRepository.findByTicketNumber(kept).getBookingCreationTime(), booking.getBookingCreationTime());
+        assertNull(recovered.bookingRepository.findByTicketNumber(cancelled));
+        assertEquals(23, recovered.bookingService.checkAvailableSeats("SH0001").size());
+        assertTrue(recovered.bookingService.checkAvailableSeats("SH0001").contains("B1"));
+    }
+
+    @Test
+    void testRecoversFromSnapshotPlusTail() throws Exception {
+        node.showService.configureShow("SH0001", 10, 10, 60);
+        node.bookingService.bookSeats("SH0001", "+111", Collections.singletonList("A1"));
+        node.journal.snapshot();
+        String afterSnapshot = node.bookingService.bookSeats("SH0001", "+222", Collections.singletonList("A2"));
+
+        ServiceFixture recovered = restart();
+
+        assertEquals(2, recovered.bookingRepository.findByShowNumber("SH0001").size());
+        assertNotNull(recovered.bookingRepository.findByTicketNumber(afterSnapshot));
+        assertEquals(98, recovered.bookingService.checkAvailableSeats("SH0001").size());
+        // New tickets do not collide with recovered ones.
+        String next = recovered.bookingService.bookSeats("SH0001", "+333", Collections.singletonList("A3"));
+        assertEquals(3, recovered.bookingRepository.findByShowNumber("SH0001").size());
+        assertNotEquals(afterSnapshot, next);
+    }
+
+    @Test
+    void testRecoversBookingsOfMoreSeatsThanAShortHolds() throws Exception {
+        node.showService.configureShow("SH0001", 200, 200, 60);
+        List<String> seats = node.bookingService.checkAvailableSeats("SH0001");
+        String ticketNumber = node.bookingService.bookSeats("SH0001", "+111", seats);
+
+        ServiceFixture recovered = restart();
+
+        assertEquals(seats, recovered.bookingRepository.findByTicketNumber(ticketNumber).getSeats());
+        assertTrue(recovered.bookingService.checkAvailableSeats("SH0001").isEmpty());
+    }
+
+    @Test
+    void testStopsTakingChangesOnceAWriteFails() throws Exception {
+        node.showService.configureShow("SH0001", 5, 5, 60);
+        node.bookingService.bookSeats("SH0001", "+111", Collections.singletonList("A1"));
+        Field segment = BookingJournal.class.getDeclaredField("segment");
+        segment.setAccessible(true);
+        ((FileChannel) segment.get(node.journal)).close();
+
+        // The booking that runs into the failure is already applied, but is not confirmed.
+        assertThrows(IllegalStateException.class,
+                () -> node.bookingService.bookSeats("SH0001", "+222", Collections.singletonList("A2")));
+        assertThrows(IllegalStateException.class,
+                () -> node.bookingService.bookSeats("SH0001", "+333", Collections.singletonList("A3")));
+        assertThrows(IllegalStateException.class, () -> node.showService.configureShow("SH0002", 5, 5, 60));
+
+        assertFalse(node.bookingRepository.isPhoneNumberUsed("SH0001", "+333"));
+        assertTrue(node.bookingService.checkAvailableSeats("SH0001").contains("A3"));
+        assertNull(node.showRepository.findByShowNumber("SH0002"));
+    }
+
+    @Test
+    void testShowWithBookingsIsNotConfiguredAgain() throws Exception {
+        node.showService.configureShow("SH0001", 5, 5, 60);
+        String ticketNumber = node.bookingService.bookSeats("SH0001", "+111", Collections.singletonList("A1"));
+
+        assertThrows(IllegalArgumentException.class, () -> node.showService.configureShow("SH0001", 10, 10, 60));
+        ServiceFixture recovered = restart();
+
+        assertNotNull(recovered.bookingRepository.findByTicketNumber(ticketNumber));
+        assertEquals(24, recovered.bookingService.checkAvailableSeats("SH0001").size());
+        assertFalse(recovered.bookingService.checkAvailableSeats("SH0001").contains("A1"));
+    }
+
+    @Test
+    void testRecoversSectionedShows() throws Exception {
+        node.showService.configureShow("SH0001", SeatLayout.of(Arrays.asList(
+                new Section("101", 30, 24), new Section("FLOOR", 40, 50))), 60);
+        String ticketNumber = node.bookingService.bookSeats("SH0001", "+111", Arrays.asList("101-AD24", "FLOOR-A1"));
+        node.journal.snapshot();
+        node.showService.configureShow("SH0002", SeatLayout.of(Collections.singletonList(new Section("A", 1, 2))), 60);
+
+        ServiceFixture recovered = restart();
+
+        SeatLayout layout = recovered.showRepository.findByShowNumber("SH0001").getSeats().getLayout();
+        assertEquals(Arrays.asList(new Section("101", 30, 24), new Section("FLOOR", 40, 50)), layout.getSections());
+        assertNotNull(recovered.bookingRepository.findByTicketNumber(ticketNumber));
+        assertEquals(2718, recovered.bookingService.checkSeatAvailability("SH0001").availableCount());
+        assertEquals(Arrays.asList("A-A1", "A-A2"), recovered.bookingService.checkAvailableSeats("SH0002"));
+    }
+
+    @Test
+    void testIgnoresTornTail() throws Exception {
+        node.showService.configureShow("SH0001", 5, 5, 60);
+        String ticketNumber = node.bookingService.bookSeats("SH0001", "+111", Collections.singletonList("A1"));
+        node.journal.stop();
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.filter(path -> path.getFileName().toString().startsWith("journal-")).findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        node = ServiceFixture.builder().journal(directory, 1000).build();
+
+        assertNotNull(node.showRepository.findByShowNumber("SH0001"));
+        assertNull(node.bookingRepository.findByTicketNumber(ticketNumber));
+    }
+
+    @Test
+    void testRecoversMutationsMadeOnEventLoops() throws Exception {
+        node.journal.stop();
+        ShowPartitions partitions = new ShowPartitions(true, 2, 1024);
+        String kept;
+        String cancelled;
+        try {
+            node = ServiceFixture.builder().journal(directory, 1000).showPartitions(partitions).build();
+            node.showService.configureShowAsync("SH0001", SeatLayout.of(5, 5), 60).join();
+            kept = node.bookingService.bookSeatsAsync("SH0001", "+111", Arrays.asList("A1", "A2")).join();
+            cancelled = node.bookingService.bookSeatsAsync("SH0001", "+222", Collections.singletonList("B1")).join();
+            node.bookingService.cancelBookingAsync(cancelled, "+222").join();
+        } finally {
+            partitions.stop();
+        }
+
+        ServiceFixture recovered = restart();
+
+        assertNotNull(recovered.bookingRepository.findByTicketNumber(kept));
+        assertNull(recovered.bookingRepository.findByTicketNumber(cancelled));
+        assertEquals(23, recovered.bookingService.checkAvailableSeats("SH0001").size());
+    }
+
+    private ServiceFixture restart() throws Exception {
+        node.journal.stop();
+        node = ServiceFixture.builder().journal(directory, 1000).build();
+        return node;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.ticketreservation.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for SeatBitmap.
+ */
+public class SeatBitmapTest {
+
+    @Test
+    void testEncodeHeaderAndBitmap() {
+        SeatMap seatMap = new SeatMap(2, 5);
+        seatMap.book(seatMap.ordinalsOf(Arrays.asList("A1", "B5")));
+        SeatAvailability availability = seatMap.snapshot();
+
+        ByteBuffer buffer = ByteBuffer.wrap(SeatBitmap.encode(availability));
+
+        assertEquals(2, buffer.getInt());
+        assertEquals(5, buffer.getInt());
+        assertEquals(availability.getVersion(), buffer.getLong());
+        assertEquals(2, buffer.remaining());
+        assertEquals((byte) 0b1111_1110, buffer.get());
+        assertEquals((byte) 0b0000_0001, buffer.get());
+    }
+
+    @Test
+    void testEncodeSectionsWithDifferentRowLengthsAsOneRow() {
+        SeatMap seatMap = new SeatMap(SeatLayout.of(Arrays.asList(new Section("101", 2, 4), new Section("FLOOR", 1, 10))));
+        seatMap.book(seatMap.ordinalsOf(Arrays.asList("101-A1", "FLOOR-A10")));
+
+        ByteBuffer buffer = ByteBuffer.wrap(SeatBitmap.encode(seatMap.snapshot()));
+
+        assertEquals(1, buffer.getInt());
+        assertEquals(18, buffer.getInt());
+        buffer.getLong();
+        assertEquals(3, buffer.remaining());
+        assertEquals((byte) 0b1111_1110, buffer.get());
+        assertEquals((byte) 0b1111_1111, buffer.get());
+        assertEquals((byte) 0b0000_0001, buffer.get());
+    }
+
+    @Test
+    void testEncodeMatchesAvailableSeats() {
+        SeatMap seatMap = new SeatMap(26, 10);
+        seatMap.book(seatMap.ordinalsOf(Arrays.asList("A1", "C7", "G3", "Z10")));
+        seatMap.hold(seatMap.ordinalsOf(Arrays.asList("M5", "M6")));
+        SeatAvailability availability = seatMap.snapshot();
+
+        byte[] bytes = SeatBitmap.encode(availability);
+
+        assertEquals(49, bytes.length);
+        List<String> decoded = new ArrayList<>();
+        for (int ordinal = 0; ordinal < seatMap.capacity(); ordinal++) {
+            if ((bytes[SeatBitmap.HEADER_BYTES + (ordinal >>> 3)] & (1 << (ordinal & 7))) != 0) {
+                decoded.add(seatMap.labelOf(ordinal));
+            }
+        }
+        assertEquals(availability.availableSeats(), decoded);
+    }
+}
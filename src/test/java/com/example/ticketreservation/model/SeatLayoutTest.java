@@ -0,0 +1,86 @@
+package com.example.ticketreservation.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for SeatLayout.
+ */
+public class SeatLayoutTest {
+
+    private final SeatLayout layout = SeatLayout.of(Arrays.asList(
+            new Section("101", 30, 24), new Section("FLOOR", 2, 5), new Section("UPPER-A", 3, 10)));
+
+    @Test
+    void testSectionedLabels() {
+        assertEquals(0, layout.ordinalOf("101-A1"));
+        assertEquals(23, layout.ordinalOf("101-A24"));
+        assertEquals(24, layout.ordinalOf("101-B1"));
+        assertEquals(30 * 24, layout.ordinalOf("FLOOR-A1"));
+        assertEquals(30 * 24 + 9, layout.ordinalOf("FLOOR-B5"));
+        // Section names may contain the separator themselves.
+        assertEquals(30 * 24 + 10, layout.ordinalOf("UPPER-A-A1"));
+        assertEquals("101-AD24", layout.labelOf(30 * 24 - 1));
+        for (int ordinal = 0; ordinal < layout.capacity(); ordinal++) {
+            assertEquals(ordinal, layout.ordinalOf(layout.labelOf(ordinal)));
+        }
+    }
+
+    @Test
+    void testInvalidSectionedLabels() {
+        for (String label : Arrays.asList("A1", "102-A1", "FLOOR-C1", "FLOOR-A6", "-A1", "101-", "101-AE1", "FLOOR-A")) {
+            assertEquals(-1, layout.ordinalOf(label), "label " + label);
+        }
+    }
+
+    @Test
+    void testRowsPastZ() {
+        SeatLayout large = SeatLayout.of(800, 100);
+
+        assertEquals("Z1", large.labelOf(25 * 100));
+        assertEquals("AA1", large.labelOf(26 * 100));
+        assertEquals("AZ100", large.labelOf(52 * 100 - 1));
+        assertEquals("ADT100", large.labelOf(80_000 - 1));
+        assertEquals(80_000 - 1, large.ordinalOf("ADT100"));
+        assertEquals(-1, large.ordinalOf("ADU1"));
+    }
+
+    @Test
+    void testRows() {
+        assertEquals(35, layout.getNumberOfRows());
+        assertEquals(0, layout.getSeatsPerRow());
+        assertEquals(24, layout.widestRow());
+        assertEquals(30, layout.rowOf(layout.ordinalOf("FLOOR-A3")));
+        assertEquals(layout.ordinalOf("FLOOR-B1"), layout.rowStart(31));
+        assertEquals(5, layout.rowLength(31));
+        assertEquals(10, layout.rowLength(34));
+    }
+
+    @Test
+    void testSectionsRoundTrip() {
+        assertEquals(Arrays.asList(new Section("101", 30, 24), new Section("FLOOR", 2, 5), new Section("UPPER-A", 3, 10)),
+                layout.getSections());
+        assertEquals(Collections.singletonList(new Section(null, 26, 10)), SeatLayout.of(26, 10).getSections());
+    }
+
+    @Test
+    void testInvalidLayouts() {
+        List<Section> tooLarge = new ArrayList<>();
+        for (int i = 0; i < 11; i++) {
+            tooLarge.add(new Section("S" + i, 100, 100));
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> SeatLayout.of(tooLarge));
+        assertThrows(IllegalArgumentException.class, () -> SeatLayout.of(Collections.emptyList()));
+        assertThrows(IllegalArgumentException.class,
+                () -> SeatLayout.of(Arrays.asList(new Section("A", 1, 1), new Section("A", 1, 1))));
+        assertThrows(IllegalArgumentException.class, () -> SeatLayout.of(Collections.singletonList(new Section("A", 0, 1))));
+        assertThrows(IllegalArgumentException.class, () -> SeatLayout.of(-1, 10));
+    }
+}
@@ -0,0 +1,249 @@
+package com.example.ticketreservation.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for SeatMap.
+ */
+public class SeatMapTest {
+
+    @Test
+    void testOrdinalAndLabelRoundTrip() {
+        SeatMap seatMap = new SeatMap(26, 10);
+
+        assertEquals(0, seatMap.ordinalOf("A1"));
+        assertEquals(9, seatMap.ordinalOf("A10"));
+        assertEquals(10, seatMap.ordinalOf("B1"));
+        assertEquals(259, seatMap.ordinalOf("Z10"));
+        for (int ordinal = 0; ordinal < seatMap.capacity(); ordinal++) {
+            assertEquals(ordinal, seatMap.ordinalOf(seatMap.labelOf(ordinal)));
+        }
+    }
+
+    @Test
+    void testInvalidLabels() {
+        SeatMap seatMap = new SeatMap(3, 5);
+
+        for (String label : Arrays.asList(null, "", "A", "A0", "A01", "A6", "D1", "a1", "AA", "A1x")) {
+            assertEquals(-1, seatMap.ordinalOf(label), "label " + label);
+        }
+    }
+
+    @Test
+    void testBookAndRelease() {
+        SeatMap seatMap = new SeatMap(3, 5);
+        int[] seats = seatMap.ordinalsOf(Arrays.asList("A1", "B5"));
+
+        assertTrue(seatMap.areAvailable(seats));
+        seatMap.book(seats);
+
+        assertFalse(seatMap.isAvailable(seatMap.ordinalOf("A1")));
+        assertFalse(seatMap.areAvailable(seatMap.ordinalsOf(Arrays.asList("A2", "B5"))));
+        assertEquals(13, seatMap.availableCount());
+
+        seatMap.release(seats);
+
+        assertTrue(seatMap.areAvailable(seats));
+        assertEquals(15, seatMap.availableCount());
+    }
+
+    @Test
+    void testUnknownSeatsAreNeverAvailable() {
+        SeatMap seatMap = new SeatMap(3, 5);
+
+        assertFalse(seatMap.areAvailable(seatMap.ordinalsOf(Arrays.asList("A1", "F9"))));
+    }
+
+    @Test
+    void testAvailableSeatsAreOrderedByRowThenSeat() {
+        SeatMap seatMap = new SeatMap(2, 10);
+        seatMap.book(seatMap.ordinalsOf(Arrays.asList("A2", "A10", "B1")));
+
+        List<String> available = seatMap.availableSeats();
+
+        assertEquals(Arrays.asList("A1", "A3", "A4", "A5", "A6", "A7", "A8", "A9",
+                "B2", "B3", "B4", "B5", "B6", "B7", "B8", "B9", "B10"), available);
+    }
+
+    @Test
+    void testAvailableSeatsAcrossWordBoundaries() {
+        SeatMap seatMap = new SeatMap(26, 10);
+
+        assertEquals(260, seatMap.availableSeats().size());
+        assertEquals("Z10", seatMap.availableSeats().get(259));
+    }
+
+    @Test
+    void testSnapshotsAreImmutableAndVersioned() {
+        SeatMap seatMap = new SeatMap(2, 2);
+        SeatAvailability before = seatMap.snapshot();
+
+        seatMap.book(seatMap.ordinalsOf(Arrays.asList("A1", "B2")));
+        SeatAvailability after = seatMap.snapshot();
+
+        assertEquals(0, before.getVersion());
+        assertEquals(1, after.getVersion());
+        assertEquals(Arrays.asList("A1", "A2", "B1", "B2"), before.availableSeats());
+        assertEquals(Arrays.asList("A2", "B1"), after.availableSeats());
+        assertTrue(before.isAvailable(0));
+        assertFalse(after.isAvailable(0));
+    }
+
+    @Test
+    void testFindBestContiguousPrefersFrontRowAndMiddle() {
+        SeatMap seatMap = new SeatMap(3, 10);
+
+        assertArrayEquals(seatMap.ordinalsOf(Arrays.asList("A4", "A5", "A6", "A7")), seatMap.findBestContiguous(4));
+
+        // Break row A into runs of 3 and 5; a block of 4 must come from the run of 5.
+        seatMap.book(seatMap.ordinalsOf(Arrays.asList("A4", "A5")));
+        assertArrayEquals(seatMap.ordinalsOf(Arrays.asList("A6", "A7", "A8", "A9")), seatMap.findBestContiguous(4));
+
+        // Row A cannot fit 6 adjacent seats any more, so row B is used.
+        assertArrayEquals(seatMap.ordinalsOf(Arrays.asList("B3", "B4", "B5", "B6", "B7", "B8")), seatMap.findBestContiguous(6));
+    }
+
+    @Test
+    void testSectionedSeatMap() {
+        SeatMap seatMap = new SeatMap(SeatLayout.of(Arrays.asList(new Section("101", 2, 4), new Section("FLOOR", 1, 10))));
+        seatMap.book(seatMap.ordinalsOf(Arrays.asList("101-A2", "101-B3")));
+
+        // No row of section 101 has 4 free seats, so the block goes to the floor.
+        assertArrayEquals(seatMap.ordinalsOf(Arrays.asList("FLOOR-A4", "FLOOR-A5", "FLOOR-A6", "FLOOR-A7")),
+                seatMap.findBestContiguous(4));
+        assertArrayEquals(seatMap.ordinalsOf(Arrays.asList("101-A3", "101-A4")), seatMap.findBestContiguous(2));
+        assertNull(seatMap.findBestContiguous(11));
+        assertEquals(16, seatMap.availableCount());
+        assertEquals("101-A1", seatMap.availableSeats().get(0));
+        assertEquals("FLOOR-A10", seatMap.availableSeats().get(15));
+    }
+
+    @Test
+    void testStadiumSizedSeatMap() {
+        List<Section> sections = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            sections.add(new Section(String.valueOf(100 + i), 40, 20));
+        }
+        SeatMap seatMap = new SeatMap(SeatLayout.of(sections));
+
+        assertEquals(80_000, seatMap.capacity());
+        seatMap.book(seatMap.ordinalsOf(Arrays.asList("199-AN20", "150-T10")));
+        assertFalse(seatMap.isAvailable(80_000 - 1));
+        assertEquals(79_998, seatMap.snapshot().availableCount());
+        assertArrayEquals(seatMap.ordinalsOf(Arrays.asList("100-A1", "100-A2", "100-A3", "100-A4", "100-A5", "100-A6",
+                        "100-A7", "100-A8", "100-A9", "100-A10", "100-A11", "100-A12", "100-A13", "100-A14", "100-A15",
+                        "100-A16", "100-A17", "100-A18", "100-A19", "100-A20")),
+                seatMap.findBestContiguous(20));
+    }
+
+    @Test
+    void testFindBestContiguousTracksReleases() {
+        SeatMap seatMap = new SeatMap(2, 4);
+        seatMap.book(seatMap.ordinalsOf(Arrays.asList("A2", "B3")));
+
+        assertNull(seatMap.findBestContiguous(3));
+        assertNull(seatMap.findBestContiguous(5));
+
+        seatMap.release(seatMap.ordinalsOf(Collections.singletonList("B3")));
+
+        assertArrayEquals(seatMap.ordinalsOf(Arrays.asList("B1", "B2", "B3")), seatMap.findBestContiguous(3));
+    }
+
+    @Test
+    void testHeldSeatsAreUnavailableUntilReleasedOrConfirmed() {
+        SeatMap seatMap = new SeatMap(1, 5);
+        int[] held = seatMap.ordinalsOf(Arrays.asList("A2", "A3"));
+
+        seatMap.hold(held);
+        assertFalse(seatMap.areAvailable(held));
+        assertEquals(Arrays.asList("A1", "A4", "A5"), seatMap.availableSeats());
+        assertArrayEquals(seatMap.ordinalsOf(Arrays.asList("A4", "A5")), seatMap.findBestContiguous(2));
+
+        seatMap.releaseHold(held);
+        assertEquals(5, seatMap.availableCount());
+        assertArrayEquals(seatMap.ordinalsOf(Arrays.asList("A2", "A3", "A4")), seatMap.findBestContiguous(3));
+
+        seatMap.hold(held);
+        seatMap.confirmHold(held);
+        assertEquals(3, seatMap.availableCount());
+        // Releasing the hold again must not free seats that are now booked.
+        seatMap.releaseHold(held);
+        assertFalse(seatMap.areAvailable(held));
+        seatMap.release(held);
+        assertEquals(5, seatMap.availableCount());
+    }
+
+    @Test
+    void testSnapshotsDiffTakenAndFreedSeats() {
+        SeatMap seatMap = new SeatMap(2, 5);
+        seatMap.book(seatMap.ordinalsOf(Arrays.asList("A1", "B2")));
+        SeatAvailability before = seatMap.snapshot();
+
+        seatMap.release(seatMap.ordinalsOf(Collections.singletonList("A1")));
+        seatMap.hold(seatMap.ordinalsOf(Arrays.asList("A3", "B5")));
+        SeatAvailability after = seatMap.snapshot();
+
+        assertEquals(Arrays.asList("A3", "B5"), after.seatsTakenSince(before));
+        assertEquals(Collections.singletonList("A1"), after.seatsFreedSince(before));
+        assertEquals(Collections.emptyList(), after.seatsTakenSince(after));
+        assertThrows(IllegalArgumentException.class, () -> after.seatsTakenSince(new SeatMap(2, 5).snapshot()));
+    }
+
+    @Test
+    void testEachMutationPublishesASnapshot() {
+        SeatMap seatMap = new SeatMap(2, 2);
+        SeatAvailability first = seatMap.snapshot();
+
+        assertSame(first, seatMap.snapshot());
+
+        seatMap.hold(seatMap.ordinalsOf(Collections.singletonList("A1")));
+        seatMap.confirmHold(seatMap.ordinalsOf(Collections.singletonList("A1")));
+        SeatAvailability second = seatMap.snapshot();
+
+        assertEquals(2, second.getVersion());
+        assertSame(second, seatMap.snapshot());
+        assertEquals(3, seatMap.availableCount());
+    }
+
+    @Test
+    void testTakenCountIgnoresRepeatsAndUnknownSeats() {
+        SeatMap seatMap = new SeatMap(2, 40);
+        int[] seats = {0, 0, 63, 64, 79, -1, 80};
+
+        seatMap.book(seats);
+        assertEquals(4, seatMap.takenCount());
+        seatMap.hold(seatMap.ordinalsOf(Arrays.asList("A1", "B1")));
+        assertEquals(5, seatMap.takenCount());
+        // A1 stays held after its booking is released.
+        seatMap.release(seats);
+        assertEquals(2, seatMap.takenCount());
+        seatMap.confirmHold(seatMap.ordinalsOf(Arrays.asList("A1", "B1")));
+        assertEquals(2, seatMap.takenCount());
+        seatMap.release(seatMap.ordinalsOf(Collections.singletonList("B1")));
+        assertEquals(1, seatMap.takenCount());
+        assertEquals(seatMap.snapshot().availableCount(), seatMap.availableCount());
+    }
+
+    @Test
+    void testMoveToKeepsSeatState() {
+        SeatMap seatMap = new SeatMap(3, 30);
+        seatMap.book(seatMap.ordinalsOf(Arrays.asList("A1", "C30")));
+        seatMap.hold(seatMap.ordinalsOf(Collections.singletonList("B3")));
+        List<String> before = seatMap.availableSeats();
+
+        seatMap.moveTo(SeatWords.onHeap(seatMap.wordCount(), seatMap.runTreeSize()));
+
+        assertEquals(before, seatMap.availableSeats());
+        assertFalse(seatMap.isAvailable(seatMap.ordinalOf("B3")));
+        seatMap.releaseHold(seatMap.ordinalsOf(Collections.singletonList("B3")));
+        assertTrue(seatMap.isAvailable(seatMap.ordinalOf("B3")));
+        assertEquals(88, seatMap.availableCount());
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.ticketreservation.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for TicketNumber.
+ */
+public class TicketNumberTest {
+
+    @Test
+    void testFormatAndParseRoundTrip() {
+        assertEquals("TK0000000000000", TicketNumber.format(0));
+        assertEquals("TK000000000000Z", TicketNumber.format(35));
+        assertEquals("TK1Y2P0IJ32E8E7", TicketNumber.format(Long.MAX_VALUE));
+        for (long id : new long[] {0, 1, 35, 36, 1234567890123L, Long.MAX_VALUE}) {
+            assertEquals(id, TicketNumber.parse(TicketNumber.format(id)));
+        }
+    }
+
+    @Test
+    void testFormatIntoBuffer() {
+        byte[] buffer = new byte[TicketNumber.LENGTH];
+
+        assertEquals("TK000000000000Z", TicketNumber.format(35, buffer));
+        assertEquals("TK0000000000010", TicketNumber.format(36, buffer));
+        assertEquals("HD000000000000Z", TicketNumber.formatHoldId(35));
+        // The per-thread buffer is reused without leaking into earlier results.
+        String first = TicketNumber.format(1);
+        TicketNumber.format(2);
+        assertEquals("TK0000000000001", first);
+    }
+
+    @Test
+    void testFormattedNumbersSortLikeIds() {
+        assertTrue(TicketNumber.format(35).compareTo(TicketNumber.format(36)) < 0);
+        assertTrue(TicketNumber.format(1L << 40).compareTo(TicketNumber.format(1L << 41)) < 0);
+    }
+
+    @Test
+    void testParseAcceptsUnpaddedNumbers() {
+        assertEquals(Long.parseLong("A1", 36), TicketNumber.parse("TK0000A1"));
+        assertEquals(1L, TicketNumber.parse("TK1"));
+    }
+
+    @Test
+    void testParseRejectsInvalidNumbers() {
+        for (String ticketNumber : Arrays.asList(null, "", "TK", "XX000001", "TK0000a1", "TK-1", "TK00000000000000",
+                "TK1Y2P0IJ32E8E8", "TKZZZZZZZZZZZZZ")) {
+            assertEquals(-1L, TicketNumber.parse(ticketNumber), "ticket number " + ticketNumber);
+        }
+        assertThrows(IllegalArgumentException.class, () -> TicketNumber.format(-1));
+    }
+}
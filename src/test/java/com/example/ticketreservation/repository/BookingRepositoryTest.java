@@ -0,0 +1,118 @@
+package com.example.ticketreservation.repository;
+
+import com.example.ticketreservation.model.Booking;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for BookingRepository.
+ */
+public class BookingRepositoryTest {
+
+    private BookingRepository bookingRepository;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository = new BookingRepository();
+    }
+
+    @Test
+    void testIndexesFollowSaveAndDelete() {
+        bookingRepository.save(new Booking("TK000001", "+111", "SH0001", Arrays.asList("A1", "A2")));
+        bookingRepository.save(new Booking("TK000002", "+222", "SH0001", Collections.singletonList("B1")));
+        bookingRepository.save(new Booking("TK000003", "+111", "SH0002", Collections.singletonList("A1")));
+
+        assertEquals(2, bookingRepository.findByShowNumber("SH0001").size());
+        assertEquals(1, bookingRepository.findByShowNumber("SH0002").size());
+        assertTrue(bookingRepository.isPhoneNumberUsed("SH0001", "+111"));
+        assertTrue(bookingRepository.isPhoneNumberUsed("SH0002", "+111"));
+        assertFalse(bookingRepository.isPhoneNumberUsed("SH0002", "+222"));
+
+        bookingRepository.delete("TK000001");
+
+        assertNull(bookingRepository.findByTicketNumber("TK000001"));
+        assertEquals(1, bookingRepository.findByShowNumber("SH0001").size());
+        assertFalse(bookingRepository.isPhoneNumberUsed("SH0001", "+111"));
+        assertTrue(bookingRepository.isPhoneNumberUsed("SH0002", "+111"));
+    }
+
+    @Test
+    void testUnknownShowHasNoBookings() {
+        assertTrue(bookingRepository.findByShowNumber("SH9999").isEmpty());
+        assertFalse(bookingRepository.isPhoneNumberUsed("SH9999", "+111"));
+    }
+
+    @Test
+    void testDeleteUnknownTicketIsNoOp() {
+        bookingRepository.save(new Booking("TK000001", "+111", "SH0001", Collections.singletonList("A1")));
+
+        bookingRepository.delete("TK000009");
+        bookingRepository.delete("TK000001");
+        bookingRepository.delete("TK000001");
+
+        assertTrue(bookingRepository.findByShowNumber("SH0001").isEmpty());
+    }
+
+    @Test
+    void testDeleteByShowNumber() {
+        bookingRepository.save(new Booking("TK000001", "+111", "SH0001", Collections.singletonList("A1")));
+        bookingRepository.save(new Booking("TK000002", "+222", "SH0001", Collections.singletonList("A2")));
+        bookingRepository.save(new Booking("TK000003", "+111", "SH0002", Collections.singletonList("A1")));
+
+        bookingRepository.deleteByShowNumber("SH0001");
+
+        assertNull(bookingRepository.findByTicketNumber("TK000001"));
+        assertEquals(0, bookingRepository.countByShowNumber("SH0001"));
+        assertFalse(bookingRepository.isPhoneNumberUsed("SH0001", "+111"));
+        assertNotNull(bookingRepository.findByTicketNumber("TK000003"));
+        assertEquals(1, bookingRepository.count());
+    }
+
+    @Test
+    void testMarkFinalKeepsCounts() {
+        Booking first = new Booking("TK000001", "+111", "SH0001", Collections.singletonList("A1"));
+        Booking second = new Booking("TK000002", "+222", "SH0001", Collections.singletonList("A2"));
+        bookingRepository.save(first);
+        bookingRepository.save(second);
+
+        assertTrue(bookingRepository.markFinal(first));
+        assertFalse(bookingRepository.markFinal(first));
+        assertFalse(bookingRepository.markFinal(new Booking("TK000003", "+333", "SH0001", Collections.singletonList("A3"))));
+
+        assertTrue(first.isFinalized());
+        assertEquals(2, bookingRepository.countByShowNumber("SH0001"));
+        assertEquals(1, bookingRepository.countFinalByShowNumber("SH0001"));
+
+        bookingRepository.delete("TK000001");
+        assertEquals(1, bookingRepository.countByShowNumber("SH0001"));
+        assertEquals(0, bookingRepository.countFinalByShowNumber("SH0001"));
+        assertEquals(0, bookingRepository.countFinalByShowNumber("SH9999"));
+    }
+
+    @Test
+    void testPagingByTicketNumber() {
+        for (int i = 5; i >= 1; i--) {
+            bookingRepository.save(new Booking("TK00000" + i, "+" + i, "SH0001", Collections.singletonList("A" + i)));
+        }
+        bookingRepository.delete("TK000003");
+
+        List<String> after = new ArrayList<>();
+        for (Booking booking : bookingRepository.findByShowNumberAfter("SH0001", "TK000001")) {
+            after.add(booking.getTicketNumber());
+        }
+
+        assertEquals(Arrays.asList("TK000002", "TK000004", "TK000005"), after);
+        assertEquals("TK000001", bookingRepository.findByShowNumberAfter("SH0001", null).iterator().next().getTicketNumber());
+        assertFalse(bookingRepository.findByShowNumberAfter("SH0001", "TK000005").iterator().hasNext());
+        assertFalse(bookingRepository.findByShowNumberAfter("SH9999", null).iterator().hasNext());
+        assertEquals(4, bookingRepository.countByShowNumber("SH0001"));
+        assertThrows(IllegalArgumentException.class, () -> bookingRepository.findByShowNumberAfter("SH0001", "SH0001"));
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.ticketreservation.repository;
+
+import com.example.ticketreservation.model.SeatAvailability;
+import com.example.ticketreservation.model.SeatMap;
+import com.example.ticketreservation.model.SeatWords;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for OffHeapSeatStore.
+ */
+public class OffHeapSeatStoreTest {
+
+    private final OffHeapSeatStore store = new OffHeapSeatStore(true);
+
+    @Test
+    void testWordsAreSeparate() {
+        SeatWords words = store.allocate(3, 4);
+        SeatWords other = store.allocate(3, 4);
+        words.booked(0, 1L);
+        words.booked(2, -1L);
+        words.held(0, 2L);
+        other.booked(0, 4L);
+        words.runTree(0, 9);
+        words.runTree(3, 11);
+
+        assertEquals(3, words.length());
+        assertEquals(4, words.runTreeSize());
+        assertFalse(words.isOnHeap());
+        assertEquals(1L, words.booked(0));
+        assertEquals(0L, words.booked(1));
+        assertEquals(-1L, words.booked(2));
+        assertEquals(2L, words.held(0));
+        assertEquals(0L, words.held(2));
+        assertEquals(4L, other.booked(0));
+        assertEquals(9, words.runTree(0));
+        assertEquals(11, words.runTree(3));
+        assertEquals(0, other.runTree(0));
+    }
+
+    @Test
+    void testFreedSlotsAreReusedAndCleared() {
+        SeatWords words = store.allocate(1250, 64);
+        words.booked(1099, 7L);
+        words.held(1099, 7L);
+        words.runTree(63, 7);
+        long reserved = store.reservedBytes();
+
+        words.free();
+        SeatWords reused = store.allocate(1100, 64);
+
+        assertSame(words, reused);
+        assertEquals(reserved, store.reservedBytes());
+        assertEquals(0L, reused.booked(1099));
+        assertEquals(0L, reused.held(1099));
+        assertEquals(0, reused.runTree(63));
+    }
+
+    @Test
+    void testSlotsLargerThanAChunk() {
+        SeatWords words = store.allocate(100_000, 2);
+        words.held(99_999, 3L);
+
+        assertEquals(3L, words.held(99_999));
+        assertEquals(0L, words.booked(99_999));
+    }
+
+    @Test
+    void testOffHeapSeatMaps() {
+        SeatMap seatMap = new SeatMap(3, 10);
+        seatMap.book(seatMap.ordinalsOf(Arrays.asList("A4", "A5", "B1")));
+        SeatAvailability onHeap = seatMap.snapshot();
+
+        seatMap.moveTo(store.allocate(seatMap.wordCount(), seatMap.runTreeSize()));
+
+        // Snapshots are copied on every read rather than kept on the heap.
+        SeatAvailability first = seatMap.snapshot();
+        assertNotSame(onHeap, first);
+        assertNotSame(first, seatMap.snapshot());
+        assertEquals(onHeap.availableSeats(), first.availableSeats());
+        // The run tree moved along with the bits.
+        assertArrayEquals(seatMap.ordinalsOf(Arrays.asList("A6", "A7", "A8", "A9", "A10")), seatMap.findBestContiguous(5));
+        seatMap.book(seatMap.ordinalsOf(Collections.singletonList("A8")));
+        assertArrayEquals(seatMap.ordinalsOf(Arrays.asList("B3", "B4", "B5", "B6", "B7")), seatMap.findBestContiguous(5));
+    }
+
+    @Test
+    void testDisabled() {
+        assertFalse(OffHeapSeatStore.disabled().isEnabled());
+        assertTrue(store.isEnabled());
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.ticketreservation.repository;
+
+import com.example.ticketreservation.model.Show;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for ShowRepository.
+ */
+public class ShowRepositoryTest {
+
+    @Test
+    void testOffHeapSeatStateSurvivesReplacement() {
+        OffHeapSeatStore store = new OffHeapSeatStore(true);
+        ShowRepository showRepository = new ShowRepository(store);
+        Show show = new Show("SH0001", 10, 10, 2);
+        show.updateSeatAvailability(Arrays.asList("A1", "J10"), false);
+
+        showRepository.save(show);
+        showRepository.save(show);
+        show.updateSeatAvailability(Collections.singletonList("B5"), false);
+
+        assertEquals(97, show.getSeats().availableCount());
+        assertFalse(show.getSeats().isAvailable(show.getSeats().ordinalOf("J10")));
+        long reserved = store.reservedBytes();
+
+        showRepository.save(new Show("SH0001", 10, 10, 2));
+        showRepository.save(new Show("SH0002", 10, 10, 2));
+
+        // The replaced show keeps its seats on the heap; its slot goes to the next show.
+        assertEquals(reserved, store.reservedBytes());
+        assertEquals(97, show.getSeats().availableCount());
+        assertEquals(100, showRepository.findByShowNumber("SH0001").getSeats().availableCount());
+        assertEquals(100, showRepository.findByShowNumber("SH0002").getSeats().availableCount());
+    }
+}
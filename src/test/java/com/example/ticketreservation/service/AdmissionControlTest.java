@@ -0,0 +1,183 @@
+package com.example.ticketreservation.service;
+
+import com.example.ticketreservation.exception.AdmissionRejectedException;
+import com.example.ticketreservation.model.AdmissionStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for AdmissionControl.
+ */
+public class AdmissionControlTest {
+
+    private final TimingWheel wheel = new TimingWheel(10, 8);
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @BeforeEach
+    void setUp() {
+        wheel.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        wheel.stop();
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testBookingsRunAtOnceWhileTokensAreFree() {
+        AdmissionControl admission = new AdmissionControl(wheel, true, 2, 10, 5000, executor);
+        CompletableFuture<String> first = new CompletableFuture<>();
+
+        CompletableFuture<String> admitted = admission.admit("SH0001", () -> first);
+        CompletableFuture<String> second = admission.admit("SH0001", () -> CompletableFuture.completedFuture("TK000002"));
+
+        assertEquals("TK000002", second.join());
+        assertEquals(new AdmissionStatus("SH0001", 1, 0, 0), withoutEstimate(admission.status("SH0001")));
+        first.complete("TK000001");
+        assertEquals("TK000001", admitted.join());
+        assertEquals(new AdmissionStatus("SH0001", 0, 0, 0), admission.status("SH0001"));
+    }
+
+    @Test
+    void testWaitersAreAdmittedInOrder() {
+        AdmissionControl admission = new AdmissionControl(wheel, true, 1, 10, 5000, executor);
+        CompletableFuture<String> running = new CompletableFuture<>();
+        List<String> order = new ArrayList<>();
+
+        admission.admit("SH0001", () -> running);
+        List<CompletableFuture<String>> waiting = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            String ticket = "TK00000" + (i + 2);
+            waiting.add(admission.admit("SH0001", () -> {
+                synchronized (order) {
+                    order.add(ticket);
+                }
+                return CompletableFuture.completedFuture(ticket);
+            }));
+        }
+        assertEquals(3, admission.status("SH0001").getQueued());
+        running.complete("TK000001");
+
+        for (CompletableFuture<String> waiter : waiting) {
+            waiter.join();
+        }
+        assertEquals(List.of("TK000002", "TK000003", "TK000004"), order);
+        assertEquals(new AdmissionStatus("SH0001", 0, 0, 0), admission.status("SH0001"));
+    }
+
+    @Test
+    void testBuyersAreTurnedAwayWhenTheQueueIsFull() {
+        AdmissionControl admission = new AdmissionControl(wheel, true, 1, 1, 5000, executor);
+        CompletableFuture<String> running = new CompletableFuture<>();
+
+        admission.admit("SH0001", () -> running);
+        CompletableFuture<String> queued = admission.admit("SH0001", () -> CompletableFuture.completedFuture("TK000002"));
+        CompletableFuture<String> shed = admission.admit("SH0001", () -> CompletableFuture.completedFuture("TK000003"));
+
+        CompletionException e = assertThrows(CompletionException.class, shed::join);
+        AdmissionRejectedException rejected = assertInstanceOf(AdmissionRejectedException.class, e.getCause());
+        assertEquals(2, rejected.getPosition());
+        // Other shows have their own waiting room.
+        assertEquals("TK000004", admission.admit("SH0002", () -> CompletableFuture.completedFuture("TK000004")).join());
+
+        running.complete("TK000001");
+        assertEquals("TK000002", queued.join());
+    }
+
+    @Test
+    void testWaitersTimeOut() {
+        AdmissionControl admission = new AdmissionControl(wheel, true, 1, 10, 50, executor);
+        CompletableFuture<String> running = new CompletableFuture<>();
+
+        admission.admit("SH0001", () -> running);
+        CompletableFuture<String> waiter = admission.admit("SH0001", () -> CompletableFuture.completedFuture("TK000002"));
+
+        CompletionException e = assertThrows(CompletionException.class, waiter::join);
+        assertInstanceOf(AdmissionRejectedException.class, e.getCause());
+        assertEquals(0, admission.status("SH0001").getQueued());
+
+        // The token goes back to the show rather than to the waiter that left.
+        running.complete("TK000001");
+        assertEquals(new AdmissionStatus("SH0001", 0, 0, 0), admission.status("SH0001"));
+        assertEquals("TK000003", admission.admit("SH0001", () -> CompletableFuture.completedFuture("TK000003")).join());
+    }
+
+    @Test
+    void testQueuedBuyersAreToldTheirPosition() {
+        AdmissionControl admission = new AdmissionControl(wheel, true, 1, 10, 5000, executor);
+        CompletableFuture<String> running = new CompletableFuture<>();
+        List<Integer> positions = new ArrayList<>();
+
+        admission.admit("SH0001", (position, estimatedWaitMillis) -> positions.add(position), () -> running);
+        for (int i = 0; i < 2; i++) {
+            admission.admit("SH0001", (position, estimatedWaitMillis) -> positions.add(position),
+                    () -> CompletableFuture.completedFuture("TK000002"));
+        }
+
+        // The buyer admitted straight away is not told anything.
+        assertEquals(List.of(1, 2), positions);
+        running.complete("TK000001");
+    }
+
+    @Test
+    void testExpiredWaitersLeaveTheQueue() {
+        AdmissionControl admission = new AdmissionControl(wheel, true, 1, 1, 50, executor);
+        CompletableFuture<String> running = new CompletableFuture<>();
+        List<Integer> positions = new ArrayList<>();
+
+        admission.admit("SH0001", () -> running);
+        CompletableFuture<String> first = admission.admit("SH0001", () -> CompletableFuture.completedFuture("TK000002"));
+        assertThrows(CompletionException.class, first::join);
+        CompletableFuture<String> second = admission.admit("SH0001",
+                (position, estimatedWaitMillis) -> positions.add(position),
+                () -> CompletableFuture.completedFuture("TK000003"));
+
+        // The first waiter no longer takes a place in the full queue or counts ahead of the second.
+        assertEquals(List.of(1), positions);
+        CompletionException e = assertThrows(CompletionException.class, second::join);
+        assertEquals(1, assertInstanceOf(AdmissionRejectedException.class, e.getCause()).getPosition());
+        assertEquals(0, admission.status("SH0001").getQueued());
+        running.complete("TK000001");
+    }
+
+    @Test
+    void testFailedBookingsReturnTheirToken() {
+        AdmissionControl admission = new AdmissionControl(wheel, true, 1, 10, 5000, executor);
+
+        CompletableFuture<String> failed = admission.admit("SH0001", () -> {
+            throw new IllegalArgumentException("One or more selected seats are not available.");
+        });
+
+        CompletionException e = assertThrows(CompletionException.class, failed::join);
+        assertInstanceOf(IllegalArgumentException.class, e.getCause());
+        assertEquals("TK000002", admission.admit("SH0001", () -> CompletableFuture.completedFuture("TK000002")).join());
+    }
+
+    @Test
+    void testDisabledAdmitsEverything() {
+        AdmissionControl admission = AdmissionControl.disabled();
+
+        for (int i = 0; i < 100; i++) {
+            admission.admit("SH0001", CompletableFuture::new);
+        }
+
+        assertEquals(new AdmissionStatus("SH0001", 0, 0, 0), admission.status("SH0001"));
+    }
+
+    private static AdmissionStatus withoutEstimate(AdmissionStatus status) {
+        return new AdmissionStatus(status.getShowNumber(), status.getInFlight(), status.getQueued(), 0);
+    }
+}
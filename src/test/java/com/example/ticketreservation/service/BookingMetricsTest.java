@@ -0,0 +1,83 @@
+package com.example.ticketreservation.service;
+
+import com.example.ticketreservation.model.Show;
+import com.example.ticketreservation.repository.BookingRepository;
+import com.example.ticketreservation.repository.ShowRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for BookingMetrics.
+ */
+public class BookingMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ShowRepository showRepository = new ShowRepository();
+    private final BookingMetrics bookingMetrics = new BookingMetrics(registry, showRepository, new BookingRepository(), false);
+
+    @Test
+    void testRecordLatencyAndRejections() {
+        bookingMetrics.record(BookingMetrics.Operation.BOOK, System.nanoTime());
+        bookingMetrics.record(BookingMetrics.Operation.BOOK, System.nanoTime());
+        bookingMetrics.rejected(BookingMetrics.Operation.BOOK, "Show not found.");
+        bookingMetrics.rejected(BookingMetrics.Operation.BOOK, "Show not found.");
+        bookingMetrics.rejected(BookingMetrics.Operation.CANCEL, "Cancellation window has passed.");
+
+        assertEquals(2L, registry.get("ticketreservation.book").timer().count());
+        assertEquals(0L, registry.get("ticketreservation.cancel").timer().count());
+        assertEquals(2.0, registry.get("ticketreservation.rejections")
+                .tag("operation", "book").tag("reason", "Show not found.").counter().count());
+        assertEquals(1.0, registry.get("ticketreservation.rejections")
+                .tag("operation", "cancel").tag("reason", "Cancellation window has passed.").counter().count());
+    }
+
+    @Test
+    void testLockWaitsOnEventLoopsAreStalls() throws InterruptedException {
+        ShowPartitions partitions = new ShowPartitions(true, 1, 16);
+        try {
+            bookingMetrics.recordLockWait(System.nanoTime());
+            partitions.submit("SH0001", () -> {
+                bookingMetrics.recordLockWait(System.nanoTime());
+                return null;
+            }).join();
+        } finally {
+            partitions.stop();
+        }
+
+        assertEquals(2L, registry.get("ticketreservation.lock.wait").timer().count());
+        assertEquals(1L, registry.get("ticketreservation.loop.stall").timer().count());
+    }
+
+    @Test
+    void testGauges() {
+        Show show = new Show("SH0001", 2, 5, 60);
+        show.getSeats().book(show.getSeats().ordinalsOf(Arrays.asList("A1", "A2", "B3")));
+        showRepository.save(show);
+        showRepository.save(new Show("SH0002", 1, 10, 60));
+
+        bookingMetrics.registerGauges();
+        bookingMetrics.showConfigured("SH0002");
+
+        assertEquals(2.0, registry.get("ticketreservation.shows").gauge().value());
+        assertEquals(0.0, registry.get("ticketreservation.bookings").gauge().value());
+        assertEquals(0.15, registry.get("ticketreservation.occupancy").gauge().value(), 1e-9);
+        // Per-show gauges are off by default.
+        assertNull(registry.find("ticketreservation.show.occupancy").gauge());
+    }
+
+    @Test
+    void testPerShowOccupancy() {
+        BookingMetrics perShow = new BookingMetrics(registry, showRepository, new BookingRepository(), true);
+        Show show = new Show("SH0001", 2, 5, 60);
+        show.getSeats().book(show.getSeats().ordinalsOf(Arrays.asList("A1", "A2", "B3")));
+        showRepository.save(show);
+
+        perShow.registerGauges();
+
+        assertEquals(0.3, registry.get("ticketreservation.show.occupancy").tag("show", "SH0001").gauge().value(), 1e-9);
+    }
+}
@@ -1,6 +1,10 @@
 package com.example.ticketreservation.service;
 
+import com.example.ticketreservation.journal.BookingJournal;
 import com.example.ticketreservation.model.Booking;
+import com.example.ticketreservation.model.BookingRequest;
+import com.example.ticketreservation.model.BookingResult;
+import com.example.ticketreservation.model.SeatHold;
 import com.example.ticketreservation.model.Show;
 import com.example.ticketreservation.repository.BookingRepository;
 import com.example.ticketreservation.repository.ShowRepository;
@@ -9,9 +13,16 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -30,6 +41,27 @@ public class BookingServiceTest {
     @Mock
     private ShowService showService;
 
+    @Spy
+    private ShowLocks showLocks = new ShowLocks();
+
+    @Mock
+    private BookingJournal bookingJournal;
+
+    @Mock
+    private TimingWheel timingWheel;
+
+    @Mock
+    private BookingFinalizer bookingFinalizer;
+
+    @Spy
+    private TicketNumberGenerator ticketNumberGenerator = new TicketNumberGenerator();
+
+    @Mock
+    private BookingMetrics bookingMetrics;
+
+    @Mock
+    private ShowPartitions showPartitions;
+
     @InjectMocks
     private BookingService bookingService;
 
@@ -59,7 +91,8 @@ public class BookingServiceTest {
         Booking booking = new Booking(ticketNumber, "+1234567890", "SH000123", Arrays.asList("A1", "A2"));
         when(bookingRepository.findByTicketNumber(ticketNumber)).thenReturn(booking);
 
-        Show show = new Show("SH000123", 10, 5, 60, new HashMap<>());
+        Show show = new Show("SH000123", 10, 5, 60);
+        booking.setCancellationDeadline(show.cancellationDeadline(booking.getBookingCreationTime()));
         when(showRepository.findByShowNumber("SH000123")).thenReturn(show);
 
         doNothing().when(showService).updateShowSeatAvailability(show, booking.getSeats(), true);
@@ -67,6 +100,215 @@ public class BookingServiceTest {
         bookingService.cancelBooking(ticketNumber, "+1234567890");
 
         verify(showService, times(1)).updateShowSeatAvailability(show, booking.getSeats(), true);
-        verify(bookingRepository, times(2)).delete(ticketNumber);
+        verify(bookingRepository, times(1)).delete(ticketNumber);
+        verify(bookingFinalizer).untrack(booking);
+    }
+
+    @Test
+    void testCancelFinalBookingIsRejected() {
+        String ticketNumber = "TK0000A2";
+        Booking booking = new Booking(ticketNumber, "+1234567890", "SH000123", Arrays.asList("A1"));
+        booking.setFinalized(true);
+        when(bookingRepository.findByTicketNumber(ticketNumber)).thenReturn(booking);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> bookingService.cancelBooking(ticketNumber, "+1234567890"));
+
+        assertEquals("Cancellation window has passed.", e.getMessage());
+        verify(bookingMetrics).rejected(BookingMetrics.Operation.CANCEL, "Cancellation window has passed.");
+        verify(bookingRepository, never()).delete(ticketNumber);
+        verify(showRepository, never()).findByShowNumber("SH000123");
+    }
+
+    @Test
+    void testConcurrentBookingsOfSameSeatOnlyOneSucceeds() throws InterruptedException {
+        ServiceFixture fixture = ServiceFixture.create();
+        BookingService service = fixture.bookingService;
+        fixture.showService.configureShow("SH000200", 2, 2, 60);
+
+        int buyers = 32;
+        ExecutorService pool = Executors.newFixedThreadPool(buyers);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger successes = new AtomicInteger();
+        for (int i = 0; i < buyers; i++) {
+            String phoneNumber = "+100000" + i;
+            pool.submit(() -> {
+                start.await();
+                try {
+                    service.bookSeats("SH000200", phoneNumber, Arrays.asList("A1", "B2"));
+                    successes.incrementAndGet();
+                } catch (IllegalArgumentException e) {
+                    // Lost the race for the seats
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(1, successes.get());
+        assertEquals(1, fixture.bookingRepository.findByShowNumber("SH000200").size());
+        assertEquals(Arrays.asList("A2", "B1"), service.checkAvailableSeats("SH000200"));
+    }
+
+    @Test
+    void testBookSeatsInBatchAllowsPartialSuccess() {
+        ServiceFixture fixture = ServiceFixture.create();
+        BookingService service = fixture.bookingService;
+        fixture.showService.configureShow("SH000300", 2, 5, 60);
+
+        List<BookingResult> results = service.bookSeatsInBatch(Arrays.asList(
+                new BookingRequest("SH000300", "+1", Arrays.asList("A1", "A2")),
+                new BookingRequest("SH000300", "+2", Arrays.asList("A2", "A3")),
+                new BookingRequest("SH000399", "+3", Arrays.asList("A1")),
+                new BookingRequest("SH000300", "+1", Arrays.asList("B1")),
+                new BookingRequest("SH000300", "+4", Arrays.asList("B5"))));
+
+        assertTrue(results.get(0).isSuccess());
+        assertEquals("One or more selected seats are not available.", results.get(1).getError());
+        assertEquals("Show not found.", results.get(2).getError());
+        assertEquals("This phone number has existing booking in this show.", results.get(3).getError());
+        assertTrue(results.get(4).isSuccess());
+        assertEquals(2, fixture.bookingRepository.findByShowNumber("SH000300").size());
+        assertEquals(7, service.checkAvailableSeats("SH000300").size());
+    }
+
+    @Test
+    void testHoldSeatsThenConfirmOrExpire() throws Exception {
+        ServiceFixture fixture = ServiceFixture.builder().startTimingWheel(10, 8).build();
+        BookingService service = fixture.bookingService;
+        fixture.showService.configureShow("SH000400", 1, 5, 60);
+
+        try {
+            SeatHold confirmed = service.holdSeats("SH000400", "+1", Arrays.asList("A1", "A2"), 60);
+            SeatHold lapsed = service.holdSeats("SH000400", "+2", Arrays.asList("A5"), 1);
+            assertEquals(Arrays.asList("A3", "A4"), service.checkAvailableSeats("SH000400"));
+            assertThrows(IllegalArgumentException.class,
+                    () -> service.bookSeats("SH000400", "+3", Arrays.asList("A2")));
+
+            String ticketNumber = service.confirmHold("SH000400", confirmed.getHoldId(), "+1");
+            assertEquals(Arrays.asList("A1", "A2"), fixture.bookingRepository.findByTicketNumber(ticketNumber).getSeats());
+            assertThrows(IllegalArgumentException.class,
+                    () -> service.confirmHold("SH000400", confirmed.getHoldId(), "+1"));
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (service.checkAvailableSeats("SH000400").size() < 3 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(Arrays.asList("A3", "A4", "A5"), service.checkAvailableSeats("SH000400"));
+            assertThrows(IllegalArgumentException.class,
+                    () -> service.confirmHold("SH000400", lapsed.getHoldId(), "+2"));
+        } finally {
+            fixture.stop();
+        }
+    }
+
+    @Test
+    void testHoldExpiryWaitsForALockedShowWithoutBlockingTheWheel() throws Exception {
+        ServiceFixture fixture = ServiceFixture.builder().startTimingWheel(10, 8).build();
+        BookingService service = fixture.bookingService;
+        fixture.showService.configureShow("SH000500", 1, 5, 60);
+
+        try {
+            service.holdSeats("SH000500", "+1", Arrays.asList("A1"), 1);
+            CountDownLatch ran = new CountDownLatch(1);
+            fixture.showLocks.lockFor("SH000500").lock();
+            try {
+                fixture.timingWheel.schedule(1500, ran::countDown);
+                // The expiry is due while the show is locked; the wheel keeps running other tasks.
+                assertTrue(ran.await(5, TimeUnit.SECONDS));
+                assertFalse(service.checkAvailableSeats("SH000500").contains("A1"));
+            } finally {
+                fixture.showLocks.lockFor("SH000500").unlock();
+            }
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!service.checkAvailableSeats("SH000500").contains("A1") && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(Arrays.asList("A1", "A2", "A3", "A4", "A5"), service.checkAvailableSeats("SH000500"));
+        } finally {
+            fixture.stop();
+        }
+    }
+
+    @Test
+    void testShowWithHoldsOrBookingsIsNotConfiguredAgain() {
+        ServiceFixture fixture = ServiceFixture.create();
+        BookingService service = fixture.bookingService;
+        fixture.showService.configureShow("SH000800", 1, 5, 60);
+        Show show = fixture.showRepository.findByShowNumber("SH000800");
+
+        SeatHold hold = service.holdSeats("SH000800", "+1", Arrays.asList("A1"), 60);
+        assertEquals("Show SH000800 has bookings or holds and cannot be configured again.", assertThrows(
+                IllegalArgumentException.class, () -> fixture.showService.configureShow("SH000800", 1, 5, 60)).getMessage());
+        String ticketNumber = service.confirmHold("SH000800", hold.getHoldId(), "+1");
+        assertThrows(IllegalArgumentException.class, () -> fixture.showService.configureShow("SH000800", 1, 5, 60));
+        assertSame(show, fixture.showRepository.findByShowNumber("SH000800"));
+        assertNotNull(fixture.bookingRepository.findByTicketNumber(ticketNumber));
+
+        service.cancelBooking(ticketNumber, "+1");
+        fixture.showService.configureShow("SH000800", 1, 5, 60);
+        assertNotSame(show, fixture.showRepository.findByShowNumber("SH000800"));
+    }
+
+    @Test
+    void testBookingThatWaitedForTheLockUsesTheReconfiguredShow() throws Exception {
+        ServiceFixture fixture = ServiceFixture.create();
+        BookingService service = fixture.bookingService;
+        fixture.showService.configureShow("SH000700", 1, 5, 60);
+        ReentrantLock lock = fixture.showLocks.lockFor("SH000700");
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<String> booking;
+            Show reconfigured;
+            lock.lock();
+            try {
+                booking = executor.submit(() -> service.bookSeats("SH000700", "+1", Arrays.asList("A1")));
+                while (!lock.hasQueuedThreads()) {
+                    Thread.sleep(5);
+                }
+                // Configured again while the booking waits, with a new seat map.
+                fixture.showService.configureShow("SH000700", 1, 5, 60);
+                reconfigured = fixture.showRepository.findByShowNumber("SH000700");
+            } finally {
+                lock.unlock();
+            }
+
+            booking.get(5, TimeUnit.SECONDS);
+            assertSame(reconfigured, fixture.showRepository.findByShowNumber("SH000700"));
+            assertEquals(Arrays.asList("A2", "A3", "A4", "A5"), service.checkAvailableSeats("SH000700"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testSeatSelectionsAreValidatedPerRequest() {
+        ServiceFixture fixture = ServiceFixture.create();
+        BookingService service = fixture.bookingService;
+        fixture.showService.configureShow("SH000600", 1, 5, 60);
+
+        List<BookingResult> results = service.bookSeatsInBatch(Arrays.asList(
+                null,
+                new BookingRequest("SH000600", "+1", List.of()),
+                new BookingRequest("SH000600", "+2", Arrays.asList("A1", "A1")),
+                new BookingRequest("SH000600", "+3", Arrays.asList("A1"))));
+
+        assertEquals("Booking request is required.", results.get(0).getError());
+        assertEquals("Phone number and selected seats are required.", results.get(1).getError());
+        assertEquals("The same seat cannot be selected twice.", results.get(2).getError());
+        assertTrue(results.get(3).isSuccess());
+        assertEquals("The same seat cannot be selected twice.", assertThrows(IllegalArgumentException.class,
+                () -> service.bookSeats("SH000600", "+4", Arrays.asList("A2", "A2"))).getMessage());
+        assertEquals("Selected seats are required.", assertThrows(IllegalArgumentException.class,
+                () -> service.bookSeats("SH000600", "+4", List.of())).getMessage());
+        assertEquals("The same seat cannot be selected twice.", assertThrows(IllegalArgumentException.class,
+                () -> service.holdSeats("SH000600", "+5", Arrays.asList("A3", "A3"), 60)).getMessage());
+        assertEquals("Selected seats are required.", assertThrows(IllegalArgumentException.class,
+                () -> service.holdSeats("SH000600", "+5", null, 60)).getMessage());
+        assertEquals(Arrays.asList("A2", "A3", "A4", "A5"), service.checkAvailableSeats("SH000600"));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,98 @@
+package com.example.ticketreservation.service;
+
+import com.example.ticketreservation.exception.MisdirectedRequestException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for ClusterTopology.
+ */
+public class ClusterTopologyTest {
+
+    private static final String NODES = "http://localhost:8080, http://localhost:8081/,http://localhost:8082";
+
+    @Test
+    void testStandaloneOwnsEveryShow() {
+        ClusterTopology topology = ClusterTopology.standalone();
+
+        assertFalse(topology.isEnabled());
+        assertEquals(0, topology.ownerOf("SH0001"));
+        topology.checkOwner("SH0001");
+        topology.checkTicketOwner(new TicketNumberGenerator(5).next());
+    }
+
+    @Test
+    void testAllNodesAgreeAndShowsSpreadEvenly() {
+        ClusterTopology[] nodes = new ClusterTopology[3];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = new ClusterTopology(i, NODES);
+        }
+
+        int[] shows = new int[3];
+        for (int i = 0; i < 30000; i++) {
+            String showNumber = String.format("SH%05d", i);
+            int owner = nodes[0].ownerOf(showNumber);
+            assertEquals(owner, nodes[1].ownerOf(showNumber));
+            assertEquals(owner, nodes[2].ownerOf(showNumber));
+            shows[owner]++;
+        }
+        for (int count : shows) {
+            assertTrue(count > 8000 && count < 12000, "Unbalanced: " + count);
+        }
+    }
+
+    @Test
+    void testAddingANodeOnlyMovesItsShare() {
+        ClusterTopology three = new ClusterTopology(0, NODES);
+        ClusterTopology four = new ClusterTopology(0, NODES + ",http://localhost:8083");
+
+        int moved = 0;
+        for (int i = 0; i < 30000; i++) {
+            String showNumber = String.format("SH%05d", i);
+            int before = three.ownerOf(showNumber);
+            int after = four.ownerOf(showNumber);
+            if (before != after) {
+                assertEquals(3, after);
+                moved++;
+            }
+        }
+        assertTrue(moved > 5000 && moved < 10000, "Moved: " + moved);
+    }
+
+    @Test
+    void testRedirectsToOwner() {
+        ClusterTopology topology = new ClusterTopology(0, NODES);
+        String remoteShow = null;
+        for (int i = 0; remoteShow == null; i++) {
+            if (topology.ownerOf("SH" + i) == 1) {
+                remoteShow = "SH" + i;
+            }
+        }
+        String finalRemoteShow = remoteShow;
+
+        MisdirectedRequestException e = assertThrows(MisdirectedRequestException.class,
+                () -> topology.checkOwner(finalRemoteShow));
+
+        assertEquals(1, e.getOwnerNodeId());
+        assertEquals("http://localhost:8081", e.getOwnerUrl());
+    }
+
+    @Test
+    void testRoutesTicketsByIssuingNode() {
+        ClusterTopology topology = new ClusterTopology(0, NODES);
+
+        assertEquals(2, topology.ownerOfTicket(new TicketNumberGenerator(2).next()));
+        assertEquals(0, topology.ownerOfTicket("not a ticket"));
+        // Issued by a node outside the cluster, so it cannot be routed anywhere else.
+        assertEquals(0, topology.ownerOfTicket(new TicketNumberGenerator(7).next()));
+        MisdirectedRequestException e = assertThrows(MisdirectedRequestException.class,
+                () -> topology.checkTicketOwner(new TicketNumberGenerator(2).next()));
+        assertEquals("http://localhost:8082", e.getOwnerUrl());
+    }
+
+    @Test
+    void testNodeIdMustBeInTheCluster() {
+        assertThrows(IllegalArgumentException.class, () -> new ClusterTopology(3, NODES));
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.ticketreservation.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for IdempotencyCache.
+ */
+public class IdempotencyCacheTest {
+
+    private final TimingWheel wheel = new TimingWheel(10, 8);
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        wheel.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        wheel.stop();
+    }
+
+    @Test
+    void testRetryGetsOriginalResult() {
+        IdempotencyCache cache = new IdempotencyCache(wheel, 600, 10);
+        CompletableFuture<String> pending = new CompletableFuture<>();
+
+        CompletableFuture<String> first = cache.execute("key-1", "book SH0001", () -> {
+            runs.incrementAndGet();
+            return pending;
+        });
+        CompletableFuture<String> retry = cache.execute("key-1", "book SH0001", () -> {
+            runs.incrementAndGet();
+            return CompletableFuture.completedFuture("TK000002");
+        });
+        pending.complete("TK000001");
+
+        assertEquals("TK000001", first.join());
+        assertEquals("TK000001", retry.join());
+        assertEquals("TK000001", cache.execute("key-1", "book SH0001", this::book).join());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void testFailuresAreKept() {
+        IdempotencyCache cache = new IdempotencyCache(wheel, 600, 10);
+
+        CompletableFuture<String> first = cache.execute("key-1", "book SH0001", () -> {
+            runs.incrementAndGet();
+            throw new IllegalArgumentException("One or more selected seats are not available.");
+        });
+        CompletableFuture<String> retry = cache.execute("key-1", "book SH0001", this::book);
+
+        CompletionException e = assertThrows(CompletionException.class, retry::join);
+        assertInstanceOf(IllegalArgumentException.class, e.getCause());
+        assertTrue(first.isCompletedExceptionally());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void testRejectedRequestsAreNotKept() {
+        IdempotencyCache cache = new IdempotencyCache(wheel, 600, 10);
+
+        CompletableFuture<String> first = cache.execute("key-1", "book SH0001",
+                () -> CompletableFuture.failedFuture(new RejectedExecutionException("Show queue is full.")));
+        CompletableFuture<String> retry = cache.execute("key-1", "book SH0001", this::book);
+
+        assertTrue(first.isCompletedExceptionally());
+        assertEquals("TK000001", retry.join());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void testKeyCannotBeReusedForAnotherRequest() {
+        IdempotencyCache cache = new IdempotencyCache(wheel, 600, 10);
+        cache.execute("key-1", "book SH0001", this::book);
+
+        assertThrows(IllegalArgumentException.class, () -> cache.execute("key-1", "book SH0002", this::book));
+        assertThrows(IllegalArgumentException.class, () -> cache.execute("", "book SH0001", this::book));
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void testWithoutKeyOrWhenFullRequestsRunEveryTime() {
+        IdempotencyCache cache = new IdempotencyCache(wheel, 600, 1);
+        cache.execute(null, "book SH0001", this::book);
+        cache.execute(null, "book SH0001", this::book);
+        cache.execute("key-1", "book SH0001", this::book);
+        cache.execute("key-2", "book SH0001", this::book);
+        cache.execute("key-2", "book SH0001", this::book);
+        IdempotencyCache.disabled().execute("key-1", "book SH0001", this::book);
+
+        assertEquals(6, runs.get());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testActionIsToldWhetherItsKeyIsKept() {
+        IdempotencyCache cache = new IdempotencyCache(wheel, 600, 1);
+        List<Boolean> remembered = new ArrayList<>();
+
+        cache.execute("key-1", "book SH0001", kept -> {
+            remembered.add(kept);
+            return book();
+        });
+        cache.execute(null, "book SH0001", kept -> {
+            remembered.add(kept);
+            return book();
+        });
+        cache.execute("key-2", "book SH0001", kept -> {
+            remembered.add(kept);
+            return book();
+        });
+
+        // The second has no key, and the third finds the cache full.
+        assertEquals(List.of(true, false, false), remembered);
+    }
+
+    @Test
+    void testResultsExpire() throws InterruptedException {
+        IdempotencyCache cache = new IdempotencyCache(wheel, 0, 10);
+        cache.execute("key-1", "book SH0001", this::book);
+
+        for (int i = 0; i < 500 && cache.size() > 0; i++) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(0, cache.size());
+        cache.execute("key-1", "book SH0001", this::book);
+        assertEquals(2, runs.get());
+    }
+
+    private CompletableFuture<String> book() {
+        runs.incrementAndGet();
+        return CompletableFuture.completedFuture("TK000001");
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.ticketreservation.service;
+
+import com.example.ticketreservation.model.Show;
+import com.example.ticketreservation.repository.ShowRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for SeatStreamService.
+ */
+public class SeatStreamServiceTest {
+
+    private final ShowRepository showRepository = new ShowRepository();
+    private final TimingWheel timingWheel = new TimingWheel(10, 8);
+    private final SeatStreamService seatStreamService = new SeatStreamService(showRepository, timingWheel, 50);
+
+    @BeforeEach
+    void setUp() {
+        timingWheel.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        seatStreamService.stop();
+        timingWheel.stop();
+    }
+
+    @Test
+    void testSubscribeToUnknownShowIsRejected() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> seatStreamService.subscribe("SH000999"));
+
+        assertEquals("Show not found.", e.getMessage());
+    }
+
+    @Test
+    void testSeatsChangedWithoutSubscribersIsIgnored() {
+        assertDoesNotThrow(() -> seatStreamService.seatsChanged("SH000999"));
+    }
+
+    @Test
+    void testStalledSubscriberIsDroppedWithoutHoldingUpOthers() throws InterruptedException {
+        showRepository.save(new Show("SH0001", 2, 2, 60));
+        CountDownLatch stall = new CountDownLatch(1);
+        CountDownLatch dropped = new CountDownLatch(1);
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        CountDownLatch received = new CountDownLatch(1);
+
+        seatStreamService.subscribe("SH0001", new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                try {
+                    stall.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+
+            @Override
+            public void completeWithError(Throwable ex) {
+                error.set(ex);
+                dropped.countDown();
+            }
+        });
+        seatStreamService.subscribe("SH0001", new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) {
+                received.countDown();
+            }
+        });
+
+        try {
+            assertTrue(received.await(5, TimeUnit.SECONDS));
+            assertTrue(dropped.await(5, TimeUnit.SECONDS));
+            assertInstanceOf(TimeoutException.class, error.get());
+        } finally {
+            stall.countDown();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.ticketreservation.service;
+
+import com.example.ticketreservation.journal.BookingJournal;
+import com.example.ticketreservation.repository.BookingRepository;
+import com.example.ticketreservation.repository.ShowRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+/**
+ * Wires the repositories and services without Spring, for tests and benchmarks that run
+ * them together. By default the journal is disabled, metrics are recorded nowhere, there
+ * are no event loops, and the timing wheel is not started.
+ */
+public final class ServiceFixture {
+
+    public final ShowRepository showRepository = new ShowRepository();
+    public final BookingRepository bookingRepository = new BookingRepository();
+    public final ShowLocks showLocks;
+    public final BookingJournal journal;
+    public final TimingWheel timingWheel;
+    public final ShowService showService;
+    public final BookingService bookingService;
+
+    private ServiceFixture(Builder builder) {
+        showLocks = builder.lockStripes > 0 ? new ShowLocks(builder.lockStripes) : new ShowLocks();
+        TicketNumberGenerator ticketNumberGenerator = new TicketNumberGenerator();
+        if (builder.journalDirectory == null) {
+            journal = BookingJournal.disabled();
+        } else {
+            journal = new BookingJournal(showRepository, bookingRepository, showLocks, ticketNumberGenerator, true,
+                    builder.journalDirectory.toString(), builder.snapshotEveryEvents);
+            try {
+                journal.start();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        BookingMetrics bookingMetrics = builder.meterRegistry == null ? BookingMetrics.disabled()
+                : new BookingMetrics(builder.meterRegistry, showRepository, bookingRepository, false);
+        timingWheel = new TimingWheel(builder.tickMillis, builder.wheelSize);
+        if (builder.startTimingWheel) {
+            timingWheel.start();
+        }
+        showService = new ShowService(showRepository, bookingRepository, showLocks, journal,
+                new SeatStreamService(showRepository, timingWheel, 5000), bookingMetrics, builder.showPartitions,
+                ClusterTopology.standalone());
+        bookingService = new BookingService(bookingRepository, showRepository, showService, showLocks, journal,
+                timingWheel, new BookingFinalizer(bookingRepository, timingWheel), ticketNumberGenerator,
+                bookingMetrics, builder.showPartitions);
+    }
+
+    /**
+     * @return A fixture with the defaults.
+     */
+    public static ServiceFixture create() {
+        return builder().build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Stops the timing wheel and the journal, if they were started.
+     */
+    public void stop() throws InterruptedException, IOException {
+        timingWheel.stop();
+        journal.stop();
+    }
+
+    public static final class Builder {
+
+        private int lockStripes;
+        private Path journalDirectory;
+        private long snapshotEveryEvents;
+        private MeterRegistry meterRegistry;
+        private ShowPartitions showPartitions = ShowPartitions.disabled();
+        private long tickMillis = 100;
+        private int wheelSize = 512;
+        private boolean startTimingWheel;
+
+        private Builder() {
+        }
+
+        /**
+         * @param lockStripes The number of show lock stripes; 1 means a single global lock.
+         */
+        public Builder lockStripes(int lockStripes) {
+            this.lockStripes = lockStripes;
+            return this;
+        }
+
+        /**
+         * Enables the journal, recovering whatever the directory already holds.
+         *
+         * @param directory The journal directory.
+         * @param snapshotEveryEvents The number of events after which a snapshot is written.
+         */
+        public Builder journal(Path directory, long snapshotEveryEvents) {
+            this.journalDirectory = directory;
+            this.snapshotEveryEvents = snapshotEveryEvents;
+            return this;
+        }
+
+        /**
+         * @param meterRegistry The registry to record metrics in, like the application does.
+         */
+        public Builder meterRegistry(MeterRegistry meterRegistry) {
+            this.meterRegistry = meterRegistry;
+            return this;
+        }
+
+        public Builder showPartitions(ShowPartitions showPartitions) {
+            this.showPartitions = showPartitions;
+            return this;
+        }
+
+        /**
+         * Starts the timing wheel, so holds expire and bookings are finalized.
+         *
+         * @param tickMillis The resolution of the wheel.
+         * @param wheelSize The number of buckets.
+         */
+        public Builder startTimingWheel(long tickMillis, int wheelSize) {
+            this.tickMillis = tickMillis;
+            this.wheelSize = wheelSize;
+            this.startTimingWheel = true;
+            return this;
+        }
+
+        public ServiceFixture build() {
+            return new ServiceFixture(this);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.ticketreservation.service;
+
+import com.example.ticketreservation.model.Show;
+import com.example.ticketreservation.model.ShowImportError;
+import com.example.ticketreservation.model.ShowImportReport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for ShowImporter.
+ */
+public class ShowImporterTest {
+
+    @Mock
+    private ShowService showService;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private ShowImporter showImporter;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(showService.configureShows(anyList()))
+                .thenAnswer(invocation -> Arrays.asList(new String[invocation.<List<?>>getArgument(0).size()]));
+    }
+
+    @Test
+    void testImportCsv() throws Exception {
+        String csv = "showNumber,numberOfRows,seatsPerRow,cancelWindowInMinutes\n"
+                + "SH0001,10,10,60\n"
+                + "\n"
+                + "SH0002,ten,10,60\n"
+                + "SH0003,10,10\n"
+                + " SH0004 , 26 , 10 , 5 \n";
+
+        ShowImportReport report = showImporter.importShows(new StringReader(csv), ShowImporter.Format.CSV);
+
+        assertEquals(2, report.getImported());
+        assertEquals(2, report.getFailed());
+        assertEquals(List.of(
+                new ShowImportError(4, "SH0002", "numberOfRows, seatsPerRow and cancelWindowInMinutes must be whole numbers."),
+                new ShowImportError(5, null, "Expected showNumber,numberOfRows,seatsPerRow,cancelWindowInMinutes.")),
+                report.getErrors());
+        List<Show> shows = configuredShows().get(0);
+        assertEquals(List.of("SH0001", "SH0004"), shows.stream().map(Show::getShowNumber).toList());
+        assertEquals(260, shows.get(1).getSeats().capacity());
+        assertEquals(5, shows.get(1).getCancelWindowInMinutes());
+    }
+
+    @Test
+    void testImportNdjson() throws Exception {
+        String ndjson = "{\"showNumber\":\"SH0001\",\"numberOfRows\":10,\"seatsPerRow\":10,\"cancelWindowInMinutes\":60}\n"
+                + "{\"showNumber\":\"SH0002\",\"cancelWindowInMinutes\":30,\"sections\":["
+                + "{\"name\":\"Stalls\",\"numberOfRows\":20,\"seatsPerRow\":30},"
+                + "{\"name\":\"Balcony\",\"numberOfRows\":5,\"seatsPerRow\":20}]}\n"
+                + "{\"showNumber\":\n"
+                + "{\"numberOfRows\":10,\"seatsPerRow\":10,\"cancelWindowInMinutes\":60}\n";
+
+        ShowImportReport report = showImporter.importShows(new StringReader(ndjson), ShowImporter.Format.NDJSON);
+
+        assertEquals(2, report.getImported());
+        assertEquals(2, report.getFailed());
+        assertEquals(3, report.getErrors().get(0).getLine());
+        assertTrue(report.getErrors().get(0).getError().startsWith("Invalid JSON"));
+        assertEquals(new ShowImportError(4, null, "Show number is required."), report.getErrors().get(1));
+        Show sectioned = configuredShows().get(0).get(1);
+        assertTrue(sectioned.layout().isSectioned());
+        assertEquals(700, sectioned.getSeats().capacity());
+    }
+
+    @Test
+    void testRowsRejectedByShowServiceAreReported() throws Exception {
+        when(showService.configureShows(anyList()))
+                .thenReturn(Arrays.asList(null, "Show SH0002 belongs to another node."));
+
+        ShowImportReport report = showImporter.importShows(
+                new StringReader("SH0001,10,10,60\nSH0002,10,10,60\n"), ShowImporter.Format.CSV);
+
+        assertEquals(1, report.getImported());
+        assertEquals(List.of(new ShowImportError(2, "SH0002", "Show SH0002 belongs to another node.")), report.getErrors());
+    }
+
+    @Test
+    void testLargeImportsAreConfiguredInBatches() throws Exception {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 2 * ShowImporter.BATCH_SIZE + 1; i++) {
+            csv.append("SH").append(i).append(",").append(i == 0 ? -1 : 10).append(",10,60\n");
+        }
+
+        ShowImportReport report = showImporter.importShows(new StringReader(csv.toString()), ShowImporter.Format.CSV);
+
+        assertEquals(2 * ShowImporter.BATCH_SIZE, report.getImported());
+        assertEquals(List.of(new ShowImportError(1, "SH0", "Invalid seat layout: -1 rows of 10 seats.")), report.getErrors());
+        List<List<Show>> batches = configuredShows();
+        assertEquals(3, batches.size());
+        assertEquals("SH1", batches.get(0).get(0).getShowNumber());
+        assertEquals(1, batches.get(2).size());
+    }
+
+    @Test
+    void testFormats() {
+        assertEquals(ShowImporter.Format.CSV, ShowImporter.Format.forContentType("text/csv; charset=UTF-8"));
+        assertEquals(ShowImporter.Format.NDJSON, ShowImporter.Format.forContentType("application/x-ndjson"));
+        assertEquals(ShowImporter.Format.NDJSON, ShowImporter.Format.forFileName("season-2026.JSONL"));
+        assertThrows(IllegalArgumentException.class, () -> ShowImporter.Format.forFileName("season.xlsx"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<Show>> configuredShows() {
+        ArgumentCaptor<List<Show>> captor = ArgumentCaptor.forClass(List.class);
+        verify(showService, atLeastOnce()).configureShows(captor.capture());
+        return new ArrayList<>(captor.getAllValues());
+    }
+}
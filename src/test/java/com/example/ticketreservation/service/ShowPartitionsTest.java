@@ -0,0 +1,128 @@
+package com.example.ticketreservation.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for ShowPartitions.
+ */
+public class ShowPartitionsTest {
+
+    @Test
+    void testQueueIsFifoAndBounded() {
+        ShowPartitions.BoundedQueue<Integer> queue = new ShowPartitions.BoundedQueue<>(3);
+
+        // Rounded up to a capacity of 4.
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(i));
+        }
+        assertFalse(queue.offer(4));
+
+        assertEquals(Integer.valueOf(0), queue.poll());
+        assertTrue(queue.offer(4));
+        for (int i = 1; i <= 4; i++) {
+            assertEquals(Integer.valueOf(i), queue.poll());
+        }
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void testTasksOfAShowRunInOrderOnOneThread() throws InterruptedException {
+        ShowPartitions partitions = new ShowPartitions(true, 4, 1024);
+        try {
+            List<Integer> order = new ArrayList<>();
+            List<CompletableFuture<String>> threads = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                int task = i;
+                threads.add(partitions.submit("SH0001", () -> {
+                    order.add(task);
+                    return Thread.currentThread().getName();
+                }));
+            }
+
+            CompletableFuture.allOf(threads.toArray(new CompletableFuture[0])).join();
+            for (int i = 0; i < 100; i++) {
+                assertEquals(Integer.valueOf(i), order.get(i));
+                assertEquals(threads.get(0).join(), threads.get(i).join());
+            }
+            assertTrue(threads.get(0).join().startsWith("show-event-loop-"));
+        } finally {
+            partitions.stop();
+        }
+    }
+
+    @Test
+    void testOnEventLoop() throws InterruptedException {
+        ShowPartitions partitions = new ShowPartitions(true, 1, 16);
+        try {
+            assertTrue(partitions.submit("SH0001", ShowPartitions::onEventLoop).join());
+            assertFalse(ShowPartitions.onEventLoop());
+        } finally {
+            partitions.stop();
+        }
+    }
+
+    @Test
+    void testTaskExceptionFailsTheFuture() throws InterruptedException {
+        ShowPartitions partitions = new ShowPartitions(true, 1, 16);
+        try {
+            CompletableFuture<String> future = partitions.submit("SH0001", () -> {
+                throw new IllegalArgumentException("Show not found.");
+            });
+
+            CompletionException e = assertThrows(CompletionException.class, future::join);
+            assertInstanceOf(IllegalArgumentException.class, e.getCause());
+            assertEquals("ok", partitions.submit("SH0001", () -> "ok").join());
+        } finally {
+            partitions.stop();
+        }
+    }
+
+    @Test
+    void testFullQueueIsRejected() throws InterruptedException {
+        ShowPartitions partitions = new ShowPartitions(true, 1, 2);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        try {
+            CompletableFuture<Void> blocking = partitions.submit("SH0001", () -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            });
+            started.await();
+            partitions.submit("SH0001", () -> null);
+            partitions.submit("SH0001", () -> null);
+
+            CompletableFuture<Object> rejected = partitions.submit("SH0001", () -> null);
+
+            CompletionException e = assertThrows(CompletionException.class, rejected::join);
+            assertInstanceOf(RejectedExecutionException.class, e.getCause());
+            release.countDown();
+            blocking.join();
+        } finally {
+            release.countDown();
+            partitions.stop();
+        }
+    }
+
+    @Test
+    void testSubmitWhenDisabled() {
+        ShowPartitions partitions = ShowPartitions.disabled();
+
+        assertFalse(partitions.isEnabled());
+        assertThrows(IllegalStateException.class, () -> partitions.submit("SH0001", () -> null));
+    }
+}
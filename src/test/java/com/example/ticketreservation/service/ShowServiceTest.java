@@ -1,7 +1,9 @@
 package com.example.ticketreservation.service;
 
+import com.example.ticketreservation.journal.BookingJournal;
 import com.example.ticketreservation.model.Booking;
 import com.example.ticketreservation.model.Show;
+import com.example.ticketreservation.model.ShowDetailsPage;
 import com.example.ticketreservation.repository.BookingRepository;
 import com.example.ticketreservation.repository.ShowRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -9,12 +11,13 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 /**
@@ -28,6 +31,24 @@ public class ShowServiceTest {
     @Mock
     private BookingRepository bookingRepository;
 
+    @Spy
+    private ShowLocks showLocks = new ShowLocks();
+
+    @Mock
+    private BookingJournal bookingJournal;
+
+    @Mock
+    private SeatStreamService seatStreamService;
+
+    @Mock
+    private BookingMetrics bookingMetrics;
+
+    @Mock
+    private ShowPartitions showPartitions;
+
+    @Mock
+    private ClusterTopology clusterTopology;
+
     @InjectMocks
     private ShowService showService;
 
@@ -45,10 +66,26 @@ public class ShowServiceTest {
         verify(showRepository, times(1)).save(any(Show.class));
     }
 
+    @Test
+    void testConfigureShows() {
+        Show misdirected = new Show("SH0002", 10, 5, 60);
+        doThrow(new IllegalArgumentException("Show SH0002 belongs to another node."))
+                .when(clusterTopology).checkOwner("SH0002");
+        when(bookingJournal.appendShowConfigured(any(Show.class))).thenReturn(1L, 2L);
+
+        List<String> errors = showService.configureShows(List.of(
+                new Show("SH0001", 10, 5, 60), misdirected, new Show("SH0003", 10, 5, 60)));
+
+        assertEquals(Arrays.asList(null, "Show SH0002 belongs to another node.", null), errors);
+        verify(showRepository, times(2)).save(any(Show.class));
+        verify(showRepository, never()).save(misdirected);
+        verify(bookingJournal, times(1)).awaitDurable(2L);
+    }
+
     @Test
     void testDisplayShowDetails() {
         String showNumber = "SH0001";
-        Show show = new Show(showNumber, 10, 5, 60, new HashMap<>());
+        Show show = new Show(showNumber, 10, 5, 60);
         List<Booking> bookings = new ArrayList<>();
         Booking booking = new Booking("TK000001", "+1234567890", showNumber, Arrays.asList("A1", "A2"));
         bookings.add(booking);
@@ -60,4 +97,55 @@ public class ShowServiceTest {
 
         verify(showRepository, times(1)).findByShowNumber(showNumber);
     }
+
+    @Test
+    void testShowDetailsVersionChangesWithSeatsAndFinalBookings() {
+        String showNumber = "SH0001";
+        Show show = new Show(showNumber, 10, 5, 60);
+        when(showRepository.findByShowNumber(showNumber)).thenReturn(show);
+        when(bookingRepository.countFinalByShowNumber(showNumber)).thenReturn(0, 0, 0, 1);
+
+        String initial = showService.showDetailsVersion(showNumber);
+        assertEquals(initial, showService.showDetailsVersion(showNumber));
+        show.getSeats().book(show.getSeats().ordinalsOf(Arrays.asList("A1")));
+        String booked = showService.showDetailsVersion(showNumber);
+        String finalized = showService.showDetailsVersion(showNumber);
+
+        assertNotEquals(initial, booked);
+        assertNotEquals(booked, finalized);
+    }
+
+    @Test
+    void testDisplayShowDetailsWithoutBookings() {
+        String showNumber = "SH0001";
+        when(showRepository.findByShowNumber(showNumber)).thenReturn(new Show(showNumber, 10, 5, 60));
+        when(bookingRepository.findByShowNumber(showNumber)).thenReturn(new ArrayList<>());
+
+        assertEquals(Arrays.asList("Show Number: SH0001", "Cancellable Bookings: 0, Final Bookings: 0"),
+                showService.displayShowDetails(showNumber));
+    }
+
+    @Test
+    void testShowDetailsPageIsLimited() {
+        String showNumber = "SH0001";
+        List<Booking> bookings = Arrays.asList(
+                new Booking("TK000002", "+2", showNumber, Arrays.asList("A2")),
+                new Booking("TK000003", "+3", showNumber, Arrays.asList("A3")),
+                new Booking("TK000004", "+4", showNumber, Arrays.asList("A4")));
+        when(showRepository.findByShowNumber(showNumber)).thenReturn(new Show(showNumber, 10, 5, 60));
+        when(bookingRepository.countByShowNumber(showNumber)).thenReturn(4);
+        when(bookingRepository.countFinalByShowNumber(showNumber)).thenReturn(1);
+        when(bookingRepository.findByShowNumberAfter(showNumber, "TK000001")).thenReturn(bookings);
+
+        ShowDetailsPage page = showService.showDetailsPage(showNumber, "TK000001", 2);
+        List<String> tickets = new ArrayList<>();
+        page.forEach(booking -> tickets.add(booking.getTicketNumber()));
+
+        assertEquals(Arrays.asList("TK000002", "TK000003"), tickets);
+        assertEquals(3, page.getCancellableBookings());
+        assertEquals(1, page.getFinalBookings());
+        assertThrows(IllegalArgumentException.class, () -> showService.showDetailsPage(showNumber, null, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> showService.showDetailsPage(showNumber, null, ShowService.MAX_PAGE_SIZE + 1));
+    }
 }
@@ -0,0 +1,76 @@
+package com.example.ticketreservation.service;
+
+import com.example.ticketreservation.model.TicketNumber;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for TicketNumberGenerator.
+ */
+public class TicketNumberGeneratorTest {
+
+    @Test
+    void testTicketNumbersAreUniqueAcrossThreads() throws InterruptedException {
+        TicketNumberGenerator generator = new TicketNumberGenerator(7);
+        Set<String> ticketNumbers = ConcurrentHashMap.newKeySet();
+        int threads = 8;
+        int perThread = 50_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            pool.submit(() -> {
+                for (int n = 0; n < perThread; n++) {
+                    ticketNumbers.add(generator.next());
+                }
+            });
+        }
+        pool.shutdown();
+
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+        assertEquals(threads * perThread, ticketNumbers.size());
+    }
+
+    @Test
+    void testTicketIdsEmbedTheNodeId() {
+        TicketNumberGenerator first = new TicketNumberGenerator(1);
+        TicketNumberGenerator second = new TicketNumberGenerator(TicketNumberGenerator.MAX_NODE_ID);
+
+        long id = first.nextId();
+        assertEquals(1, TicketNumberGenerator.nodeIdOf(id));
+        assertEquals(TicketNumberGenerator.MAX_NODE_ID, TicketNumberGenerator.nodeIdOf(second.nextId()));
+        assertTrue(first.nextId() > id);
+        assertThrows(IllegalArgumentException.class, () -> new TicketNumberGenerator(TicketNumberGenerator.MAX_NODE_ID + 1));
+    }
+
+    @Test
+    void testHoldIdsEmbedTheNodeId() {
+        TicketNumberGenerator generator = new TicketNumberGenerator(5);
+
+        String holdId = generator.nextHoldId();
+
+        assertTrue(holdId.startsWith(TicketNumber.HOLD_PREFIX));
+        assertEquals(TicketNumber.LENGTH, holdId.length());
+        assertNotEquals(holdId, generator.nextHoldId());
+        assertEquals(5, TicketNumberGenerator.nodeIdOf(TicketNumber.parse(TicketNumber.PREFIX + holdId.substring(2))));
+    }
+
+    @Test
+    void testAdvancePastRecoveredTicket() {
+        TicketNumberGenerator generator = new TicketNumberGenerator(3);
+        // A ticket from this node issued far in the future, as if the clock went back since.
+        long future = generator.nextId() + (3_600_000L << 22);
+        generator.advancePast(TicketNumber.format(future));
+
+        assertTrue(generator.nextId() > future);
+        // Other nodes' tickets and foreign formats are ignored.
+        generator.advancePast("TK000001");
+        generator.advancePast("not a ticket");
+        assertTrue(generator.nextId() > future);
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.ticketreservation.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for TimingWheel.
+ */
+public class TimingWheelTest {
+
+    @Test
+    void testRunsTasksInDeadlineOrderAndNotEarly() throws Exception {
+        // 8 buckets of 10ms, so the 250ms task waits in the overflow heap before it enters the wheel.
+        TimingWheel wheel = new TimingWheel(10, 8);
+        wheel.start();
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+        long start = System.nanoTime();
+        long[] ranAfterMillis = new long[3];
+        try {
+            int[] delays = {250, 0, 35};
+            for (int i = 0; i < delays.length; i++) {
+                int task = i;
+                wheel.schedule(delays[i], () -> {
+                    ranAfterMillis[task] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    order.add(task);
+                    done.countDown();
+                });
+            }
+
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+        } finally {
+            wheel.stop();
+        }
+        assertEquals(List.of(1, 2, 0), order);
+        assertTrue(ranAfterMillis[2] >= 35);
+        assertTrue(ranAfterMillis[0] >= 250);
+    }
+
+    @Test
+    void testFailingTaskDoesNotStopTheWheel() throws Exception {
+        TimingWheel wheel = new TimingWheel(10, 8);
+        wheel.start();
+        CountDownLatch done = new CountDownLatch(1);
+        try {
+            wheel.schedule(0, () -> {
+                throw new IllegalStateException("boom");
+            });
+            wheel.schedule(20, done::countDown);
+
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+        } finally {
+            wheel.stop();
+        }
+    }
+
+    @Test
+    void testCancelledTaskDoesNotRun() throws Exception {
+        TimingWheel wheel = new TimingWheel(10, 8);
+        wheel.start();
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(1);
+        try {
+            TimingWheel.Timeout early = wheel.schedule(30, runs::incrementAndGet);
+            TimingWheel.Timeout late = wheel.schedule(150, runs::incrementAndGet);
+            TimingWheel.Timeout kept = wheel.schedule(200, done::countDown);
+            // One is cancelled in a bucket, and one while it waits in the overflow heap.
+            assertTrue(early.cancel());
+            Thread.sleep(50);
+            assertTrue(late.cancel());
+            assertFalse(late.cancel());
+
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertFalse(kept.cancel());
+        } finally {
+            wheel.stop();
+        }
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    void testFarDeadlinesComeDueInOrderAfterCancellations() throws Exception {
+        TimingWheel wheel = new TimingWheel(10, 8);
+        wheel.start();
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(5);
+        try {
+            List<TimingWheel.Timeout> timeouts = new CopyOnWriteArrayList<>();
+            for (int i = 9; i >= 0; i--) {
+                int task = i;
+                timeouts.add(0, wheel.schedule(100 + 20L * i, () -> {
+                    order.add(task);
+                    done.countDown();
+                }));
+            }
+            Thread.sleep(30);
+            for (int i = 1; i < 10; i += 2) {
+                assertTrue(timeouts.get(i).cancel());
+            }
+
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            Thread.sleep(100);
+        } finally {
+            wheel.stop();
+        }
+        assertEquals(List.of(0, 2, 4, 6, 8), order);
+    }
+}